@@ -0,0 +1,36 @@
+package bg.softuni.paymentsvc;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Arrays;
+
+public final class BenchmarkContext {
+
+    private static final String[] ARGS = {
+            "--spring.main.banner-mode=off",
+            "--spring.datasource.url=jdbc:h2:mem:benchmark;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+            "--spring.datasource.driver-class-name=org.h2.Driver",
+            "--spring.datasource.username=sa",
+            "--spring.datasource.password=",
+            "--spring.flyway.enabled=false",
+            "--spring.jpa.hibernate.ddl-auto=create-drop",
+            "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+            "--spring.jpa.open-in-view=false",
+            "--spring.jpa.show-sql=false",
+            "--logging.level.root=WARN"
+    };
+
+    private BenchmarkContext() {
+    }
+
+    public static ConfigurableApplicationContext start() {
+        return start("--spring.main.web-application-type=none");
+    }
+
+    public static ConfigurableApplicationContext start(String... overrides) {
+        String[] args = Arrays.copyOf(ARGS, ARGS.length + overrides.length);
+        System.arraycopy(overrides, 0, args, ARGS.length, overrides.length);
+        return new SpringApplicationBuilder(PaymentSvcApplication.class).run(args);
+    }
+}
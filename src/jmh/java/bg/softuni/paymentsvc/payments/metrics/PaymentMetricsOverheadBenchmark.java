@@ -0,0 +1,82 @@
+package bg.softuni.paymentsvc.payments.metrics;
+
+import bg.softuni.paymentsvc.BenchmarkContext;
+import bg.softuni.paymentsvc.payments.service.PaymentService;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentRequest;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentResponse;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Cost of the payments.operations timers, with the histogram settings from application.properties.
+// getPayment is served from the warm cache, so it is the worst case; createPayment includes a database write.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class PaymentMetricsOverheadBenchmark {
+
+    private static final int SEEDED_PAYMENTS = 1_000;
+
+    @Param({"true", "false"})
+    private boolean operationMetrics;
+
+    private ConfigurableApplicationContext context;
+    private PaymentService paymentService;
+    private List<UUID> cached;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkContext.start(
+                "--spring.main.web-application-type=none",
+                "--payments.metrics.operations-enabled=" + operationMetrics);
+        paymentService = context.getBean(PaymentService.class);
+
+        cached = new ArrayList<>(SEEDED_PAYMENTS);
+        for (int i = 0; i < SEEDED_PAYMENTS; i++) {
+            cached.add(paymentService.createPayment(request()).getId());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public PaymentResponse getPaymentCached(Cursor cursor) {
+        return paymentService.getPayment(cached.get(cursor.next()));
+    }
+
+    @Benchmark
+    public PaymentResponse createPayment() {
+        return paymentService.createPayment(request());
+    }
+
+    private static PaymentRequest request() {
+        return PaymentRequest.builder()
+                .orderId(UUID.randomUUID())
+                .amount(new BigDecimal("42.50"))
+                .method("CARD")
+                .build();
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private int next;
+
+        int next() {
+            next = (next + 1) % SEEDED_PAYMENTS;
+            return next;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package bg.softuni.paymentsvc.payments.outbox;
+
+import bg.softuni.paymentsvc.BenchmarkContext;
+import bg.softuni.paymentsvc.payments.model.PaymentStatus;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Scores are events/s: each invocation relays the whole seeded outbox from offset 0 into the in-memory sink.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(PaymentOutboxRelayBenchmark.EVENTS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaymentOutboxRelayBenchmark {
+
+    static final int EVENTS = 20_000;
+
+    @Param({"100", "500", "2000"})
+    private int batchSize;
+
+    private ConfigurableApplicationContext context;
+    private PaymentOutboxRelay relay;
+    private PaymentOutboxOffsetRepository offsetRepository;
+    private InMemoryPaymentEventSink sink;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkContext.start(
+                "--spring.main.web-application-type=none",
+                "--payments.outbox.relay-enabled=true",
+                "--payments.outbox.sink=memory",
+                "--payments.outbox.poll-interval=1h",
+                "--payments.outbox.batch-size=" + batchSize);
+        relay = context.getBean(PaymentOutboxRelay.class);
+        offsetRepository = context.getBean(PaymentOutboxOffsetRepository.class);
+        sink = context.getBean(InMemoryPaymentEventSink.class);
+
+        PaymentOutboxRepository outboxRepository = context.getBean(PaymentOutboxRepository.class);
+        LocalDateTime occurredOn = LocalDateTime.now().minusMinutes(1);
+        List<PaymentOutboxEvent> events = new ArrayList<>(EVENTS);
+        for (int i = 0; i < EVENTS; i++) {
+            events.add(PaymentOutboxEvent.builder()
+                    .paymentId(UUID.randomUUID())
+                    .orderId(UUID.randomUUID())
+                    .status(PaymentStatus.SUCCESSFUL)
+                    .occurredOn(occurredOn)
+                    .build());
+        }
+        outboxRepository.saveAll(events);
+    }
+
+    @Setup(Level.Invocation)
+    public void rewind() {
+        offsetRepository.deleteAll();
+        sink.clear();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public int relayAll() {
+        relay.relay();
+        return sink.getEvents().size();
+    }
+}
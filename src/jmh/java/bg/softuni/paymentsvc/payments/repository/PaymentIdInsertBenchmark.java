@@ -0,0 +1,72 @@
+package bg.softuni.paymentsvc.payments.repository;
+
+import bg.softuni.paymentsvc.BenchmarkContext;
+import bg.softuni.paymentsvc.payments.model.PaymentStatus;
+import bg.softuni.paymentsvc.payments.service.PaymentIdGenerator;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Insert throughput into an already large payment table, with random (v4) vs time-ordered (v7) primary keys.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaymentIdInsertBenchmark {
+
+    private static final int BATCH = 1_000;
+
+    private static final String INSERT = """
+            INSERT INTO payment (id, order_id, amount, status, method, created_on, updated_on)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    @Param({"RANDOM", "TIME_ORDERED"})
+    private String ids;
+
+    @Param("1000000")
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private JdbcTemplate jdbcTemplate;
+    private Supplier<UUID> nextId;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkContext.start();
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        nextId = "RANDOM".equals(ids) ? UUID::randomUUID : PaymentIdGenerator::nextTimeOrderedId;
+
+        for (int i = 0; i < rows; i += BATCH) {
+            insertBatch();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int[] insertBatch() {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> batch = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            batch.add(new Object[]{nextId.get(), UUID.randomUUID(), BigDecimal.TEN,
+                    PaymentStatus.PENDING.name(), "CARD", now, now});
+        }
+        return jdbcTemplate.batchUpdate(INSERT, batch);
+    }
+}
@@ -0,0 +1,153 @@
+package bg.softuni.paymentsvc.payments.repository;
+
+import bg.softuni.paymentsvc.BenchmarkContext;
+import bg.softuni.paymentsvc.payments.model.Payment;
+import bg.softuni.paymentsvc.payments.model.PaymentStatus;
+import bg.softuni.paymentsvc.payments.repository.projection.PaymentKey;
+import bg.softuni.paymentsvc.payments.repository.projection.PaymentSummary;
+import bg.softuni.paymentsvc.payments.service.PaymentIdGenerator;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Timings at a few thousand rows say little about index use, so the table holds millions of rows by default and the
+// plans of the cleanup and listing queries are printed, and checked for full scans, before anything is measured.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaymentRepositoryBenchmark {
+
+    private static final String INSERT = """
+            INSERT INTO payment (id, order_id, amount, status, method, created_on, updated_on)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    // The SQL Hibernate generates for findKeysByStatusAndCreatedOnBefore and for search, as EXPLAIN needs it.
+    private static final String STALE_PENDING_CHUNK = """
+            SELECT id, order_id FROM payment
+            WHERE status = 'PENDING' AND created_on < ?
+            ORDER BY created_on, id LIMIT 500
+            """;
+    private static final String SEARCH_FIRST_PAGE = """
+            SELECT id, order_id, amount, status, method, created_on, updated_on FROM payment
+            WHERE 1 = 1 AND status = 'PENDING'
+            ORDER BY created_on, id LIMIT 51
+            """;
+    private static final String SEARCH_DEEP_PAGE = """
+            SELECT id, order_id, amount, status, method, created_on, updated_on FROM payment
+            WHERE 1 = 1 AND status = 'PENDING' AND (created_on > ? OR (created_on = ? AND id > ?))
+            ORDER BY created_on, id LIMIT 51
+            """;
+
+    private static final int BATCH = 1_000;
+
+    // Order ids looked up by findByOrderId, spread over the whole table.
+    private static final int LOOKUPS = 10_000;
+
+    @Param("2000000")
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private PaymentRepository paymentRepository;
+    private JdbcTemplate jdbcTemplate;
+    private List<UUID> orderIds;
+    private LocalDateTime staleBefore;
+    private PaymentSearchCriteria deepPage;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkContext.start();
+        paymentRepository = context.getBean(PaymentRepository.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        // Plain JDBC batches: loading millions of rows through JPA would take longer than the benchmark itself.
+        LocalDateTime start = LocalDateTime.now().minusDays(30 + rows / 8_640);
+        PaymentStatus[] statuses = PaymentStatus.values();
+        int lookupEvery = Math.max(1, rows / LOOKUPS);
+        orderIds = new ArrayList<>(LOOKUPS);
+
+        List<Object[]> batch = new ArrayList<>(BATCH);
+        for (int i = 0; i < rows; i++) {
+            Timestamp createdOn = Timestamp.valueOf(start.plusSeconds(i * 10L));
+            UUID orderId = UUID.randomUUID();
+            if (i % lookupEvery == 0) {
+                orderIds.add(orderId);
+            }
+
+            batch.add(new Object[]{PaymentIdGenerator.nextTimeOrderedId(), orderId, BigDecimal.valueOf(i % 500 + 1),
+                    statuses[i % statuses.length].name(), i % 2 == 0 ? "CARD" : "BANK_TRANSFER", createdOn, createdOn});
+            if (batch.size() == BATCH) {
+                jdbcTemplate.batchUpdate(INSERT, batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT, batch);
+        }
+        Collections.shuffle(orderIds);
+        jdbcTemplate.execute("ANALYZE");
+
+        staleBefore = start.plusSeconds(rows * 5L);
+        deepPage = PaymentSearchCriteria.builder()
+                .status(PaymentStatus.PENDING)
+                .afterCreatedOn(start.plusSeconds(rows * 9L))
+                .afterId(new UUID(0, 0))
+                .build();
+
+        explain("findStalePendingChunk", STALE_PENDING_CHUNK, Timestamp.valueOf(staleBefore));
+        explain("searchFirstPage", SEARCH_FIRST_PAGE);
+        Timestamp after = Timestamp.valueOf(deepPage.getAfterCreatedOn());
+        explain("searchDeepPage", SEARCH_DEEP_PAGE, after, after, deepPage.getAfterId());
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    // Fails the trial rather than report timings for a plan that reads the whole table.
+    private void explain(String benchmark, String sql, Object... args) {
+        String plan = String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class, args));
+        System.out.printf("%n%s plan at %,d rows:%n%s%n", benchmark, rows, plan);
+        if (plan.contains("tableScan")) {
+            throw new IllegalStateException(benchmark + " scans the whole payment table:\n" + plan);
+        }
+    }
+
+    @Benchmark
+    public Optional<Payment> findByOrderId() {
+        UUID orderId = orderIds.get(next);
+        next = (next + 1) % orderIds.size();
+        return paymentRepository.findByOrderId(orderId);
+    }
+
+    @Benchmark
+    public List<PaymentKey> findStalePendingChunk() {
+        return paymentRepository.findKeysByStatusAndCreatedOnBefore(PaymentStatus.PENDING, staleBefore, Limit.of(500));
+    }
+
+    @Benchmark
+    public List<PaymentSummary> searchFirstPage() {
+        return paymentRepository.search(PaymentSearchCriteria.builder().status(PaymentStatus.PENDING).build(), 51);
+    }
+
+    @Benchmark
+    public List<PaymentSummary> searchDeepPage() {
+        return paymentRepository.search(deepPage, 51);
+    }
+}
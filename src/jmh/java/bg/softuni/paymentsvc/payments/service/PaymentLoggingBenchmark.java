@@ -0,0 +1,122 @@
+package bg.softuni.paymentsvc.payments.service;
+
+import bg.softuni.paymentsvc.BenchmarkContext;
+import bg.softuni.paymentsvc.payments.model.PaymentStatus;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentRequest;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentResponse;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentStatusUpdateRequest;
+import ch.qos.logback.classic.LoggerContext;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Cost of per-request logging on PaymentService calls. Console output goes to target/logging-benchmark.log,
+// so the file write is measured but nothing reaches the JMH output.
+// - sync-verbose: what used to ship, with every call logged plus Hibernate SQL, written synchronously.
+// - async-verbose: the same lines as JSON through the prod profile's async appender.
+// - default: the current defaults, where per-request logs are DEBUG and nothing is written per call.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class PaymentLoggingBenchmark {
+
+    private static final int SEEDED_PAYMENTS = 1_000;
+
+    @Param({"sync-verbose", "async-verbose", "default"})
+    private String logging;
+
+    private PrintStream originalOut;
+    private PrintStream logFile;
+    private ConfigurableApplicationContext context;
+    private PaymentService paymentService;
+    private List<UUID> failed;
+    private PaymentStatusUpdateRequest markFailed;
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        Path file = Path.of("target", "logging-benchmark.log");
+        Files.createDirectories(file.getParent());
+        originalOut = System.out;
+        logFile = new PrintStream(new BufferedOutputStream(new FileOutputStream(file.toFile()), 64 * 1024));
+        System.setOut(logFile);
+
+        context = switch (logging) {
+            case "sync-verbose" -> BenchmarkContext.start(
+                    "--spring.main.web-application-type=none",
+                    "--logging.level.bg.softuni.paymentsvc=DEBUG",
+                    "--logging.level.org.hibernate.SQL=DEBUG");
+            case "async-verbose" -> BenchmarkContext.start(
+                    "--spring.main.web-application-type=none",
+                    "--spring.profiles.active=prod",
+                    "--logging.level.bg.softuni.paymentsvc=DEBUG",
+                    "--logging.level.org.hibernate.SQL=DEBUG");
+            default -> BenchmarkContext.start(
+                    "--spring.main.web-application-type=none",
+                    "--spring.profiles.active=prod");
+        };
+        paymentService = context.getBean(PaymentService.class);
+
+        markFailed = PaymentStatusUpdateRequest.builder().status(PaymentStatus.FAILED).build();
+        failed = new ArrayList<>(SEEDED_PAYMENTS);
+        for (int i = 0; i < SEEDED_PAYMENTS; i++) {
+            UUID id = paymentService.createPayment(request()).getId();
+            paymentService.updateStatus(id, markFailed);
+            failed.add(id);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+        // Drains the async appender into the file before stdout goes back to JMH.
+        ((LoggerContext) LoggerFactory.getILoggerFactory()).stop();
+        System.setOut(originalOut);
+        logFile.close();
+    }
+
+    @Benchmark
+    public PaymentResponse createPayment() {
+        return paymentService.createPayment(request());
+    }
+
+    // Already FAILED, so this is one indexed read plus the logging around it.
+    @Benchmark
+    public PaymentResponse updateStatusUnchanged(Cursor cursor) {
+        return paymentService.updateStatus(failed.get(cursor.next()), markFailed);
+    }
+
+    private static PaymentRequest request() {
+        return PaymentRequest.builder()
+                .orderId(UUID.randomUUID())
+                .amount(new BigDecimal("42.50"))
+                .method("CARD")
+                .build();
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private int next;
+
+        int next() {
+            next = (next + 1) % SEEDED_PAYMENTS;
+            return next;
+        }
+    }
+}
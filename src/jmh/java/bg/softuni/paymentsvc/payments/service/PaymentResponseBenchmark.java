@@ -0,0 +1,60 @@
+package bg.softuni.paymentsvc.payments.service;
+
+import bg.softuni.paymentsvc.payments.model.Payment;
+import bg.softuni.paymentsvc.payments.model.PaymentStatus;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PaymentResponseBenchmark {
+
+    private Payment payment;
+    private PaymentResponse response;
+    private ObjectWriter writer;
+
+    @Setup
+    public void setup() {
+        LocalDateTime now = LocalDateTime.now();
+
+        payment = Payment.builder()
+                .id(UUID.randomUUID())
+                .orderId(UUID.randomUUID())
+                .amount(new BigDecimal("42.50"))
+                .status(PaymentStatus.PENDING)
+                .method("CARD")
+                .createdOn(now)
+                .updatedOn(now)
+                .build();
+
+        response = PaymentService.toResponse(payment);
+        writer = Jackson2ObjectMapperBuilder.json().build().writerFor(PaymentResponse.class);
+    }
+
+    @Benchmark
+    public PaymentResponse toResponse() {
+        return PaymentService.toResponse(payment);
+    }
+
+    @Benchmark
+    public byte[] serializeResponse() throws JsonProcessingException {
+        return writer.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] toResponseAndSerialize() throws JsonProcessingException {
+        return writer.writeValueAsBytes(PaymentService.toResponse(payment));
+    }
+}
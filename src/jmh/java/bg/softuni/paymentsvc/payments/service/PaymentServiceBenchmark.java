@@ -0,0 +1,121 @@
+package bg.softuni.paymentsvc.payments.service;
+
+import bg.softuni.paymentsvc.BenchmarkContext;
+import bg.softuni.paymentsvc.payments.cache.PaymentCache;
+import bg.softuni.paymentsvc.payments.exception.PaymentAlreadyExistsException;
+import bg.softuni.paymentsvc.payments.web.dto.BatchPaymentItemResult;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentRequest;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentResponse;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaymentServiceBenchmark {
+
+    private static final int SEEDED_PAYMENTS = 5_000;
+
+    private ConfigurableApplicationContext context;
+    private PaymentService paymentService;
+    private PaymentCache paymentCache;
+    private List<PaymentResponse> seeded;
+    private PaymentRequest duplicate;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkContext.start();
+        paymentService = context.getBean(PaymentService.class);
+        paymentCache = context.getBean(PaymentCache.class);
+
+        seeded = new ArrayList<>(SEEDED_PAYMENTS);
+        for (int i = 0; i < SEEDED_PAYMENTS; i += 500) {
+            List<PaymentRequest> chunk = new ArrayList<>(500);
+            for (int j = 0; j < 500; j++) {
+                chunk.add(request());
+            }
+            paymentService.createPayments(chunk).getResults().stream()
+                    .map(BatchPaymentItemResult::getPayment)
+                    .forEach(seeded::add);
+        }
+
+        duplicate = PaymentRequest.builder()
+                .orderId(seeded.get(0).getOrderId())
+                .amount(BigDecimal.TEN)
+                .method("CARD")
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public PaymentResponse createPayment() {
+        return paymentService.createPayment(request());
+    }
+
+    @Benchmark
+    public void createPaymentDuplicate(Blackhole blackhole) {
+        try {
+            blackhole.consume(paymentService.createPayment(duplicate));
+        } catch (PaymentAlreadyExistsException e) {
+            blackhole.consume(e);
+        }
+    }
+
+    @Benchmark
+    public PaymentResponse getPaymentWarmCache() {
+        return paymentService.getPayment(nextSeeded().getId());
+    }
+
+    @Benchmark
+    public PaymentResponse getPaymentColdCache() {
+        PaymentResponse payment = nextSeeded();
+        paymentCache.evict(payment.getId(), payment.getOrderId());
+        return paymentService.getPayment(payment.getId());
+    }
+
+    @Benchmark
+    public PaymentResponse processPayment(PendingPayment pending) {
+        return paymentService.processPayment(pending.id);
+    }
+
+    private PaymentResponse nextSeeded() {
+        PaymentResponse payment = seeded.get(next);
+        next = (next + 1) % seeded.size();
+        return payment;
+    }
+
+    private static PaymentRequest request() {
+        return PaymentRequest.builder()
+                .orderId(UUID.randomUUID())
+                .amount(new BigDecimal("42.50"))
+                .method("CARD")
+                .build();
+    }
+
+    @State(Scope.Thread)
+    public static class PendingPayment {
+
+        private UUID id;
+
+        // processPayment only does work on PENDING rows, so each call gets a fresh one outside the measurement.
+        @Setup(Level.Invocation)
+        public void create(PaymentServiceBenchmark benchmark) {
+            id = benchmark.paymentService.createPayment(request()).getId();
+        }
+    }
+}
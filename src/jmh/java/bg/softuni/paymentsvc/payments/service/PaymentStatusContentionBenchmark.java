@@ -0,0 +1,121 @@
+package bg.softuni.paymentsvc.payments.service;
+
+import bg.softuni.paymentsvc.BenchmarkContext;
+import bg.softuni.paymentsvc.payments.exception.PaymentStatusConflictException;
+import bg.softuni.paymentsvc.payments.model.PaymentStatus;
+import bg.softuni.paymentsvc.payments.repository.PaymentRepository;
+import bg.softuni.paymentsvc.payments.web.dto.BatchPaymentItemResult;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentRequest;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentResponse;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentStatusUpdateRequest;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaymentStatusContentionBenchmark {
+
+    @Param({"16", "256"})
+    private int hotPayments;
+
+    private ConfigurableApplicationContext context;
+    private PaymentService paymentService;
+    private PaymentRepository paymentRepository;
+    private List<UUID> hot;
+    private PaymentStatusUpdateRequest fail;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkContext.start();
+        paymentService = context.getBean(PaymentService.class);
+        paymentRepository = context.getBean(PaymentRepository.class);
+        fail = PaymentStatusUpdateRequest.builder().status(PaymentStatus.FAILED).build();
+
+        List<PaymentRequest> requests = new ArrayList<>(hotPayments);
+        for (int i = 0; i < hotPayments; i++) {
+            requests.add(PaymentRequest.builder()
+                    .orderId(UUID.randomUUID())
+                    .amount(new BigDecimal("42.50"))
+                    .method("CARD")
+                    .build());
+        }
+        hot = paymentService.createPayments(requests).getResults().stream()
+                .map(BatchPaymentItemResult::getPayment)
+                .map(PaymentResponse::getId)
+                .toList();
+    }
+
+    @Setup(Level.Iteration)
+    public void reopenAll() {
+        LocalDateTime now = LocalDateTime.now();
+        paymentRepository.transitionStatus(hot, PaymentStatus.SUCCESSFUL, PaymentStatus.PENDING, now);
+        paymentRepository.transitionStatus(hot, PaymentStatus.FAILED, PaymentStatus.PENDING, now);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    @Group("race")
+    @GroupThreads(4)
+    public PaymentResponse processPayment() {
+        return paymentService.processPayment(randomHot());
+    }
+
+    @Benchmark
+    @Group("race")
+    @GroupThreads(4)
+    public PaymentResponse failPayment(Outcomes outcomes) {
+        try {
+            PaymentResponse response = paymentService.updateStatus(randomHot(), fail);
+            outcomes.applied++;
+            return response;
+        } catch (PaymentStatusConflictException e) {
+            outcomes.conflicts++;
+            return null;
+        }
+    }
+
+    // Puts settled rows back to PENDING so the race keeps having something to fight over.
+    @Benchmark
+    @Group("race")
+    @GroupThreads(1)
+    public int reopenPayment() {
+        List<UUID> id = List.of(randomHot());
+        LocalDateTime now = LocalDateTime.now();
+        return paymentRepository.transitionStatus(id, PaymentStatus.SUCCESSFUL, PaymentStatus.PENDING, now)
+                + paymentRepository.transitionStatus(id, PaymentStatus.FAILED, PaymentStatus.PENDING, now);
+    }
+
+    private UUID randomHot() {
+        return hot.get(ThreadLocalRandom.current().nextInt(hot.size()));
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Outcomes {
+
+        public long applied;
+        public long conflicts;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            applied = 0;
+            conflicts = 0;
+        }
+    }
+}
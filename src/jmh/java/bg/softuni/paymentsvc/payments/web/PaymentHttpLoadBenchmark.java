@@ -0,0 +1,83 @@
+package bg.softuni.paymentsvc.payments.web;
+
+import bg.softuni.paymentsvc.BenchmarkContext;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Compares the servlet stack on platform and virtual threads with the reactive stack under many
+// concurrent clients; SampleTime reports p99. The virtual run only differs on a Java 21+ runtime.
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(200)
+@Fork(1)
+public class PaymentHttpLoadBenchmark {
+
+    @Param({"platform", "virtual", "reactive"})
+    private String mode;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private URI payments;
+    private URI listing;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkContext.start(
+                "--server.port=0",
+                "--spring.profiles.active=" + ("reactive".equals(mode) ? "reactive" : "default"),
+                "--spring.threads.virtual.enabled=" + "virtual".equals(mode),
+                "--spring.datasource.hikari.maximum-pool-size=10",
+                "--spring.r2dbc.url=r2dbc:h2:mem:///benchmark;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                "--spring.r2dbc.username=sa",
+                "--spring.r2dbc.password=",
+                "--spring.r2dbc.pool.max-size=10",
+                "--payments.bulkhead.enabled=true");
+
+        if ("reactive".equals(mode)) {
+            // r2dbc-h2 binds Strings as CLOBs, which H2 cannot convert into its ENUM column type.
+            context.getBean(JdbcTemplate.class).execute("ALTER TABLE payment ALTER COLUMN status VARCHAR(16) NOT NULL");
+        }
+
+        String base = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api/v1/payments";
+        payments = URI.create(base);
+        listing = URI.create(base + "?limit=20");
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public int createPayment() throws IOException, InterruptedException {
+        String body = """
+                {"orderId":"%s","amount":42.50,"method":"CARD"}
+                """.formatted(UUID.randomUUID());
+
+        HttpRequest request = HttpRequest.newBuilder(payments)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    @Benchmark
+    public int listPayments() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(listing).GET().build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
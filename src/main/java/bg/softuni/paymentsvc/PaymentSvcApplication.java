@@ -2,11 +2,14 @@ package bg.softuni.paymentsvc;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.core.Ordered;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
 @EnableScheduling
-@EnableCaching
+@EnableCaching(order = Ordered.HIGHEST_PRECEDENCE + 1)
+@ConfigurationPropertiesScan
 @SpringBootApplication
 public class PaymentSvcApplication {
 
@@ -0,0 +1,112 @@
+package bg.softuni.paymentsvc.payments.bulkhead;
+
+import bg.softuni.paymentsvc.payments.exception.PaymentServiceBusyException;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Runs inside the cache interceptor, so hits never take a permit, and outside the
+// transaction interceptor, so nothing holds a JDBC connection while waiting.
+@Slf4j
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+@ConditionalOnProperty(prefix = "payments.bulkhead", name = "enabled", havingValue = "true")
+public class PaymentBulkhead {
+
+    private static final int DEFAULT_POOL_SIZE = 10;
+
+    // Set while a caller with its own concurrency limit, such as the processing queue's workers, runs its work.
+    private static final ThreadLocal<Boolean> EXEMPT = new ThreadLocal<>();
+
+    private final Semaphore permits;
+    private final long acquireTimeoutNanos;
+    private final Counter rejected;
+
+    public PaymentBulkhead(PaymentBulkheadProperties properties,
+                           DataSource dataSource,
+                           MeterRegistry meterRegistry) {
+        int maxConcurrent = properties.getMaxConcurrent() != null
+                ? properties.getMaxConcurrent()
+                : poolSize(dataSource);
+
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.acquireTimeoutNanos = properties.getAcquireTimeout().toNanos();
+        this.rejected = Counter.builder("payments.bulkhead.rejected").register(meterRegistry);
+
+        Gauge.builder("payments.bulkhead.available", permits, Semaphore::availablePermits)
+                .register(meterRegistry);
+        Gauge.builder("payments.bulkhead.waiting", permits, Semaphore::getQueueLength)
+                .register(meterRegistry);
+
+        log.info("Payment bulkhead enabled with {} permits", maxConcurrent);
+    }
+
+    @Around("execution(public * bg.softuni.paymentsvc.payments.service.PaymentService.*(..))")
+    public Object limit(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (EXEMPT.get() != null) {
+            return joinPoint.proceed();
+        }
+
+        acquire();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            permits.release();
+        }
+    }
+
+    // Runs the work without taking a permit. Meant for background callers whose thread count is already bounded:
+    // they should not compete with requests for permits, nor fail with 503 that nobody will retry.
+    public static <T> T exempt(Supplier<T> work) {
+        if (EXEMPT.get() != null) {
+            return work.get();
+        }
+
+        EXEMPT.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            EXEMPT.remove();
+        }
+    }
+
+    private void acquire() {
+        try {
+            if (permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        rejected.increment();
+        throw new PaymentServiceBusyException("Payment service is at capacity. Please retry shortly.");
+    }
+
+    private static int poolSize(DataSource dataSource) {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                return dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+            }
+        } catch (SQLException e) {
+            log.warn("Could not read the JDBC pool size: {}", e.getMessage());
+        }
+        return DEFAULT_POOL_SIZE;
+    }
+}
@@ -0,0 +1,20 @@
+package bg.softuni.paymentsvc.payments.bulkhead;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "payments.bulkhead")
+public class PaymentBulkheadProperties {
+
+    private boolean enabled = false;
+
+    // Falls back to the Hikari maximum pool size.
+    private Integer maxConcurrent;
+
+    private Duration acquireTimeout = Duration.ofSeconds(2);
+}
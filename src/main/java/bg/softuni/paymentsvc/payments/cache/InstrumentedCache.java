@@ -0,0 +1,186 @@
+package bg.softuni.paymentsvc.payments.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+public class InstrumentedCache implements Cache {
+
+    private final Cache delegate;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter puts;
+    private final Counter evictions;
+    private final Counter coalesced;
+    private final ConcurrentMap<Object, CompletableFuture<Object>> loading = new ConcurrentHashMap<>();
+
+    public InstrumentedCache(Cache delegate, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.hits = Counter.builder("cache.gets")
+                .tag("cache", delegate.getName())
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("cache.gets")
+                .tag("cache", delegate.getName())
+                .tag("result", "miss")
+                .register(meterRegistry);
+        this.puts = Counter.builder("cache.puts")
+                .tag("cache", delegate.getName())
+                .register(meterRegistry);
+        this.evictions = Counter.builder("cache.evictions")
+                .tag("cache", delegate.getName())
+                .tag("cause", "explicit")
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("cache.loads.coalesced")
+                .tag("cache", delegate.getName())
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return record(delegate.get(key));
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        T value = delegate.get(key, type);
+        (value != null ? hits : misses).increment();
+        return value;
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper cached = record(delegate.get(key));
+        if (cached != null) {
+            return cast(cached.get());
+        }
+
+        // Single-flight: the first caller for a key loads it, concurrent callers wait for that same load.
+        CompletableFuture<Object> load = new CompletableFuture<>();
+        CompletableFuture<Object> inFlight = loading.putIfAbsent(key, load);
+        if (inFlight != null) {
+            coalesced.increment();
+            return cast(await(key, inFlight));
+        }
+
+        try {
+            // Another leader may have finished between our miss and claiming the key.
+            cached = delegate.get(key);
+            T value;
+            if (cached != null) {
+                value = cast(cached.get());
+            } else {
+                value = valueLoader.call();
+                // Cache only a load that is still current: an evict while it ran means a write may have come
+                // after the read. putIfAbsent keeps a newer value put in the meantime.
+                if (loading.remove(key, load)) {
+                    putIfAbsent(key, value);
+                }
+            }
+            load.complete(value);
+            return value;
+        } catch (Exception e) {
+            load.completeExceptionally(e);
+            throw new ValueRetrievalException(key, valueLoader, e);
+        } catch (Error e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, load);
+        }
+    }
+
+    @Override
+    public CompletableFuture<?> retrieve(Object key) {
+        return delegate.retrieve(key);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> retrieve(Object key, Supplier<CompletableFuture<T>> valueLoader) {
+        return delegate.retrieve(key, valueLoader);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        puts.increment();
+        delegate.put(key, value);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = delegate.putIfAbsent(key, value);
+        if (existing == null) {
+            puts.increment();
+        }
+        return existing;
+    }
+
+    // A write that evicts the key also drops its in-flight load, so later readers do not join a load that
+    // may have read the row before that write.
+    @Override
+    public void evict(Object key) {
+        evictions.increment();
+        delegate.evict(key);
+        loading.remove(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean evicted = delegate.evictIfPresent(key);
+        loading.remove(key);
+        if (evicted) {
+            evictions.increment();
+        }
+        return evicted;
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+        loading.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        loading.clear();
+        return delegate.invalidate();
+    }
+
+    private Object await(Object key, CompletableFuture<Object> inFlight) {
+        try {
+            return inFlight.get();
+        } catch (ExecutionException e) {
+            throw new ValueRetrievalException(key, null, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ValueRetrievalException(key, null, e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T cast(Object value) {
+        return (T) value;
+    }
+
+    private ValueWrapper record(ValueWrapper wrapper) {
+        (wrapper != null ? hits : misses).increment();
+        return wrapper;
+    }
+}
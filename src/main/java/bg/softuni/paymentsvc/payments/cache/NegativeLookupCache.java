@@ -0,0 +1,115 @@
+package bg.softuni.paymentsvc.payments.cache;
+
+import bg.softuni.paymentsvc.payments.repository.PaymentRepository;
+import bg.softuni.paymentsvc.payments.sharding.PaymentShards;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+@Slf4j
+@Component
+public class NegativeLookupCache {
+
+    private final PaymentRepository paymentRepository;
+    private final PaymentShards paymentShards;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Cache<Object, Boolean> missing;
+    private final OrderIdBloomFilter knownOrders;
+    private volatile boolean knownOrdersLoaded;
+
+    public NegativeLookupCache(NegativeLookupProperties properties,
+                               PaymentRepository paymentRepository,
+                               PaymentShards paymentShards,
+                               PlatformTransactionManager transactionManager) {
+        this.paymentRepository = paymentRepository;
+        this.paymentShards = paymentShards;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.missing = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getTtl())
+                .build();
+
+        NegativeLookupProperties.BloomFilter bloomFilter = properties.getBloomFilter();
+        this.knownOrders = bloomFilter.isEnabled()
+                ? new OrderIdBloomFilter(bloomFilter.getExpectedInsertions(), bloomFilter.getFalsePositiveRate())
+                : null;
+    }
+
+    public boolean isKnownMissing(UUID paymentId) {
+        return missing.getIfPresent(paymentId) != null;
+    }
+
+    public boolean isKnownMissingOrder(UUID orderId) {
+        if (knownOrdersLoaded && !knownOrders.mightContain(orderId)) {
+            return true;
+        }
+        return missing.getIfPresent(PaymentCache.orderKey(orderId)) != null;
+    }
+
+    public void recordMissing(UUID paymentId) {
+        missing.put(paymentId, Boolean.TRUE);
+    }
+
+    public void recordMissingOrder(UUID orderId) {
+        missing.put(PaymentCache.orderKey(orderId), Boolean.TRUE);
+    }
+
+    public void registerPayment(UUID paymentId, UUID orderId) {
+        missing.invalidate(paymentId);
+        afterCommit(() -> missing.invalidate(paymentId));
+        registerOrder(orderId);
+    }
+
+    public void registerOrder(UUID orderId) {
+        if (knownOrders != null) {
+            knownOrders.put(orderId);
+        }
+
+        String key = PaymentCache.orderKey(orderId);
+        missing.invalidate(key);
+        afterCommit(() -> missing.invalidate(key));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadKnownOrders() {
+        if (knownOrders == null) {
+            return;
+        }
+
+        LongAdder loaded = new LongAdder();
+        paymentShards.forEach(shard -> readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<UUID> orderIds = paymentRepository.streamAllOrderIds()) {
+                orderIds.forEach(orderId -> {
+                    knownOrders.put(orderId);
+                    loaded.increment();
+                });
+            }
+        }));
+
+        knownOrdersLoaded = true;
+        log.info("Loaded {} order ids into the negative lookup Bloom filter", loaded.sum());
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        }
+    }
+}
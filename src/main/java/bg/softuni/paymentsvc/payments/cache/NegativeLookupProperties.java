@@ -0,0 +1,30 @@
+package bg.softuni.paymentsvc.payments.cache;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "payments.negative-cache")
+public class NegativeLookupProperties {
+
+    private Duration ttl = Duration.ofSeconds(10);
+
+    private long maximumSize = 100_000;
+
+    private BloomFilter bloomFilter = new BloomFilter();
+
+    @Getter
+    @Setter
+    public static class BloomFilter {
+
+        private boolean enabled = false;
+
+        private long expectedInsertions = 10_000_000;
+
+        private double falsePositiveRate = 0.01;
+    }
+}
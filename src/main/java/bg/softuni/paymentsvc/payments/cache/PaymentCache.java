@@ -0,0 +1,57 @@
+package bg.softuni.paymentsvc.payments.cache;
+
+import bg.softuni.paymentsvc.payments.web.dto.PaymentResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.UUID;
+
+@Component
+@RequiredArgsConstructor
+public class PaymentCache {
+
+    public static final String NAME = "payments";
+
+    private final CacheManager cacheManager;
+
+    public static String orderKey(UUID orderId) {
+        return "order-" + orderId;
+    }
+
+    public void put(PaymentResponse payment) {
+        Cache cache = cacheManager.getCache(NAME);
+        if (cache == null) {
+            return;
+        }
+        cache.put(payment.getId(), payment);
+        cache.put(orderKey(payment.getOrderId()), payment);
+    }
+
+    public void evict(UUID paymentId, UUID orderId) {
+        Cache cache = cacheManager.getCache(NAME);
+        if (cache == null) {
+            return;
+        }
+        cache.evict(paymentId);
+        cache.evict(orderKey(orderId));
+    }
+
+    // Inside a transaction, waits for the commit so a concurrent read cannot re-cache the old row.
+    public void evictAfterCommit(UUID paymentId, UUID orderId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict(paymentId, orderId);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict(paymentId, orderId);
+            }
+        });
+    }
+}
@@ -0,0 +1,48 @@
+package bg.softuni.paymentsvc.payments.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class PaymentCacheConfig {
+
+    @Bean
+    public CacheManager cacheManager(PaymentCacheProperties properties, MeterRegistry meterRegistry) {
+        CaffeineCacheManager caffeineCacheManager = new CaffeineCacheManager();
+        caffeineCacheManager.setCaffeine(builder(properties.getDefaults()));
+
+        properties.getSpecs().forEach((name, spec) -> {
+            Cache<Object, Object> cache = builder(spec).build();
+            caffeineCacheManager.registerCustomCache(name, cache);
+            bindPolicyMetrics(name, cache, meterRegistry);
+        });
+
+        return new InstrumentedCacheManager(caffeineCacheManager, meterRegistry);
+    }
+
+    private static Caffeine<Object, Object> builder(PaymentCacheProperties.Spec spec) {
+        return Caffeine.newBuilder()
+                .maximumSize(spec.getMaximumSize())
+                .expireAfterWrite(spec.getExpireAfterWrite())
+                .recordStats();
+    }
+
+    private static void bindPolicyMetrics(String name,
+                                          Cache<Object, Object> cache,
+                                          MeterRegistry meterRegistry) {
+        Gauge.builder("cache.size", cache, Cache::estimatedSize)
+                .tag("cache", name)
+                .register(meterRegistry);
+        FunctionCounter.builder("cache.evictions", cache, c -> c.stats().evictionCount())
+                .tag("cache", name)
+                .tag("cause", "policy")
+                .register(meterRegistry);
+    }
+}
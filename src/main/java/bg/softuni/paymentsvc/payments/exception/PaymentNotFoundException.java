@@ -3,6 +3,6 @@ package bg.softuni.paymentsvc.payments.exception;
 public class PaymentNotFoundException extends RuntimeException {
 
     public PaymentNotFoundException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
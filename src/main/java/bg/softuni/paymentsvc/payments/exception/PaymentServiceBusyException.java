@@ -0,0 +1,7 @@
+package bg.softuni.paymentsvc.payments.exception;
+
+public class PaymentServiceBusyException extends RuntimeException {
+    public PaymentServiceBusyException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,8 @@
+package bg.softuni.paymentsvc.payments.exception;
+
+public class PaymentStatusConflictException extends RuntimeException {
+
+    public PaymentStatusConflictException(String message) {
+        super(message, null, false, false);
+    }
+}
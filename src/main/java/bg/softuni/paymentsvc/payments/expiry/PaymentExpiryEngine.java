@@ -0,0 +1,244 @@
+package bg.softuni.paymentsvc.payments.expiry;
+
+import bg.softuni.paymentsvc.payments.lease.SchedulerLeases;
+import bg.softuni.paymentsvc.payments.model.PaymentStatus;
+import bg.softuni.paymentsvc.payments.repository.PaymentRepository;
+import bg.softuni.paymentsvc.payments.repository.projection.PaymentSummary;
+import bg.softuni.paymentsvc.payments.scheduler.PaymentCleanupProperties;
+import bg.softuni.paymentsvc.payments.service.PaymentService;
+import bg.softuni.paymentsvc.payments.sharding.PaymentShards;
+import bg.softuni.paymentsvc.payments.watch.PaymentStatusChange;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Fails each PENDING payment shortly after its deadline (createdOn + payments.cleanup.pending-timeout).
+// Deadlines are grouped into buckets of one tick, so a tick fails the payments that became due during it.
+// Creating a payment adds it and any status change removes it. On startup, the PENDING payments are loaded
+// from the database.
+// With scheduler leases, only the holder of the payment-expiry lease tracks and fails payments. It only sees the
+// status events of its own instance, so it also re-reads recently created PENDING payments every rescan interval.
+// Payments settled elsewhere stay tracked until due, when the conditional update skips them. When the holder dies,
+// another instance takes the lease after payments.expiry.lease-duration and starts with a full load.
+@Slf4j
+@Component
+@Profile("!reactive")
+@ConditionalOnProperty(prefix = "payments.expiry", name = "enabled", havingValue = "true")
+public class PaymentExpiryEngine {
+
+    static final String LEASE = "payment-expiry";
+
+    private final PaymentService paymentService;
+    private final PaymentRepository paymentRepository;
+    private final PaymentShards paymentShards;
+    private final TransactionTemplate readOnlyTransaction;
+    private final PaymentExpiryProperties properties;
+    private final PaymentCleanupProperties cleanupProperties;
+    private final SchedulerLeases leases;
+    private final long tickMillis;
+    private final Counter expired;
+    private final Counter dropped;
+    private final Timer lag;
+
+    // Tick number -> payments due in that tick, and payment -> deadline in epoch millis. Guarded by this.
+    private final NavigableMap<Long, Set<UUID>> buckets = new TreeMap<>();
+    private final Map<UUID, Long> deadlines = new HashMap<>();
+
+    // Without leases every instance is the owner, as on a single instance.
+    private volatile boolean owner;
+    private volatile boolean loaded;
+    private LocalDateTime lastScan;
+
+    public PaymentExpiryEngine(PaymentService paymentService,
+                               PaymentRepository paymentRepository,
+                               PaymentShards paymentShards,
+                               PlatformTransactionManager transactionManager,
+                               PaymentExpiryProperties properties,
+                               PaymentCleanupProperties cleanupProperties,
+                               SchedulerLeases leases,
+                               MeterRegistry meterRegistry) {
+        this.paymentService = paymentService;
+        this.paymentRepository = paymentRepository;
+        this.paymentShards = paymentShards;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.properties = properties;
+        this.cleanupProperties = cleanupProperties;
+        this.leases = leases;
+        this.owner = !leases.isEnabled();
+        this.tickMillis = properties.getTick().toMillis();
+        this.expired = Counter.builder("payments.expiry.expired").register(meterRegistry);
+        this.dropped = Counter.builder("payments.expiry.dropped").register(meterRegistry);
+        this.lag = Timer.builder("payments.expiry.lag")
+                .description("Time between a payment's deadline and the moment it was failed")
+                .register(meterRegistry);
+
+        Gauge.builder("payments.expiry.tracked", this, PaymentExpiryEngine::tracked)
+                .register(meterRegistry);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStatusChange(PaymentStatusChange change) {
+        if (!owner) {
+            return;
+        }
+        if (change.getStatus() == PaymentStatus.PENDING) {
+            track(change.getPaymentId(), change.getUpdatedOn());
+        } else {
+            untrack(change.getPaymentId());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${payments.expiry.tick:1s}")
+    public void tick() {
+        if (!leases.tryAcquire(LEASE, properties.getLeaseDuration())) {
+            if (owner) {
+                log.info("Payment expiry lease taken over by another instance, dropping {} tracked payments", tracked());
+                owner = false;
+                loaded = false;
+                clear();
+            }
+            return;
+        }
+
+        // Set before loading, so a payment created meanwhile is either in the load or tracked from its event.
+        owner = true;
+        if (!loaded) {
+            lastScan = LocalDateTime.now();
+            load();
+            loaded = true;
+        } else if (leases.isEnabled()
+                && !LocalDateTime.now().isBefore(lastScan.plus(properties.getRescanInterval()))) {
+            rescan();
+        }
+
+        long now = System.currentTimeMillis();
+        Map<UUID, Long> due = takeDue(now, properties.getMaxPerTick());
+        if (due.isEmpty()) {
+            return;
+        }
+
+        List<UUID> ids = new ArrayList<>(due.keySet());
+        for (int from = 0; from < ids.size(); from += properties.getBatchSize()) {
+            List<UUID> batch = ids.subList(from, Math.min(from + properties.getBatchSize(), ids.size()));
+            try {
+                expired.increment(paymentService.expirePayments(batch));
+            } catch (RuntimeException e) {
+                log.warn("Could not expire {} payments, leaving them to the cleanup job: {}",
+                        batch.size(), e.getMessage());
+            }
+        }
+
+        long failedAt = System.currentTimeMillis();
+        due.values().forEach(deadline -> lag.record(Math.max(0, failedAt - deadline), TimeUnit.MILLISECONDS));
+    }
+
+    // Loads every PENDING payment, oldest first, so the earliest deadlines are the ones kept when over capacity.
+    void load() {
+        long started = System.currentTimeMillis();
+        paymentShards.forEach(shard -> readOnlyTransaction.executeWithoutResult(tx -> {
+            try (Stream<PaymentSummary> pending =
+                         paymentRepository.streamByStatusOrderByCreatedOn(PaymentStatus.PENDING)) {
+                pending.forEach(payment -> track(payment.getId(), payment.getCreatedOn()));
+            }
+        }));
+
+        log.info("Payment expiry engine loaded {} PENDING payments in {} ms",
+                tracked(), System.currentTimeMillis() - started);
+    }
+
+    // Adds the PENDING payments created since one interval before the previous scan. Already tracked ones are
+    // skipped, so the overlap only costs the read.
+    void rescan() {
+        LocalDateTime from = lastScan.minus(properties.getRescanInterval());
+        lastScan = LocalDateTime.now();
+        paymentShards.forEach(shard -> readOnlyTransaction.executeWithoutResult(tx -> {
+            try (Stream<PaymentSummary> pending =
+                         paymentRepository.streamByStatusCreatedSince(PaymentStatus.PENDING, from)) {
+                pending.forEach(payment -> track(payment.getId(), payment.getCreatedOn()));
+            }
+        }));
+    }
+
+    synchronized void track(UUID paymentId, LocalDateTime createdOn) {
+        if (deadlines.containsKey(paymentId)) {
+            return;
+        }
+        if (deadlines.size() >= properties.getMaxTracked()) {
+            dropped.increment();
+            return;
+        }
+
+        long deadline = createdOn.plus(cleanupProperties.getPendingTimeout())
+                .atZone(ZoneId.systemDefault())
+                .toInstant()
+                .toEpochMilli();
+        deadlines.put(paymentId, deadline);
+        buckets.computeIfAbsent(tickOf(deadline), tick -> new HashSet<>()).add(paymentId);
+    }
+
+    synchronized void untrack(UUID paymentId) {
+        Long deadline = deadlines.remove(paymentId);
+        if (deadline == null) {
+            return;
+        }
+
+        long tick = tickOf(deadline);
+        Set<UUID> bucket = buckets.get(tick);
+        bucket.remove(paymentId);
+        if (bucket.isEmpty()) {
+            buckets.remove(tick);
+        }
+    }
+
+    // Removes and returns up to `limit` payments whose deadline tick has passed, with their deadlines.
+    synchronized Map<UUID, Long> takeDue(long nowMillis, int limit) {
+        Map<UUID, Long> due = new LinkedHashMap<>();
+        Iterator<Set<UUID>> dueBuckets = buckets.headMap(Math.floorDiv(nowMillis, tickMillis), false)
+                .values()
+                .iterator();
+
+        while (dueBuckets.hasNext() && due.size() < limit) {
+            Set<UUID> bucket = dueBuckets.next();
+            Iterator<UUID> ids = bucket.iterator();
+            while (ids.hasNext() && due.size() < limit) {
+                UUID id = ids.next();
+                due.put(id, deadlines.remove(id));
+                ids.remove();
+            }
+            if (bucket.isEmpty()) {
+                dueBuckets.remove();
+            }
+        }
+        return due;
+    }
+
+    private synchronized void clear() {
+        deadlines.clear();
+        buckets.clear();
+    }
+
+    synchronized int tracked() {
+        return deadlines.size();
+    }
+
+    // The tick a deadline falls in; it is due once that whole tick has passed, so never early.
+    private long tickOf(long deadlineMillis) {
+        return Math.floorDiv(deadlineMillis, tickMillis);
+    }
+}
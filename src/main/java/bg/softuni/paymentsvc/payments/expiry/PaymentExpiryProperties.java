@@ -0,0 +1,35 @@
+package bg.softuni.paymentsvc.payments.expiry;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "payments.expiry")
+public class PaymentExpiryProperties {
+
+    private boolean enabled = false;
+
+    // Due payments are failed once per tick, so a payment fails within about two ticks of its deadline.
+    private Duration tick = Duration.ofSeconds(1);
+
+    // Most payments failed in one transaction.
+    private int batchSize = 200;
+
+    // Most payments failed per tick. A larger backlog, e.g. after downtime, is worked off over the next ticks.
+    private int maxPerTick = 2_000;
+
+    // Payments beyond this many are left to the cleanup job, which bounds the engine's memory.
+    private int maxTracked = 1_000_000;
+
+    // With payments.leases.enabled, only the instance holding the payment-expiry lease runs the engine. It renews
+    // the lease every tick; if it stops, another instance takes over after this long and loads the PENDING payments.
+    private Duration leaseDuration = Duration.ofSeconds(30);
+
+    // How often the lease holder re-reads recently created PENDING payments, to pick up those created on other
+    // instances. Each read goes one interval further back than the last one, to cover late commits.
+    private Duration rescanInterval = Duration.ofSeconds(30);
+}
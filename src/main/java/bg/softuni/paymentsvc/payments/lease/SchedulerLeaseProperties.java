@@ -0,0 +1,17 @@
+package bg.softuni.paymentsvc.payments.lease;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "payments.leases")
+public class SchedulerLeaseProperties {
+
+    // When disabled every instance runs every scheduled job, which is only safe with a single instance.
+    private boolean enabled = false;
+
+    // Written to scheduler_lease.owner. Defaults to the host name plus a random suffix.
+    private String owner;
+}
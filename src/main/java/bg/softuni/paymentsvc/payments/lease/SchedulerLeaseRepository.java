@@ -0,0 +1,38 @@
+package bg.softuni.paymentsvc.payments.lease;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+// Lease times come from the database clock, so clock skew between instances does not matter.
+public interface SchedulerLeaseRepository extends JpaRepository<SchedulerLease, String> {
+
+    // Takes the lease if it has expired, or renews it if :owner already holds it.
+    @Transactional
+    @Modifying
+    @Query(value = """
+            UPDATE scheduler_lease
+            SET owner = :owner, lease_until = TIMESTAMPADD(MICROSECOND, :micros, LOCALTIMESTAMP(6))
+            WHERE name = :name AND (owner = :owner OR lease_until <= LOCALTIMESTAMP(6))
+            """, nativeQuery = true)
+    int acquire(String name, String owner, long micros);
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+            UPDATE scheduler_lease
+            SET lease_until = TIMESTAMPADD(MICROSECOND, :micros, LOCALTIMESTAMP(6))
+            WHERE name = :name AND owner = :owner
+            """, nativeQuery = true)
+    int extend(String name, String owner, long micros);
+
+    // The new lease is already expired, so whoever calls acquire next gets it.
+    @Transactional
+    @Modifying
+    @Query(value = """
+            INSERT IGNORE INTO scheduler_lease (name, owner, lease_until)
+            VALUES (:name, '', LOCALTIMESTAMP(6))
+            """, nativeQuery = true)
+    int createIfAbsent(String name);
+}
@@ -0,0 +1,79 @@
+package bg.softuni.paymentsvc.payments.lease;
+
+import bg.softuni.paymentsvc.payments.sharding.PaymentShards;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.UUID;
+
+// Named leases in the scheduler_lease table. Scheduled jobs that must run on only one instance take a lease first,
+// and skip the run when another instance holds it.
+@Slf4j
+@Component
+public class SchedulerLeases {
+
+    private final SchedulerLeaseRepository repository;
+    private final PaymentShards paymentShards;
+    private final boolean enabled;
+    private final String owner;
+
+    public SchedulerLeases(SchedulerLeaseRepository repository,
+                           PaymentShards paymentShards,
+                           SchedulerLeaseProperties properties) {
+        this.repository = repository;
+        this.paymentShards = paymentShards;
+        this.enabled = properties.isEnabled();
+        this.owner = StringUtils.hasText(properties.getOwner()) ? properties.getOwner() : defaultOwner();
+
+        if (enabled) {
+            log.info("Scheduler leases enabled, this instance is '{}'", owner);
+        }
+    }
+
+    // True if this instance now holds the lease for the given duration, whether it just took it or already had it.
+    public boolean tryAcquire(String name, Duration duration) {
+        if (!enabled) {
+            return true;
+        }
+
+        // Leases live on shard 0, also when the caller is working on another shard.
+        return paymentShards.on(0, () -> {
+            if (repository.acquire(name, owner, duration.toNanos() / 1_000) == 1) {
+                return true;
+            }
+            return repository.createIfAbsent(name) == 1
+                    && repository.acquire(name, owner, duration.toNanos() / 1_000) == 1;
+        });
+    }
+
+    // Moves the end of a lease this instance holds to the given duration from now. A zero duration releases it.
+    // False if another instance has taken the lease over in the meantime.
+    public boolean extend(String name, Duration duration) {
+        if (!enabled) {
+            return true;
+        }
+
+        return paymentShards.on(0, () -> repository.extend(name, owner, duration.toNanos() / 1_000) == 1);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String owner() {
+        return owner;
+    }
+
+    private static String defaultOwner() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        try {
+            return InetAddress.getLocalHost().getHostName() + "-" + suffix;
+        } catch (UnknownHostException e) {
+            return "payment-svc-" + suffix;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package bg.softuni.paymentsvc.payments.logging;
+
+import org.slf4j.Logger;
+import org.slf4j.event.Level;
+import org.slf4j.spi.LoggingEventBuilder;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Lets at most permitsPerSecond events through each second. Events over the limit are only counted, and the count
+// is attached as "suppressed" to the next event that gets through.
+public class LogRateLimiter {
+
+    private final int permitsPerSecond;
+    private final AtomicLong second = new AtomicLong();
+    private final AtomicInteger permitsUsed = new AtomicInteger();
+    private final LongAdder suppressed = new LongAdder();
+
+    public LogRateLimiter(int permitsPerSecond) {
+        this.permitsPerSecond = permitsPerSecond;
+    }
+
+    public void log(Logger logger, Level level, String format, Object... arguments) {
+        if (!logger.isEnabledForLevel(level)) {
+            return;
+        }
+        if (!tryAcquire()) {
+            suppressed.increment();
+            return;
+        }
+
+        LoggingEventBuilder event = logger.atLevel(level);
+        long dropped = suppressed.sumThenReset();
+        if (dropped > 0) {
+            event = event.addKeyValue("suppressed", dropped);
+        }
+        event.log(format, arguments);
+    }
+
+    boolean tryAcquire() {
+        long now = System.currentTimeMillis() / 1000;
+        long current = second.get();
+        if (now != current && second.compareAndSet(current, now)) {
+            permitsUsed.set(0);
+        }
+        return permitsUsed.incrementAndGet() <= permitsPerSecond;
+    }
+}
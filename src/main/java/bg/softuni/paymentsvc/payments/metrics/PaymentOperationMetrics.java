@@ -0,0 +1,94 @@
+package bg.softuni.paymentsvc.payments.metrics;
+
+import bg.softuni.paymentsvc.payments.exception.PaymentAlreadyExistsException;
+import bg.softuni.paymentsvc.payments.exception.PaymentNotFoundException;
+import bg.softuni.paymentsvc.payments.exception.PaymentServiceBusyException;
+import bg.softuni.paymentsvc.payments.exception.PaymentStatusConflictException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+// Outermost advice on PaymentService, so cache hits and bulkhead waits are part of the recorded latency.
+// Timers are looked up once per operation and outcome; a call then costs two nanoTime reads and a histogram update.
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(prefix = "payments.metrics", name = "operations-enabled", havingValue = "true", matchIfMissing = true)
+public class PaymentOperationMetrics {
+
+    static final String TIMER = "payments.operations";
+
+    enum Outcome {
+        SUCCESS, ALREADY_EXISTS, NOT_FOUND, STATUS_CONFLICT, INTEGRITY_VIOLATION, BUSY, INVALID, ERROR;
+
+        static Outcome of(Throwable error) {
+            if (error instanceof PaymentAlreadyExistsException) {
+                return ALREADY_EXISTS;
+            }
+            if (error instanceof PaymentNotFoundException) {
+                return NOT_FOUND;
+            }
+            if (error instanceof PaymentStatusConflictException) {
+                return STATUS_CONFLICT;
+            }
+            if (error instanceof DataIntegrityViolationException) {
+                return INTEGRITY_VIOLATION;
+            }
+            if (error instanceof PaymentServiceBusyException) {
+                return BUSY;
+            }
+            if (error instanceof IllegalArgumentException) {
+                return INVALID;
+            }
+            return ERROR;
+        }
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<Method, Timer[]> timers = new ConcurrentHashMap<>();
+
+    public PaymentOperationMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("execution(public * bg.softuni.paymentsvc.payments.service.PaymentService.*(..))")
+    public Object record(ProceedingJoinPoint joinPoint) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        long start = System.nanoTime();
+        try {
+            Object result = joinPoint.proceed();
+            timer(method, Outcome.SUCCESS).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return result;
+        } catch (Throwable e) {
+            timer(method, Outcome.of(e)).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
+
+    private Timer timer(Method method, Outcome outcome) {
+        Timer[] byOutcome = timers.computeIfAbsent(method, m -> new Timer[Outcome.values().length]);
+        Timer timer = byOutcome[outcome.ordinal()];
+        if (timer == null) {
+            // Registering twice from racing threads returns the same meter.
+            timer = Timer.builder(TIMER)
+                    .tag("operation", method.getName())
+                    .tag("outcome", outcome.name().toLowerCase())
+                    .register(meterRegistry);
+            byOutcome[outcome.ordinal()] = timer;
+        }
+        return timer;
+    }
+}
@@ -0,0 +1,50 @@
+package bg.softuni.paymentsvc.payments.metrics;
+
+import bg.softuni.paymentsvc.payments.model.PaymentStatus;
+import bg.softuni.paymentsvc.payments.repository.PaymentRepository;
+import bg.softuni.paymentsvc.payments.sharding.PaymentShards;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Scrapes read the last count. The COUNT query runs on its own schedule, so scrapes never reach the database.
+@Slf4j
+@Component
+public class PendingPaymentsGauge {
+
+    private final PaymentRepository paymentRepository;
+    private final PaymentShards paymentShards;
+    private final AtomicLong pending = new AtomicLong();
+
+    public PendingPaymentsGauge(PaymentRepository paymentRepository,
+                                PaymentShards paymentShards,
+                                MeterRegistry meterRegistry) {
+        this.paymentRepository = paymentRepository;
+        this.paymentShards = paymentShards;
+
+        Gauge.builder("payments.pending", pending, AtomicLong::get)
+                .description("PENDING payments, as of the last refresh")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${payments.metrics.pending-refresh-interval:30s}")
+    public void refresh() {
+        try {
+            long total = paymentShards.scatter(shard -> paymentRepository.countByStatus(PaymentStatus.PENDING))
+                    .stream()
+                    .mapToLong(Long::longValue)
+                    .sum();
+            pending.set(total);
+        } catch (RuntimeException e) {
+            log.warn("Could not refresh the pending payments gauge: {}", e.getMessage());
+        }
+    }
+
+    long pending() {
+        return pending.get();
+    }
+}
@@ -1,5 +1,6 @@
 package bg.softuni.paymentsvc.payments.model;
 
+import bg.softuni.paymentsvc.payments.sharding.ShardTaggedId;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -13,10 +14,15 @@ import java.util.UUID;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_payment_status_created_on", columnList = "status, created_on"),
+        @Index(name = "idx_payment_created_on_id", columnList = "created_on, id"),
+        @Index(name = "idx_payment_method_created_on", columnList = "method, created_on")
+})
 public class Payment {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @ShardTaggedId
     private UUID id;
 
     @Column(nullable = false, unique = true)
@@ -3,5 +3,13 @@ package bg.softuni.paymentsvc.payments.model;
 public enum PaymentStatus {
     PENDING,
     SUCCESSFUL,
-    FAILED
+    FAILED;
+
+    public boolean canTransitionTo(PaymentStatus target) {
+        return this == PENDING && (target == SUCCESSFUL || target == FAILED);
+    }
+
+    public boolean isTerminal() {
+        return this != PENDING;
+    }
 }
@@ -0,0 +1,22 @@
+package bg.softuni.paymentsvc.payments.outbox;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class InMemoryPaymentEventSink implements PaymentEventSink {
+
+    private final List<PaymentStatusChangedEvent> events = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(List<PaymentStatusChangedEvent> batch) {
+        events.addAll(batch);
+    }
+
+    public List<PaymentStatusChangedEvent> getEvents() {
+        return List.copyOf(events);
+    }
+
+    public void clear() {
+        events.clear();
+    }
+}
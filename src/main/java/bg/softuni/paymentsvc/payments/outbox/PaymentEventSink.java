@@ -0,0 +1,9 @@
+package bg.softuni.paymentsvc.payments.outbox;
+
+import java.util.List;
+
+public interface PaymentEventSink {
+
+    // Events arrive in outbox order; a sink must deliver them in that order or throw.
+    void publish(List<PaymentStatusChangedEvent> events);
+}
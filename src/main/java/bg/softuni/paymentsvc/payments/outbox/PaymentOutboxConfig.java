@@ -0,0 +1,51 @@
+package bg.softuni.paymentsvc.payments.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+
+import java.net.http.HttpClient;
+
+@Configuration
+@ConditionalOnProperty(prefix = "payments.outbox", name = "relay-enabled", havingValue = "true")
+public class PaymentOutboxConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "payments.outbox", name = "sink", havingValue = "webhook", matchIfMissing = true)
+    public PaymentEventSink webhookPaymentEventSink(PaymentOutboxProperties properties,
+                                                   ObjectProvider<RestClient.Builder> restClientBuilder) {
+        PaymentOutboxProperties.Webhook webhook = properties.getWebhook();
+        if (webhook.getUrl() == null) {
+            throw new IllegalStateException("payments.outbox.webhook.url must be set for the webhook sink");
+        }
+
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(webhook.getConnectTimeout())
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(webhook.getReadTimeout());
+
+        RestClient restClient = restClientBuilder.getIfAvailable(RestClient::builder)
+                .baseUrl(webhook.getUrl().toString())
+                .requestFactory(requestFactory)
+                .build();
+
+        return new WebhookPaymentEventSink(restClient);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "payments.outbox", name = "sink", havingValue = "file")
+    public PaymentEventSink filePaymentEventSink(PaymentOutboxProperties properties, ObjectMapper objectMapper) {
+        return new FilePaymentEventSink(properties.getFile().getPath(), objectMapper);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "payments.outbox", name = "sink", havingValue = "memory")
+    public PaymentEventSink inMemoryPaymentEventSink() {
+        return new InMemoryPaymentEventSink();
+    }
+}
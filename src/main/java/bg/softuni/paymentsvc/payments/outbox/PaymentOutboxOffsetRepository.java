@@ -0,0 +1,6 @@
+package bg.softuni.paymentsvc.payments.outbox;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface PaymentOutboxOffsetRepository extends JpaRepository<PaymentOutboxOffset, String> {
+}
@@ -0,0 +1,64 @@
+package bg.softuni.paymentsvc.payments.outbox;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "payments.outbox")
+public class PaymentOutboxProperties {
+
+    private boolean relayEnabled = false;
+
+    private Sink sink = Sink.WEBHOOK;
+
+    private int batchSize = 500;
+
+    private Duration pollInterval = Duration.ofMillis(500);
+
+    // An id missing below the newest published one may belong to a transaction that has not committed yet,
+    // so it is polled again until its row shows up. After this long it is taken to be rolled back.
+    private Duration gapTimeout = Duration.ofMinutes(5);
+
+    // Most missing ids tracked per shard. A larger jump in ids is taken to be unused ids, not open transactions.
+    private int maxOpenGaps = 10_000;
+
+    private Duration retention = Duration.ofDays(7);
+
+    // With payments.leases.enabled, one instance relays at a time. Every poll renews its lease, and another
+    // instance takes over once the lease has not been renewed for this long.
+    private Duration leaseDuration = Duration.ofSeconds(30);
+
+    private final Webhook webhook = new Webhook();
+
+    private final File file = new File();
+
+    public enum Sink {
+        WEBHOOK,
+        FILE,
+        MEMORY
+    }
+
+    @Getter
+    @Setter
+    public static class Webhook {
+
+        private URI url;
+
+        private Duration connectTimeout = Duration.ofSeconds(2);
+
+        private Duration readTimeout = Duration.ofSeconds(5);
+    }
+
+    @Getter
+    @Setter
+    public static class File {
+
+        private Path path = Path.of("payment-events.ndjson");
+    }
+}
@@ -0,0 +1,193 @@
+package bg.softuni.paymentsvc.payments.outbox;
+
+import bg.softuni.paymentsvc.payments.lease.SchedulerLeases;
+import bg.softuni.paymentsvc.payments.sharding.PaymentShards;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "payments.outbox", name = "relay-enabled", havingValue = "true")
+public class PaymentOutboxRelay {
+
+    static final String OFFSET_NAME = "payment-status-relay";
+    static final String LEASE = "payment-outbox-relay";
+
+    private final PaymentOutboxRepository outboxRepository;
+    private final PaymentOutboxOffsetRepository offsetRepository;
+    private final PaymentEventSink sink;
+    private final PaymentOutboxProperties properties;
+    private final PaymentShards paymentShards;
+    private final SchedulerLeases leases;
+    private final Counter published;
+    private final Counter failures;
+    private final Counter skipped;
+    private final Map<Integer, Cursor> cursors = new HashMap<>();
+    private final Timer publishTimer;
+
+    public PaymentOutboxRelay(PaymentOutboxRepository outboxRepository,
+                              PaymentOutboxOffsetRepository offsetRepository,
+                              PaymentEventSink sink,
+                              PaymentOutboxProperties properties,
+                              PaymentShards paymentShards,
+                              SchedulerLeases leases,
+                              MeterRegistry meterRegistry) {
+        this.outboxRepository = outboxRepository;
+        this.offsetRepository = offsetRepository;
+        this.sink = sink;
+        this.properties = properties;
+        this.paymentShards = paymentShards;
+        this.leases = leases;
+        this.published = Counter.builder("payments.outbox.published").register(meterRegistry);
+        this.failures = Counter.builder("payments.outbox.failures").register(meterRegistry);
+        this.skipped = Counter.builder("payments.outbox.gaps.expired")
+                .description("Outbox ids given up on after payments.outbox.gap-timeout")
+                .register(meterRegistry);
+        this.publishTimer = Timer.builder("payments.outbox.publish").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${payments.outbox.poll-interval:500ms}")
+    public void relay() {
+        if (!leases.tryAcquire(LEASE, properties.getLeaseDuration())) {
+            return;
+        }
+
+        // Every shard keeps its own outbox and offset, so one failing shard does not hold back the others.
+        paymentShards.forEach(shard -> {
+            try {
+                int relayed;
+                do {
+                    relayed = relayBatch();
+                } while (relayed == properties.getBatchSize());
+            } catch (RuntimeException e) {
+                failures.increment();
+                log.warn("Publishing payment events from shard {} failed, will retry from the last offset: {}",
+                        shard, e.getMessage());
+            }
+        });
+    }
+
+    // At-least-once: ids are taken in order, but a transaction can commit after a later id was already published.
+    // Such missing ids are polled again until their row appears or payments.outbox.gap-timeout passes. The stored
+    // offset never moves past an open gap, so after a restart or a lease handover the next relay starts below it
+    // and may publish some events again.
+    public synchronized int relayBatch() {
+        int shard = Objects.requireNonNullElse(PaymentShards.current(), 0);
+        long offset = lastEventId();
+        Cursor cursor = cursors.compute(shard, (key, current) ->
+                current == null || current.saved != offset ? new Cursor(offset) : current);
+
+        List<PaymentOutboxEvent> batch = new ArrayList<>();
+        if (!cursor.gaps.isEmpty()) {
+            batch.addAll(outboxRepository.findByIdInOrderById(cursor.gaps.keySet()));
+        }
+        batch.addAll(outboxRepository.findByIdGreaterThanOrderById(cursor.high, Limit.of(properties.getBatchSize())));
+
+        if (!batch.isEmpty()) {
+            List<PaymentStatusChangedEvent> events = batch.stream()
+                    .map(event -> PaymentStatusChangedEvent.from(event, shard))
+                    .toList();
+            publishTimer.record(() -> sink.publish(events));
+            published.increment(events.size());
+        }
+
+        long now = System.currentTimeMillis();
+        int untracked = 0;
+        for (PaymentOutboxEvent event : batch) {
+            if (cursor.gaps.remove(event.getId()) == null) {
+                untracked += cursor.advanceTo(event.getId(), now, properties.getMaxOpenGaps());
+            }
+        }
+        expireGaps(cursor, shard, now, untracked);
+
+        long upTo = cursor.gaps.isEmpty() ? cursor.high : cursor.gaps.firstKey() - 1;
+        if (upTo != cursor.saved) {
+            offsetRepository.save(new PaymentOutboxOffset(OFFSET_NAME, upTo));
+            cursor.saved = upTo;
+        }
+
+        if (!batch.isEmpty()) {
+            log.debug("Published {} payment events up to id {}, {} ids still missing",
+                    batch.size(), cursor.high, cursor.gaps.size());
+        }
+        return batch.size();
+    }
+
+    private void expireGaps(Cursor cursor, int shard, long now, int untracked) {
+        long cutoff = now - properties.getGapTimeout().toMillis();
+        int expired = untracked;
+        Iterator<Long> seenAt = cursor.gaps.values().iterator();
+        while (seenAt.hasNext()) {
+            if (seenAt.next() <= cutoff || cursor.gaps.size() > properties.getMaxOpenGaps()) {
+                seenAt.remove();
+                expired++;
+            }
+        }
+
+        if (expired > 0) {
+            skipped.increment(expired);
+            log.info("Gave up on {} outbox ids on shard {} that never committed", expired, shard);
+        }
+    }
+
+    @Scheduled(cron = "${payments.outbox.purge-cron:0 30 * * * *}")
+    public void purgePublished() {
+        if (!leases.tryAcquire(LEASE, properties.getLeaseDuration())) {
+            return;
+        }
+
+        LocalDateTime cutoff = LocalDateTime.now().minus(properties.getRetention());
+
+        paymentShards.forEach(shard -> {
+            int deleted = outboxRepository.deletePublished(lastEventId(), cutoff);
+
+            if (deleted > 0) {
+                log.info("Purged {} published payment events older than {} from shard {}",
+                        deleted, properties.getRetention(), shard);
+            }
+        });
+    }
+
+    // Per shard: the highest id read, the offset last stored, and the ids below `high` that had no row yet,
+    // with the time each was first seen missing.
+    private static class Cursor {
+
+        private final NavigableMap<Long, Long> gaps = new TreeMap<>();
+        private long high;
+        private long saved;
+
+        Cursor(long offset) {
+            this.high = offset;
+            this.saved = offset;
+        }
+
+        // Returns how many missing ids were too many to track.
+        int advanceTo(long id, long now, int maxGaps) {
+            long missing = id - high - 1;
+            if (missing > maxGaps) {
+                high = id;
+                return (int) Math.min(missing, Integer.MAX_VALUE);
+            }
+            for (long gap = high + 1; gap < id; gap++) {
+                gaps.put(gap, now);
+            }
+            high = Math.max(high, id);
+            return 0;
+        }
+    }
+
+    private long lastEventId() {
+        return offsetRepository.findById(OFFSET_NAME)
+                .map(PaymentOutboxOffset::getLastEventId)
+                .orElse(0L);
+    }
+}
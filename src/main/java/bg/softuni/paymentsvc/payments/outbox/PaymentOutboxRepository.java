@@ -0,0 +1,39 @@
+package bg.softuni.paymentsvc.payments.outbox;
+
+import bg.softuni.paymentsvc.payments.model.PaymentStatus;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface PaymentOutboxRepository extends JpaRepository<PaymentOutboxEvent, Long> {
+
+    // Records the rows the caller's transaction just moved to :status. They are the ones stamped with
+    // exactly :updatedOn, so callers pass the same (microsecond-truncated) timestamp they used for the update.
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Modifying
+    @Query(value = """
+            INSERT INTO payment_outbox (payment_id, order_id, status, occurred_on)
+            SELECT p.id, p.order_id, p.status, p.updated_on
+            FROM payment p
+            WHERE p.id IN (:ids) AND p.status = :#{#status.name()} AND p.updated_on = :updatedOn
+            ORDER BY p.id
+            """, nativeQuery = true)
+    int appendTransitions(Collection<UUID> ids, PaymentStatus status, LocalDateTime updatedOn);
+
+    List<PaymentOutboxEvent> findByIdGreaterThanOrderById(long afterId, Limit limit);
+
+    List<PaymentOutboxEvent> findByIdInOrderById(Collection<Long> ids);
+
+    @Transactional
+    @Modifying
+    @Query("delete from PaymentOutboxEvent e where e.id <= :publishedUpTo and e.occurredOn < :occurredOnBefore")
+    int deletePublished(long publishedUpTo, LocalDateTime occurredOnBefore);
+}
@@ -0,0 +1,34 @@
+package bg.softuni.paymentsvc.payments.outbox;
+
+import bg.softuni.paymentsvc.payments.model.PaymentStatus;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Builder
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class PaymentStatusChangedEvent {
+
+    private int shard;
+    private long eventId;
+    private UUID paymentId;
+    private UUID orderId;
+    private PaymentStatus status;
+    private LocalDateTime occurredOn;
+
+    // Event ids are only unique within a shard, so consumers dedupe on (shard, eventId).
+    public static PaymentStatusChangedEvent from(PaymentOutboxEvent event, int shard) {
+        return PaymentStatusChangedEvent.builder()
+                .shard(shard)
+                .eventId(event.getId())
+                .paymentId(event.getPaymentId())
+                .orderId(event.getOrderId())
+                .status(event.getStatus())
+                .occurredOn(event.getOccurredOn())
+                .build();
+    }
+}
@@ -0,0 +1,25 @@
+package bg.softuni.paymentsvc.payments.outbox;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.client.RestClient;
+
+import java.util.List;
+
+// Posts each batch as one JSON array, which keeps the receiver's view of a payment in order.
+public class WebhookPaymentEventSink implements PaymentEventSink {
+
+    private final RestClient restClient;
+
+    public WebhookPaymentEventSink(RestClient restClient) {
+        this.restClient = restClient;
+    }
+
+    @Override
+    public void publish(List<PaymentStatusChangedEvent> events) {
+        restClient.post()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(events)
+                .retrieve()
+                .toBodilessEntity();
+    }
+}
@@ -0,0 +1,37 @@
+package bg.softuni.paymentsvc.payments.processing;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "payments.processing")
+public class PaymentProcessingProperties {
+
+    private boolean async = false;
+
+    private int queueCapacity = 10_000;
+
+    private int batchSize = 200;
+
+    // How long a worker waits for a partial batch to fill up before flushing it.
+    private Duration linger = Duration.ofMillis(10);
+
+    private int workers = 2;
+
+    // How long a request waits for queue space before it is turned away with 503.
+    private Duration enqueueTimeout = Duration.ofMillis(50);
+
+    private Duration shutdownTimeout = Duration.ofSeconds(30);
+
+    // A failed batch is retried this many times, waiting retry-backoff and then twice as long each time,
+    // up to max-retry-backoff. The worker takes no new work meanwhile, so the queue fills and pushes back.
+    private int maxRetries = 5;
+
+    private Duration retryBackoff = Duration.ofMillis(100);
+
+    private Duration maxRetryBackoff = Duration.ofSeconds(5);
+}
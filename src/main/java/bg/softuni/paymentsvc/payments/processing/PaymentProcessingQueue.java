@@ -0,0 +1,216 @@
+package bg.softuni.paymentsvc.payments.processing;
+
+import bg.softuni.paymentsvc.payments.bulkhead.PaymentBulkhead;
+import bg.softuni.paymentsvc.payments.exception.PaymentServiceBusyException;
+import bg.softuni.paymentsvc.payments.service.PaymentService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Component
+@Profile("!reactive")
+public class PaymentProcessingQueue implements SmartLifecycle {
+
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private final PaymentService paymentService;
+    private final PaymentProcessingProperties properties;
+    private final BlockingQueue<UUID> queue;
+    private final Counter rejected;
+    private final Counter processed;
+    private final Counter retried;
+    private final Counter failed;
+    private final DistributionSummary batchSizes;
+
+    private ExecutorService workers;
+    private volatile boolean running;
+
+    public PaymentProcessingQueue(PaymentService paymentService,
+                                  PaymentProcessingProperties properties,
+                                  MeterRegistry meterRegistry) {
+        this.paymentService = paymentService;
+        this.properties = properties;
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        this.rejected = Counter.builder("payments.processing.rejected").register(meterRegistry);
+        this.processed = Counter.builder("payments.processing.processed").register(meterRegistry);
+        this.retried = Counter.builder("payments.processing.retried")
+                .description("Batch attempts that failed and were retried")
+                .register(meterRegistry);
+        this.failed = Counter.builder("payments.processing.failed")
+                .description("Payments left PENDING after their batch ran out of retries")
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("payments.processing.batch.size").register(meterRegistry);
+
+        Gauge.builder("payments.processing.queue.depth", queue, BlockingQueue::size)
+                .register(meterRegistry);
+        Gauge.builder("payments.processing.queue.remaining", queue, BlockingQueue::remainingCapacity)
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return properties.isAsync();
+    }
+
+    public void submit(UUID paymentId) {
+        try {
+            if (running && queue.offer(paymentId, properties.getEnqueueTimeout().toNanos(), TimeUnit.NANOSECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        rejected.increment();
+        throw new PaymentServiceBusyException("Payment processing queue is full. Please retry shortly.");
+    }
+
+    @Override
+    public void start() {
+        if (!properties.isAsync()) {
+            return;
+        }
+
+        running = true;
+        workers = Executors.newFixedThreadPool(properties.getWorkers(),
+                new CustomizableThreadFactory("payment-processing-"));
+        for (int i = 0; i < properties.getWorkers(); i++) {
+            workers.execute(this::drain);
+        }
+
+        log.info("Async payment processing started with {} workers, batch size {} and linger {}",
+                properties.getWorkers(), properties.getBatchSize(), properties.getLinger());
+    }
+
+    // Stops accepting new work, then lets the workers empty the queue before the pool goes away.
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+
+        running = false;
+        workers.shutdown();
+
+        try {
+            if (!workers.awaitTermination(properties.getShutdownTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                workers.shutdownNow();
+                log.warn("Payment processing did not drain within {}; {} payments left PENDING",
+                        properties.getShutdownTimeout(), queue.size());
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Stops after the web server, so requests that were already accepted still get drained.
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void drain() {
+        List<UUID> batch = new ArrayList<>(properties.getBatchSize());
+
+        while (running || !queue.isEmpty()) {
+            try {
+                UUID first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                fill(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                flush(batch);
+                return;
+            }
+            flush(batch);
+        }
+    }
+
+    private void fill(List<UUID> batch) throws InterruptedException {
+        int batchSize = properties.getBatchSize();
+        long deadline = System.nanoTime() + properties.getLinger().toNanos();
+
+        while (batch.size() < batchSize) {
+            if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                continue;
+            }
+
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0 || !running) {
+                return;
+            }
+
+            UUID next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void flush(List<UUID> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        Set<UUID> ids = new LinkedHashSet<>(batch);
+        batch.clear();
+        batchSizes.record(ids.size());
+
+        long backoffMillis = properties.getRetryBackoff().toMillis();
+        for (int attempt = 0; ; attempt++) {
+            try {
+                // The workers already cap how many batches run at once, so they do not take bulkhead permits.
+                int updated = PaymentBulkhead.exempt(() -> paymentService.processPayments(ids));
+                processed.increment(updated);
+                return;
+            } catch (RuntimeException e) {
+                if (attempt >= properties.getMaxRetries()) {
+                    failed.increment(ids.size());
+                    log.error("Failed to process a batch of {} payments after {} attempts; they stay PENDING",
+                            ids.size(), attempt + 1, e);
+                    return;
+                }
+                retried.increment();
+                log.warn("Failed to process a batch of {} payments, retrying in {} ms: {}",
+                        ids.size(), backoffMillis, e.getMessage());
+            }
+
+            try {
+                Thread.sleep(backoffMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failed.increment(ids.size());
+                log.warn("Interrupted while retrying a batch of {} payments; they stay PENDING", ids.size());
+                return;
+            }
+            backoffMillis = Math.min(backoffMillis * 2, properties.getMaxRetryBackoff().toMillis());
+        }
+    }
+}
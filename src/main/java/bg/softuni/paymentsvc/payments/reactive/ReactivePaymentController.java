@@ -0,0 +1,61 @@
+package bg.softuni.paymentsvc.payments.reactive;
+
+import bg.softuni.paymentsvc.payments.web.dto.PaymentPageResponse;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentRequest;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentResponse;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentSearchRequest;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentStatusUpdateRequest;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+@RestController
+@Profile("reactive")
+@RequestMapping("/api/v1/payments")
+@RequiredArgsConstructor
+public class ReactivePaymentController {
+
+    private final ReactivePaymentService paymentService;
+
+    @GetMapping("/health")
+    public Mono<String> health() {
+        return Mono.just("Payments service is up");
+    }
+
+    @GetMapping
+    public Mono<PaymentPageResponse> listPayments(@Valid PaymentSearchRequest request) {
+        return paymentService.listPayments(request);
+    }
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<PaymentResponse> createPayment(@Valid @RequestBody PaymentRequest request) {
+        return paymentService.createPayment(request);
+    }
+
+    @GetMapping("/{id}")
+    public Mono<PaymentResponse> getPayment(@PathVariable("id") UUID id) {
+        return paymentService.getPayment(id);
+    }
+
+    @GetMapping("/order/{orderId}")
+    public Mono<PaymentResponse> getPaymentByOrder(@PathVariable("orderId") UUID orderId) {
+        return paymentService.getPaymentByOrderId(orderId);
+    }
+
+    @PostMapping("/{id}/process")
+    public Mono<PaymentResponse> processPayment(@PathVariable("id") UUID id) {
+        return paymentService.processPayment(id);
+    }
+
+    @PostMapping("/{id}")
+    public Mono<PaymentResponse> updateStatus(@PathVariable("id") UUID id,
+                                              @Valid @RequestBody PaymentStatusUpdateRequest request) {
+        return paymentService.updateStatus(id, request);
+    }
+}
@@ -0,0 +1,191 @@
+package bg.softuni.paymentsvc.payments.reactive;
+
+import bg.softuni.paymentsvc.payments.model.Payment;
+import bg.softuni.paymentsvc.payments.model.PaymentStatus;
+import bg.softuni.paymentsvc.payments.repository.PaymentSearchCriteria;
+import bg.softuni.paymentsvc.payments.repository.projection.PaymentSummary;
+import bg.softuni.paymentsvc.payments.stats.HourlyPaymentStatsRepository;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+@Repository
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactivePaymentRepository {
+
+    private static final String COLUMNS = "id, order_id, amount, status, method, created_on, updated_on";
+
+    // A plain INSERT, so only a duplicate key is read as "already exists". r2dbc-mysql always asks the server for
+    // found rows, so the JDBC side's no-op ON DUPLICATE KEY UPDATE would report 1 for a duplicate here.
+    private static final String INSERT = """
+            INSERT INTO payment (id, order_id, amount, status, method, created_on, updated_on)
+            VALUES (:id, :orderId, :amount, :status, :method, :createdOn, :updatedOn)
+            """;
+
+    private final DatabaseClient databaseClient;
+
+    public Mono<Boolean> insertIfAbsent(Payment payment) {
+        return databaseClient.sql(INSERT)
+                .bind("id", toBytes(payment.getId()))
+                .bind("orderId", toBytes(payment.getOrderId()))
+                .bind("amount", payment.getAmount())
+                .bind("status", payment.getStatus().name())
+                .bind("method", payment.getMethod())
+                .bind("createdOn", payment.getCreatedOn())
+                .bind("updatedOn", payment.getUpdatedOn())
+                .fetch()
+                .rowsUpdated()
+                .map(inserted -> inserted == 1)
+                .onErrorResume(DuplicateKeyException.class, e -> Mono.just(false));
+    }
+
+    public Mono<PaymentSummary> findById(UUID id) {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM payment WHERE id = :id")
+                .bind("id", toBytes(id))
+                .map(ReactivePaymentRepository::toSummary)
+                .one();
+    }
+
+    public Mono<PaymentSummary> findByOrderId(UUID orderId) {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM payment WHERE order_id = :orderId")
+                .bind("orderId", toBytes(orderId))
+                .map(ReactivePaymentRepository::toSummary)
+                .one();
+    }
+
+    public Mono<Long> transitionStatus(UUID id, PaymentStatus from, PaymentStatus to, LocalDateTime updatedOn) {
+        return databaseClient.sql("""
+                        UPDATE payment SET status = :to, updated_on = :updatedOn
+                        WHERE id = :id AND status = :from
+                        """)
+                .bind("to", to.name())
+                .bind("updatedOn", updatedOn)
+                .bind("id", toBytes(id))
+                .bind("from", from.name())
+                .fetch()
+                .rowsUpdated();
+    }
+
+    public Mono<Long> appendOutboxEvent(UUID id, PaymentStatus status, LocalDateTime updatedOn) {
+        return databaseClient.sql("""
+                        INSERT INTO payment_outbox (payment_id, order_id, status, occurred_on)
+                        SELECT id, order_id, status, updated_on FROM payment
+                        WHERE id = :id AND status = :status AND updated_on = :updatedOn
+                        """)
+                .bind("id", toBytes(id))
+                .bind("status", status.name())
+                .bind("updatedOn", updatedOn)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    // The R2DBC side of HourlyPaymentStatsRepository.addCreated, for one payment, in the caller's transaction.
+    public Mono<Long> addCreatedStats(UUID id, int slot) {
+        return databaseClient.sql("""
+                        INSERT INTO payment_stats_hourly (hour_start, status, method, slot, payment_count, amount_total)
+                        SELECT t.hour_start, t.status, t.method, :slot, COUNT(*), SUM(t.amount)
+                        FROM (SELECT\s""" + HourlyPaymentStatsRepository.HOUR_START + """
+                         AS hour_start, p.status, p.method, p.amount FROM payment p WHERE p.id = :id) t
+                        GROUP BY t.hour_start, t.status, t.method
+                        """ + HourlyPaymentStatsRepository.ADD_TO_EXISTING)
+                .bind("slot", slot)
+                .bind("id", toBytes(id))
+                .fetch()
+                .rowsUpdated();
+    }
+
+    // The R2DBC side of HourlyPaymentStatsRepository.addTransitions, for one payment, in the caller's transaction.
+    public Mono<Long> addTransitionStats(UUID id, PaymentStatus status, LocalDateTime updatedOn,
+                                         PaymentStatus bucket, int sign, int slot) {
+        return databaseClient.sql("""
+                        INSERT INTO payment_stats_hourly (hour_start, status, method, slot, payment_count, amount_total)
+                        SELECT t.hour_start, :bucket, t.method, :slot, COUNT(*) * :sign, SUM(t.amount) * :sign
+                        FROM (SELECT\s""" + HourlyPaymentStatsRepository.HOUR_START + """
+                         AS hour_start, p.method, p.amount FROM payment p
+                              WHERE p.id = :id AND p.status = :status AND p.updated_on = :updatedOn) t
+                        GROUP BY t.hour_start, t.method
+                        """ + HourlyPaymentStatsRepository.ADD_TO_EXISTING)
+                .bind("bucket", bucket.name())
+                .bind("slot", slot)
+                .bind("sign", sign)
+                .bind("id", toBytes(id))
+                .bind("status", status.name())
+                .bind("updatedOn", updatedOn)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    public Flux<PaymentSummary> search(PaymentSearchCriteria criteria, int limit) {
+        StringBuilder sql = new StringBuilder("SELECT " + COLUMNS + " FROM payment WHERE 1 = 1");
+        Map<String, Object> parameters = new LinkedHashMap<>();
+
+        if (criteria.getStatus() != null) {
+            sql.append(" AND status = :status");
+            parameters.put("status", criteria.getStatus().name());
+        }
+        if (criteria.getMethod() != null) {
+            sql.append(" AND method = :method");
+            parameters.put("method", criteria.getMethod());
+        }
+        if (criteria.getFrom() != null) {
+            sql.append(" AND created_on >= :from");
+            parameters.put("from", criteria.getFrom());
+        }
+        if (criteria.getTo() != null) {
+            sql.append(" AND created_on < :to");
+            parameters.put("to", criteria.getTo());
+        }
+        if (criteria.getAfterCreatedOn() != null) {
+            sql.append(" AND (created_on > :afterCreatedOn OR (created_on = :afterCreatedOn AND id > :afterId))");
+            parameters.put("afterCreatedOn", criteria.getAfterCreatedOn());
+            parameters.put("afterId", toBytes(criteria.getAfterId()));
+        }
+        sql.append(" ORDER BY created_on, id LIMIT :limit");
+        parameters.put("limit", limit);
+
+        return databaseClient.sql(sql.toString())
+                .bindValues(parameters)
+                .map(ReactivePaymentRepository::toSummary)
+                .all();
+    }
+
+    private static PaymentSummary toSummary(Readable row) {
+        return new PaymentSummary(
+                toUuid(row.get("id")),
+                toUuid(row.get("order_id")),
+                row.get("amount", BigDecimal.class),
+                PaymentStatus.valueOf(row.get("status", String.class)),
+                row.get("method", String.class),
+                row.get("created_on", LocalDateTime.class),
+                row.get("updated_on", LocalDateTime.class));
+    }
+
+    // The schema stores UUIDs as BINARY(16), which R2DBC drivers neither bind nor read as UUID on their own.
+    private static byte[] toBytes(UUID id) {
+        return ByteBuffer.allocate(16)
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits())
+                .array();
+    }
+
+    private static UUID toUuid(Object value) {
+        if (value instanceof UUID uuid) {
+            return uuid;
+        }
+        ByteBuffer buffer = value instanceof ByteBuffer byteBuffer ? byteBuffer : ByteBuffer.wrap((byte[]) value);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+}
@@ -0,0 +1,175 @@
+package bg.softuni.paymentsvc.payments.reactive;
+
+import bg.softuni.paymentsvc.payments.exception.PaymentAlreadyExistsException;
+import bg.softuni.paymentsvc.payments.exception.PaymentNotFoundException;
+import bg.softuni.paymentsvc.payments.exception.PaymentStatusConflictException;
+import bg.softuni.paymentsvc.payments.model.Payment;
+import bg.softuni.paymentsvc.payments.model.PaymentStatus;
+import bg.softuni.paymentsvc.payments.repository.PaymentSearchCriteria;
+import bg.softuni.paymentsvc.payments.repository.projection.PaymentSummary;
+import bg.softuni.paymentsvc.payments.service.PaymentCursor;
+import bg.softuni.paymentsvc.payments.service.PaymentIdGenerator;
+import bg.softuni.paymentsvc.payments.service.PaymentService;
+import bg.softuni.paymentsvc.payments.stats.PaymentStatsService;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentPageResponse;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentRequest;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentResponse;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentSearchRequest;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentStatusUpdateRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+
+@Slf4j
+@Service
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactivePaymentService {
+
+    private final ReactivePaymentRepository paymentRepository;
+    private final PaymentIdGenerator paymentIdGenerator;
+    private final TransactionalOperator reactiveTransactionalOperator;
+    private final PaymentStatsService paymentStatsService;
+
+    public Mono<PaymentResponse> createPayment(PaymentRequest request) {
+        LocalDateTime now = LocalDateTime.now();
+
+        Payment payment = Payment.builder()
+                .id(paymentIdGenerator.nextId())
+                .orderId(request.getOrderId())
+                .amount(request.getAmount())
+                .method(request.getMethod())
+                .status(PaymentStatus.PENDING)
+                .createdOn(now)
+                .updatedOn(now)
+                .build();
+
+        return paymentRepository.insertIfAbsent(payment)
+                .flatMap(inserted -> {
+                    if (!inserted) {
+                        log.atDebug().addKeyValue("orderId", request.getOrderId()).log("Payment already exists");
+                        return Mono.error(new PaymentAlreadyExistsException(
+                                "Payment already exists for order " + request.getOrderId()));
+                    }
+                    log.atDebug()
+                            .addKeyValue("paymentId", payment.getId())
+                            .addKeyValue("orderId", payment.getOrderId())
+                            .log("Payment created");
+                    return paymentRepository.addCreatedStats(payment.getId(), paymentStatsService.nextSlot())
+                            .thenReturn(PaymentService.toResponse(payment));
+                })
+                .as(reactiveTransactionalOperator::transactional);
+    }
+
+    public Mono<PaymentResponse> getPayment(UUID id) {
+        return paymentRepository.findById(id)
+                .map(PaymentService::toResponse)
+                .switchIfEmpty(Mono.error(() -> notFound(id)));
+    }
+
+    public Mono<PaymentResponse> getPaymentByOrderId(UUID orderId) {
+        return paymentRepository.findByOrderId(orderId)
+                .map(PaymentService::toResponse)
+                .switchIfEmpty(Mono.error(() ->
+                        new PaymentNotFoundException("Payment for order [%s] not found.".formatted(orderId))));
+    }
+
+    public Mono<PaymentPageResponse> listPayments(PaymentSearchRequest request) {
+        return Mono.fromCallable(() -> request.getAfter() == null ? null : PaymentCursor.decode(request.getAfter()))
+                .map(cursor -> criteria(request, cursor))
+                .defaultIfEmpty(criteria(request, null))
+                .flatMap(criteria -> paymentRepository.search(criteria, request.getLimit() + 1).collectList())
+                .map(rows -> page(rows, request.getLimit()));
+    }
+
+    public Mono<PaymentResponse> processPayment(UUID paymentId) {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+
+        return paymentRepository.transitionStatus(paymentId, PaymentStatus.PENDING, PaymentStatus.SUCCESSFUL, now)
+                .filter(updated -> updated == 1)
+                .flatMap(updated -> paymentRepository.appendOutboxEvent(paymentId, PaymentStatus.SUCCESSFUL, now)
+                        .then(recordTransition(paymentId, PaymentStatus.PENDING, PaymentStatus.SUCCESSFUL, now)))
+                .doOnNext(appended -> log.atDebug().addKeyValue("paymentId", paymentId).log("Payment processed"))
+                .then(paymentRepository.findById(paymentId))
+                .map(PaymentService::toResponse)
+                .switchIfEmpty(Mono.error(() -> notFound(paymentId)))
+                .as(reactiveTransactionalOperator::transactional);
+    }
+
+    public Mono<PaymentResponse> updateStatus(UUID paymentId, PaymentStatusUpdateRequest request) {
+        PaymentStatus target = request.getStatus();
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+
+        return paymentRepository.findById(paymentId)
+                .switchIfEmpty(Mono.error(() -> notFound(paymentId)))
+                .flatMap(current -> {
+                    if (current.getStatus() == target) {
+                        return Mono.just(PaymentService.toResponse(current));
+                    }
+                    if (!current.getStatus().canTransitionTo(target)) {
+                        return Mono.error(new PaymentStatusConflictException("Payment [%s] cannot move from %s to %s."
+                                .formatted(paymentId, current.getStatus(), target)));
+                    }
+                    return paymentRepository.transitionStatus(paymentId, current.getStatus(), target, now)
+                            .flatMap(updated -> updated == 0
+                                    ? Mono.error(new PaymentStatusConflictException(
+                                            "Payment [%s] is no longer %s; it was changed concurrently."
+                                                    .formatted(paymentId, current.getStatus())))
+                                    : paymentRepository.appendOutboxEvent(paymentId, target, now)
+                                            .then(recordTransition(paymentId, current.getStatus(), target, now)))
+                            .map(appended -> {
+                                PaymentResponse response = PaymentService.toResponse(current);
+                                response.setStatus(target);
+                                response.setUpdatedOn(now);
+                                return response;
+                            });
+                })
+                .as(reactiveTransactionalOperator::transactional);
+    }
+
+    // Same order as PaymentStatsService.recordTransitions: the source bucket first.
+    private Mono<Long> recordTransition(UUID paymentId, PaymentStatus from, PaymentStatus to, LocalDateTime now) {
+        int slot = paymentStatsService.nextSlot();
+        return paymentRepository.addTransitionStats(paymentId, to, now, from, -1, slot)
+                .then(paymentRepository.addTransitionStats(paymentId, to, now, to, 1, slot));
+    }
+
+    private static PaymentSearchCriteria criteria(PaymentSearchRequest request, PaymentCursor cursor) {
+        return PaymentSearchCriteria.builder()
+                .status(request.getStatus())
+                .method(request.getMethod())
+                .from(request.getFrom())
+                .to(request.getTo())
+                .afterCreatedOn(cursor == null ? null : cursor.getCreatedOn())
+                .afterId(cursor == null ? null : cursor.getId())
+                .build();
+    }
+
+    private static PaymentPageResponse page(List<PaymentSummary> rows, int limit) {
+        boolean hasMore = rows.size() > limit;
+        List<PaymentSummary> page = hasMore ? rows.subList(0, limit) : rows;
+
+        String nextCursor = null;
+        if (hasMore) {
+            PaymentSummary last = page.get(page.size() - 1);
+            nextCursor = new PaymentCursor(last.getCreatedOn(), last.getId()).encode();
+        }
+
+        return PaymentPageResponse.builder()
+                .items(page.stream().map(PaymentService::toResponse).toList())
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    private static PaymentNotFoundException notFound(UUID id) {
+        return new PaymentNotFoundException("Payment with id [%s] not found.".formatted(id));
+    }
+}
@@ -0,0 +1,110 @@
+package bg.softuni.paymentsvc.payments.reactive;
+
+import bg.softuni.paymentsvc.payments.exception.PaymentAlreadyExistsException;
+import bg.softuni.paymentsvc.payments.exception.PaymentNotFoundException;
+import bg.softuni.paymentsvc.payments.exception.PaymentStatusConflictException;
+import bg.softuni.paymentsvc.payments.logging.LogRateLimiter;
+import bg.softuni.paymentsvc.payments.web.dto.ApiErrorResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.event.Level;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.server.ServerWebInputException;
+
+import java.time.LocalDateTime;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Profile("reactive")
+@RestControllerAdvice
+public class ReactiveRestExceptionHandler {
+
+    // Client errors are caused by callers, so a misbehaving one could otherwise flood the log.
+    private static final LogRateLimiter CLIENT_ERRORS = new LogRateLimiter(20);
+
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<ApiErrorResponse> handleValidationErrors(
+            WebExchangeBindException ex,
+            ServerHttpRequest request
+    ) {
+        String message = ex.getFieldErrors()
+                .stream()
+                .map(fe -> fe.getField() + " " + fe.getDefaultMessage())
+                .collect(Collectors.joining(", "));
+
+        CLIENT_ERRORS.log(log, Level.WARN, "Validation error on {}: {}", request.getPath(), message);
+
+        return error(HttpStatus.BAD_REQUEST, "Validation error", message, request);
+    }
+
+    @ExceptionHandler({IllegalArgumentException.class, ServerWebInputException.class})
+    public ResponseEntity<ApiErrorResponse> handleBadRequest(
+            Exception ex,
+            ServerHttpRequest request
+    ) {
+        CLIENT_ERRORS.log(log, Level.WARN, "Bad request on {}: {}", request.getPath(), ex.getMessage());
+
+        return error(HttpStatus.BAD_REQUEST, "Bad request", ex.getMessage(), request);
+    }
+
+    @ExceptionHandler(PaymentAlreadyExistsException.class)
+    public ResponseEntity<ApiErrorResponse> handlePaymentAlreadyExists(
+            PaymentAlreadyExistsException ex,
+            ServerHttpRequest request
+    ) {
+        CLIENT_ERRORS.log(log, Level.WARN, "Payment already exists on {}: {}", request.getPath(), ex.getMessage());
+
+        return error(HttpStatus.CONFLICT, "Payment already exists", ex.getMessage(), request);
+    }
+
+    @ExceptionHandler(PaymentNotFoundException.class)
+    public ResponseEntity<ApiErrorResponse> handlePaymentNotFound(
+            PaymentNotFoundException ex,
+            ServerHttpRequest request
+    ) {
+        CLIENT_ERRORS.log(log, Level.WARN, "Payment not found on {}: {}", request.getPath(), ex.getMessage());
+
+        return error(HttpStatus.NOT_FOUND, "Not found", ex.getMessage(), request);
+    }
+
+    @ExceptionHandler(PaymentStatusConflictException.class)
+    public ResponseEntity<ApiErrorResponse> handlePaymentStatusConflict(
+            PaymentStatusConflictException ex,
+            ServerHttpRequest request
+    ) {
+        CLIENT_ERRORS.log(log, Level.WARN, "Payment status conflict on {}: {}", request.getPath(), ex.getMessage());
+
+        return error(HttpStatus.CONFLICT, "Payment status conflict", ex.getMessage(), request);
+    }
+
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<ApiErrorResponse> handleAnyException(
+            Exception ex,
+            ServerHttpRequest request
+    ) {
+        log.error("Unexpected error on {}:", request.getPath(), ex);
+
+        return error(HttpStatus.INTERNAL_SERVER_ERROR, "Internal server error",
+                "Unexpected error. Please contact support if the problem persists.", request);
+    }
+
+    private static ResponseEntity<ApiErrorResponse> error(HttpStatus status,
+                                                          String error,
+                                                          String message,
+                                                          ServerHttpRequest request) {
+        ApiErrorResponse body = ApiErrorResponse.builder()
+                .timestamp(LocalDateTime.now())
+                .status(status.value())
+                .error(error)
+                .message(message)
+                .path(request.getPath().value())
+                .build();
+
+        return ResponseEntity.status(status).body(body);
+    }
+}
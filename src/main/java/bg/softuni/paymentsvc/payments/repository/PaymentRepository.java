@@ -2,16 +2,108 @@ package bg.softuni.paymentsvc.payments.repository;
 
 import bg.softuni.paymentsvc.payments.model.Payment;
 import bg.softuni.paymentsvc.payments.model.PaymentStatus;
+import bg.softuni.paymentsvc.payments.repository.projection.PaymentKey;
+import bg.softuni.paymentsvc.payments.repository.projection.PaymentSummary;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
-public interface PaymentRepository extends JpaRepository<Payment, UUID> {
+public interface PaymentRepository extends JpaRepository<Payment, UUID>, PaymentRepositoryCustom {
 
+    @Transactional(readOnly = true)
     Optional<Payment> findByOrderId(UUID orderId);
 
-    List<Payment> findAllByStatusAndCreatedOnBefore(PaymentStatus status, LocalDateTime createdOnBefore);
+    List<Payment> findByOrderIdIn(Collection<UUID> orderIds);
+
+    @Query("""
+            select new bg.softuni.paymentsvc.payments.repository.projection.PaymentKey(p.id, p.orderId)
+            from Payment p
+            where p.status = :status and p.createdOn < :createdOnBefore
+            order by p.createdOn, p.id
+            """)
+    List<PaymentKey> findKeysByStatusAndCreatedOnBefore(PaymentStatus status,
+                                                        LocalDateTime createdOnBefore,
+                                                        Limit limit);
+
+    @Query("""
+            select new bg.softuni.paymentsvc.payments.repository.projection.PaymentKey(p.id, p.orderId)
+            from Payment p
+            where p.id in :ids and p.status = :status
+            """)
+    List<PaymentKey> findKeysByIdInAndStatus(Collection<UUID> ids, PaymentStatus status);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            update Payment p
+            set p.status = :to, p.updatedOn = :updatedOn
+            where p.id in :ids and p.status = :from
+            """)
+    int transitionStatus(Collection<UUID> ids, PaymentStatus from, PaymentStatus to, LocalDateTime updatedOn);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            update Payment p
+            set p.status = :to, p.updatedOn = :updatedOn
+            where p.id = :id and p.status = :from
+            """)
+    int compareAndSetStatus(UUID id, PaymentStatus from, PaymentStatus to, LocalDateTime updatedOn);
+
+    @Query("""
+            select new bg.softuni.paymentsvc.payments.repository.projection.PaymentSummary(
+                p.id, p.orderId, p.amount, p.status, p.method, p.createdOn, p.updatedOn)
+            from Payment p
+            where p.id = :id
+            """)
+    Optional<PaymentSummary> findSummaryById(UUID id);
+
+    @Transactional(readOnly = true)
+    long countByStatus(PaymentStatus status);
+
+    @Query("""
+            select new bg.softuni.paymentsvc.payments.repository.projection.PaymentSummary(
+                p.id, p.orderId, p.amount, p.status, p.method, p.createdOn, p.updatedOn)
+            from Payment p
+            where p.status = :status
+            order by p.createdOn
+            """)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<PaymentSummary> streamByStatusOrderByCreatedOn(PaymentStatus status);
+
+    @Query("""
+            select new bg.softuni.paymentsvc.payments.repository.projection.PaymentSummary(
+                p.id, p.orderId, p.amount, p.status, p.method, p.createdOn, p.updatedOn)
+            from Payment p
+            where p.status = :status and p.createdOn >= :from
+            order by p.createdOn
+            """)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<PaymentSummary> streamByStatusCreatedSince(PaymentStatus status, LocalDateTime from);
+
+    @Query("select p.orderId from Payment p")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<UUID> streamAllOrderIds();
+
+    @Query("""
+            select new bg.softuni.paymentsvc.payments.repository.projection.PaymentSummary(
+                p.id, p.orderId, p.amount, p.status, p.method, p.createdOn, p.updatedOn)
+            from Payment p
+            where p.createdOn >= :from and p.createdOn < :to
+            order by p.createdOn, p.id
+            """)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<PaymentSummary> streamByCreatedOnBetween(LocalDateTime from, LocalDateTime to);
 }
@@ -0,0 +1,25 @@
+package bg.softuni.paymentsvc.payments.repository;
+
+import bg.softuni.paymentsvc.payments.model.Payment;
+import bg.softuni.paymentsvc.payments.model.PaymentStatus;
+import bg.softuni.paymentsvc.payments.repository.projection.PaymentKey;
+import bg.softuni.paymentsvc.payments.repository.projection.PaymentSummary;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface PaymentRepositoryCustom {
+
+    boolean insertIfAbsent(Payment payment);
+
+    @Transactional(readOnly = true)
+    List<PaymentSummary> search(PaymentSearchCriteria criteria, int limit);
+
+    List<PaymentKey> findKeysByStatusAndCreatedOnBeforeInPartition(PaymentStatus status,
+                                                                   LocalDateTime createdOnBefore,
+                                                                   int partition,
+                                                                   int partitions,
+                                                                   int limit);
+}
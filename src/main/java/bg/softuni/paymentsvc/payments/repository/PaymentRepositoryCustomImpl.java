@@ -0,0 +1,129 @@
+package bg.softuni.paymentsvc.payments.repository;
+
+import bg.softuni.paymentsvc.payments.model.Payment;
+import bg.softuni.paymentsvc.payments.model.PaymentStatus;
+import bg.softuni.paymentsvc.payments.repository.projection.PaymentKey;
+import bg.softuni.paymentsvc.payments.repository.projection.PaymentSummary;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.query.NativeQuery;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+public class PaymentRepositoryCustomImpl implements PaymentRepositoryCustom {
+
+    // Unlike INSERT IGNORE, only a duplicate key is tolerated; truncation and range errors still fail the insert.
+    // The no-op update leaves the existing row alone. Its row count depends on the driver's found-rows setting,
+    // so insertIfAbsent ignores it and checks which id owns the order instead.
+    private static final String INSERT_IF_ABSENT = """
+            INSERT INTO payment (id, order_id, amount, status, method, created_on, updated_on)
+            VALUES (:id, :orderId, :amount, :status, :method, :createdOn, :updatedOn)
+            ON DUPLICATE KEY UPDATE id = id
+            """;
+
+    private static final String SEARCH_SELECT = """
+            select new bg.softuni.paymentsvc.payments.repository.projection.PaymentSummary(
+                p.id, p.orderId, p.amount, p.status, p.method, p.createdOn, p.updatedOn)
+            from Payment p
+            where 1 = 1""";
+
+    // Partitions split ids by their 10th byte. It is random in both v4 and v7 ids, unlike the timestamp at the
+    // front of a v7 id and the shard number in the last byte. The cast is a no-op on MySQL's BINARY(16) and
+    // turns H2's UUID type into the same bytes.
+    private static final String KEYS_IN_PARTITION = """
+            SELECT id, order_id FROM payment
+            WHERE status = :status AND created_on < :createdOnBefore
+              AND SUBSTRING(CAST(id AS BINARY(16)), 10, 1) BETWEEN :lowest AND :highest
+            ORDER BY created_on, id
+            LIMIT :limit
+            """;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public boolean insertIfAbsent(Payment payment) {
+        entityManager.createNativeQuery(INSERT_IF_ABSENT)
+                .setParameter("id", payment.getId())
+                .setParameter("orderId", payment.getOrderId())
+                .setParameter("amount", payment.getAmount())
+                .setParameter("status", payment.getStatus().name())
+                .setParameter("method", payment.getMethod())
+                .setParameter("createdOn", payment.getCreatedOn())
+                .setParameter("updatedOn", payment.getUpdatedOn())
+                .executeUpdate();
+
+        // A locking read, so a row committed after this transaction's snapshot is seen too. The upsert already
+        // holds that row's lock, so this waits on nothing new.
+        Object owner = entityManager.createNativeQuery("SELECT id FROM payment WHERE order_id = :orderId FOR UPDATE")
+                .unwrap(NativeQuery.class)
+                .addScalar("id", UUID.class)
+                .setParameter("orderId", payment.getOrderId())
+                .getSingleResult();
+
+        return payment.getId().equals(owner);
+    }
+
+    @Override
+    public List<PaymentSummary> search(PaymentSearchCriteria criteria, int limit) {
+        StringBuilder jpql = new StringBuilder(SEARCH_SELECT);
+        Map<String, Object> parameters = new LinkedHashMap<>();
+
+        if (criteria.getStatus() != null) {
+            jpql.append(" and p.status = :status");
+            parameters.put("status", criteria.getStatus());
+        }
+        if (criteria.getMethod() != null) {
+            jpql.append(" and p.method = :method");
+            parameters.put("method", criteria.getMethod());
+        }
+        if (criteria.getFrom() != null) {
+            jpql.append(" and p.createdOn >= :from");
+            parameters.put("from", criteria.getFrom());
+        }
+        if (criteria.getTo() != null) {
+            jpql.append(" and p.createdOn < :to");
+            parameters.put("to", criteria.getTo());
+        }
+        if (criteria.getAfterCreatedOn() != null) {
+            jpql.append(" and (p.createdOn > :afterCreatedOn or (p.createdOn = :afterCreatedOn and p.id > :afterId))");
+            parameters.put("afterCreatedOn", criteria.getAfterCreatedOn());
+            parameters.put("afterId", criteria.getAfterId());
+        }
+        jpql.append(" order by p.createdOn, p.id");
+
+        TypedQuery<PaymentSummary> query = entityManager.createQuery(jpql.toString(), PaymentSummary.class)
+                .setMaxResults(limit);
+        parameters.forEach(query::setParameter);
+
+        return query.getResultList();
+    }
+
+    @Override
+    public List<PaymentKey> findKeysByStatusAndCreatedOnBeforeInPartition(PaymentStatus status,
+                                                                          LocalDateTime createdOnBefore,
+                                                                          int partition,
+                                                                          int partitions,
+                                                                          int limit) {
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = entityManager.createNativeQuery(KEYS_IN_PARTITION)
+                .unwrap(NativeQuery.class)
+                .addScalar("id", UUID.class)
+                .addScalar("order_id", UUID.class)
+                .setParameter("status", status.name())
+                .setParameter("createdOnBefore", createdOnBefore)
+                .setParameter("lowest", new byte[]{(byte) (256 * partition / partitions)})
+                .setParameter("highest", new byte[]{(byte) (256 * (partition + 1) / partitions - 1)})
+                .setParameter("limit", limit)
+                .getResultList();
+
+        return rows.stream()
+                .map(row -> new PaymentKey((UUID) row[0], (UUID) row[1]))
+                .toList();
+    }
+}
@@ -0,0 +1,20 @@
+package bg.softuni.paymentsvc.payments.repository;
+
+import bg.softuni.paymentsvc.payments.model.PaymentStatus;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Getter
+@Builder
+public class PaymentSearchCriteria {
+
+    private final PaymentStatus status;
+    private final String method;
+    private final LocalDateTime from;
+    private final LocalDateTime to;
+    private final LocalDateTime afterCreatedOn;
+    private final UUID afterId;
+}
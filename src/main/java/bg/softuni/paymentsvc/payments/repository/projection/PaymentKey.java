@@ -0,0 +1,14 @@
+package bg.softuni.paymentsvc.payments.repository.projection;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.UUID;
+
+@Getter
+@AllArgsConstructor
+public class PaymentKey {
+
+    private final UUID id;
+    private final UUID orderId;
+}
@@ -0,0 +1,22 @@
+package bg.softuni.paymentsvc.payments.repository.projection;
+
+import bg.softuni.paymentsvc.payments.model.PaymentStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Getter
+@AllArgsConstructor
+public class PaymentSummary {
+
+    private final UUID id;
+    private final UUID orderId;
+    private final BigDecimal amount;
+    private final PaymentStatus status;
+    private final String method;
+    private final LocalDateTime createdOn;
+    private final LocalDateTime updatedOn;
+}
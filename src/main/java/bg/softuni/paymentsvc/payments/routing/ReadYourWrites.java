@@ -0,0 +1,93 @@
+package bg.softuni.paymentsvc.payments.routing;
+
+import bg.softuni.paymentsvc.payments.cache.PaymentCache;
+import bg.softuni.paymentsvc.payments.watch.PaymentStatusChange;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+@Component
+public class ReadYourWrites {
+
+    private static final long MAX_TRACKED_KEYS = 100_000;
+    private static final ThreadLocal<Boolean> PRIMARY = new ThreadLocal<>();
+
+    private final boolean enabled;
+    private final Cache<Object, Boolean> recentWrites;
+
+    public ReadYourWrites(ReplicaRoutingProperties properties) {
+        this.enabled = properties.isEnabled();
+        this.recentWrites = Caffeine.newBuilder()
+                .maximumSize(MAX_TRACKED_KEYS)
+                .expireAfterWrite(properties.getReadYourWritesWindow())
+                .build();
+    }
+
+    static boolean isPinnedToPrimary() {
+        return PRIMARY.get() != null;
+    }
+
+    // The window starts at commit, which is when replicas start catching up.
+    public void recordWrite(UUID paymentId, UUID orderId) {
+        if (!enabled) {
+            return;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remember(paymentId, orderId);
+                }
+            });
+        } else {
+            remember(paymentId, orderId);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStatusChange(PaymentStatusChange change) {
+        if (enabled) {
+            remember(change.getPaymentId(), change.getOrderId());
+        }
+    }
+
+    // A key written within the window is read from the primary. A replica miss is re-checked there too,
+    // because it may just be replication lag and would otherwise be reported (and negatively cached) as 404.
+    public <T> Optional<T> read(Object key, Supplier<Optional<T>> query) {
+        if (!enabled) {
+            return query.get();
+        }
+        if (recentWrites.getIfPresent(key) != null) {
+            return onPrimary(query);
+        }
+
+        Optional<T> result = query.get();
+        return result.isPresent() ? result : onPrimary(query);
+    }
+
+    public <T> T onPrimary(Supplier<T> query) {
+        if (isPinnedToPrimary()) {
+            return query.get();
+        }
+
+        PRIMARY.set(Boolean.TRUE);
+        try {
+            return query.get();
+        } finally {
+            PRIMARY.remove();
+        }
+    }
+
+    private void remember(UUID paymentId, UUID orderId) {
+        recentWrites.put(paymentId, Boolean.TRUE);
+        recentWrites.put(PaymentCache.orderKey(orderId), Boolean.TRUE);
+    }
+}
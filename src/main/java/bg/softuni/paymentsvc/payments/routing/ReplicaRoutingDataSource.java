@@ -0,0 +1,91 @@
+package bg.softuni.paymentsvc.payments.routing;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Serves connections for read-only transactions: one of the replicas, or the primary while pinned.
+public class ReplicaRoutingDataSource extends AbstractDataSource implements Closeable {
+
+    private final DataSource primary;
+    private final List<HikariDataSource> replicas;
+    private final ReplicaRoutingProperties.Selection selection;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Counter primaryConnections;
+    private final List<Counter> replicaConnections;
+
+    public ReplicaRoutingDataSource(DataSource primary,
+                                    List<HikariDataSource> replicas,
+                                    ReplicaRoutingProperties.Selection selection,
+                                    MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.selection = selection;
+        this.primaryConnections = connections(meterRegistry, "primary");
+        this.replicaConnections = this.replicas.stream()
+                .map(replica -> connections(meterRegistry, replica.getPoolName()))
+                .toList();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return select().getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return select().getConnection(username, password);
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(HikariDataSource::close);
+    }
+
+    DataSource select() {
+        if (replicas.isEmpty() || ReadYourWrites.isPinnedToPrimary()) {
+            primaryConnections.increment();
+            return primary;
+        }
+
+        int index = selection == ReplicaRoutingProperties.Selection.LEAST_CONNECTIONS
+                ? leastBusy()
+                : Math.floorMod(next.getAndIncrement(), replicas.size());
+        replicaConnections.get(index).increment();
+        return replicas.get(index);
+    }
+
+    // Starts from a rotating offset so idle replicas share the load instead of the first one taking every tie.
+    private int leastBusy() {
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        int best = start;
+        int bestActive = Integer.MAX_VALUE;
+
+        for (int i = 0; i < size; i++) {
+            int index = (start + i) % size;
+            HikariPoolMXBean pool = replicas.get(index).getHikariPoolMXBean();
+            int active = pool == null ? 0 : pool.getActiveConnections();
+            if (active < bestActive) {
+                best = index;
+                bestActive = active;
+            }
+        }
+        return best;
+    }
+
+    private static Counter connections(MeterRegistry meterRegistry, String target) {
+        return Counter.builder("payments.routing.connections")
+                .tag("target", target)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,43 @@
+package bg.softuni.paymentsvc.payments.routing;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "payments.routing")
+public class ReplicaRoutingProperties {
+
+    private boolean enabled = false;
+
+    private Selection selection = Selection.ROUND_ROBIN;
+
+    // Reads of a payment stay on the primary this long after a write to it; keep it above the replication lag.
+    private Duration readYourWritesWindow = Duration.ofSeconds(5);
+
+    private List<Replica> replicas = new ArrayList<>();
+
+    public enum Selection {
+        ROUND_ROBIN,
+        LEAST_CONNECTIONS
+    }
+
+    @Getter
+    @Setter
+    public static class Replica {
+
+        private String url;
+
+        // Fall back to spring.datasource.username / password.
+        private String username;
+
+        private String password;
+
+        private int maximumPoolSize = 10;
+    }
+}
@@ -0,0 +1,34 @@
+package bg.softuni.paymentsvc.payments.scheduler;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "payments.cleanup")
+public class PaymentCleanupProperties {
+
+    private Duration pendingTimeout = Duration.ofHours(2);
+
+    private int chunkSize = 500;
+
+    // Splits each run into id ranges, each with its own lease, so several instances can share a large backlog.
+    private int partitions = 1;
+
+    // A partition whose lease is not extended for this long is treated as abandoned and can be taken over.
+    // The lease is extended after every chunk.
+    private Duration leaseDuration = Duration.ofMinutes(5);
+
+    // A finished partition keeps its lease this long, so instances whose cron fires a bit later skip it.
+    private Duration leaseHold = Duration.ofMinutes(5);
+
+    public void setPartitions(int partitions) {
+        if (partitions < 1 || partitions > 256) {
+            throw new IllegalArgumentException("payments.cleanup.partitions must be between 1 and 256");
+        }
+        this.partitions = partitions;
+    }
+}
@@ -1,16 +1,30 @@
 package bg.softuni.paymentsvc.payments.scheduler;
 
-import bg.softuni.paymentsvc.payments.model.Payment;
+import bg.softuni.paymentsvc.payments.cache.PaymentCache;
+import bg.softuni.paymentsvc.payments.lease.SchedulerLeases;
 import bg.softuni.paymentsvc.payments.model.PaymentStatus;
+import bg.softuni.paymentsvc.payments.outbox.PaymentOutboxRepository;
 import bg.softuni.paymentsvc.payments.repository.PaymentRepository;
+import bg.softuni.paymentsvc.payments.repository.projection.PaymentKey;
+import bg.softuni.paymentsvc.payments.sharding.PaymentShards;
+import bg.softuni.paymentsvc.payments.stats.PaymentStatsService;
+import bg.softuni.paymentsvc.payments.watch.PaymentStatusChange;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.UUID;
 
 @Component
 @RequiredArgsConstructor
@@ -18,28 +32,130 @@ import java.util.List;
 public class PaymentCleanupScheduler {
 
     private final PaymentRepository paymentRepository;
+    private final PaymentOutboxRepository paymentOutboxRepository;
+    private final PaymentStatsService paymentStatsService;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PaymentCache paymentCache;
+    private final PaymentCleanupProperties properties;
+    private final PaymentShards paymentShards;
+    private final MeterRegistry meterRegistry;
+    private final SchedulerLeases leases;
 
-    @CacheEvict(value = "payments", allEntries = true)
-    @Scheduled(cron = "0 0 * * * *")
+    static final String LEASE = "payment-cleanup";
+
+    @Scheduled(cron = "${payments.cleanup.cron:0 0 * * * *}")
     public void failOldPendingPayments() {
-        LocalDateTime cutoff = LocalDateTime.now().minusHours(2);
+        LocalDateTime cutoff = LocalDateTime.now().minus(properties.getPendingTimeout());
+        int partitions = properties.getPartitions();
+        Timer.Sample sample = Timer.start(meterRegistry);
+
+        int claimed = 0;
+        int chunks = 0;
+        int failed = 0;
+        for (int partition = 0; partition < partitions; partition++) {
+            String lease = leaseName(partition, partitions);
+            if (!leases.tryAcquire(lease, properties.getLeaseDuration())) {
+                continue;
+            }
+            claimed++;
+
+            int current = partition;
+            List<ShardCleanup> results = paymentShards.scatter(
+                    shard -> failOldPendingPayments(shard, cutoff, current, partitions, lease));
+            chunks += results.stream().mapToInt(ShardCleanup::getChunks).sum();
+            failed += results.stream().mapToInt(ShardCleanup::getFailed).sum();
+
+            leases.extend(lease, properties.getLeaseHold());
+        }
+
+        if (claimed == 0) {
+            log.debug("Skipping cleanup, other instances hold all {} cleanup leases.", partitions);
+            return;
+        }
 
-        List<Payment> oldPending = paymentRepository
-                .findAllByStatusAndCreatedOnBefore(PaymentStatus.PENDING, cutoff);
+        sample.stop(meterRegistry.timer("payments.cleanup.duration"));
+        meterRegistry.counter("payments.cleanup.failed").increment(failed);
 
-        if (oldPending.isEmpty()) {
-            log.debug("No pending payments older than 2 hours found.");
+        if (chunks == 0) {
+            log.debug("No pending payments older than {} found.", properties.getPendingTimeout());
             return;
         }
 
-        log.info("Marking {} payments as FAILED (older than 2 hours)", oldPending.size());
+        log.info("Marked {} payments as FAILED (older than {}) in {} chunks",
+                failed, properties.getPendingTimeout(), chunks);
+    }
+
+    private ShardCleanup failOldPendingPayments(int shard,
+                                                LocalDateTime cutoff,
+                                                int partition,
+                                                int partitions,
+                                                String lease) {
+        int chunkSize = properties.getChunkSize();
+
+        int chunks = 0;
+        int failed = 0;
+
+        while (true) {
+            List<PaymentKey> keys = partitions == 1
+                    ? paymentRepository.findKeysByStatusAndCreatedOnBefore(
+                            PaymentStatus.PENDING, cutoff, Limit.of(chunkSize))
+                    : paymentRepository.findKeysByStatusAndCreatedOnBeforeInPartition(
+                            PaymentStatus.PENDING, cutoff, partition, partitions, chunkSize);
+
+            if (keys.isEmpty()) {
+                break;
+            }
+
+            List<UUID> ids = keys.stream().map(PaymentKey::getId).toList();
+            LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+
+            // The status change, its outbox rows and the stats commit together; the cache is evicted afterwards.
+            int updated = transactionTemplate.execute(tx -> {
+                int changed = paymentRepository.transitionStatus(
+                        ids, PaymentStatus.PENDING, PaymentStatus.FAILED, now);
+                if (changed > 0) {
+                    paymentOutboxRepository.appendTransitions(ids, PaymentStatus.FAILED, now);
+                    paymentStatsService.recordTransitions(ids, PaymentStatus.PENDING, PaymentStatus.FAILED, now);
+
+                    List<PaymentKey> moved = changed == keys.size()
+                            ? keys
+                            : paymentRepository.findKeysByIdInAndStatus(ids, PaymentStatus.FAILED);
+                    moved.forEach(key -> eventPublisher.publishEvent(
+                            new PaymentStatusChange(key.getId(), key.getOrderId(), PaymentStatus.FAILED, now)));
+                }
+                return changed;
+            });
+
+            keys.forEach(key -> paymentCache.evict(key.getId(), key.getOrderId()));
+
+            chunks++;
+            failed += updated;
+            log.info("Cleanup chunk {} on shard {}: marked {} of {} payments as FAILED ({} so far)",
+                    chunks, shard, updated, keys.size(), failed);
+
+            if (keys.size() < chunkSize) {
+                break;
+            }
+            if (!leases.extend(lease, properties.getLeaseDuration())) {
+                log.warn("Lost the {} lease to another instance, stopping cleanup on shard {}", lease, shard);
+                break;
+            }
+        }
+
+        return new ShardCleanup(chunks, failed);
+    }
+
+    // Leases are named after the partition count too, so changing it never mixes up ranges of different sizes.
+    static String leaseName(int partition, int partitions) {
+        return partitions == 1 ? LEASE : LEASE + "-" + partition + "-of-" + partitions;
+    }
 
-        LocalDateTime now = LocalDateTime.now();
-        oldPending.forEach(p -> {
-            p.setStatus(PaymentStatus.FAILED);
-            p.setUpdatedOn(now);
-        });
+    @Getter
+    @AllArgsConstructor
+    private static class ShardCleanup {
 
-        paymentRepository.saveAll(oldPending);
+        private final int chunks;
+        private final int failed;
     }
 }
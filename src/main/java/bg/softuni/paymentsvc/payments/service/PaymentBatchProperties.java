@@ -0,0 +1,13 @@
+package bg.softuni.paymentsvc.payments.service;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "payments.batch")
+public class PaymentBatchProperties {
+
+    private int maxSize = 500;
+}
@@ -0,0 +1,145 @@
+package bg.softuni.paymentsvc.payments.service;
+
+import bg.softuni.paymentsvc.payments.repository.PaymentRepository;
+import bg.softuni.paymentsvc.payments.repository.projection.PaymentSummary;
+import bg.softuni.paymentsvc.payments.sharding.PaymentShards;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@Slf4j
+@Service
+public class PaymentExportService {
+
+    static final String CSV_HEADER = "id,orderId,amount,status,method,createdOn,updatedOn";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final PaymentRepository paymentRepository;
+    private final ObjectMapper objectMapper;
+    private final PaymentShards paymentShards;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public PaymentExportService(PaymentRepository paymentRepository,
+                                ObjectMapper objectMapper,
+                                PaymentShards paymentShards,
+                                PlatformTransactionManager transactionManager) {
+        this.paymentRepository = paymentRepository;
+        this.objectMapper = objectMapper;
+        this.paymentShards = paymentShards;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    // Shards are streamed one after another, so rows are ordered within a shard but not across shards.
+    public long exportPayments(LocalDateTime from,
+                               LocalDateTime to,
+                               PaymentExportFormat format,
+                               OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        long rows = 0;
+
+        if (format == PaymentExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        for (int shard = 0; shard < paymentShards.count(); shard++) {
+            rows += exportShard(shard, from, to, format, writer);
+        }
+
+        writer.flush();
+
+        log.info("Exported {} payments created between {} and {} as {}", rows, from, to, format);
+        return rows;
+    }
+
+    private long exportShard(int shard,
+                             LocalDateTime from,
+                             LocalDateTime to,
+                             PaymentExportFormat format,
+                             Writer writer) throws IOException {
+        try {
+            return paymentShards.on(shard, () -> readOnlyTransaction.execute(status -> {
+                try (Stream<PaymentSummary> payments = paymentRepository.streamByCreatedOnBetween(from, to)) {
+                    return format == PaymentExportFormat.CSV
+                            ? writeCsv(payments.iterator(), writer)
+                            : writeNdjson(payments.iterator(), writer);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private long writeNdjson(Iterator<PaymentSummary> payments, Writer writer) throws IOException {
+        ObjectWriter rowWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        long rows = 0;
+
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(writer)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+            while (payments.hasNext()) {
+                rowWriter.writeValue(generator, payments.next());
+                generator.writeRaw('\n');
+                rows++;
+            }
+        }
+
+        return rows;
+    }
+
+    private long writeCsv(Iterator<PaymentSummary> payments, Writer writer) throws IOException {
+        long rows = 0;
+
+        while (payments.hasNext()) {
+            PaymentSummary payment = payments.next();
+
+            writer.write(String.valueOf(payment.getId()));
+            writer.write(',');
+            writer.write(String.valueOf(payment.getOrderId()));
+            writer.write(',');
+            writer.write(payment.getAmount().toPlainString());
+            writer.write(',');
+            writer.write(payment.getStatus().name());
+            writer.write(',');
+            writer.write(csvField(payment.getMethod()));
+            writer.write(',');
+            writer.write(String.valueOf(payment.getCreatedOn()));
+            writer.write(',');
+            writer.write(payment.getUpdatedOn() == null ? "" : payment.getUpdatedOn().toString());
+            writer.write('\n');
+            rows++;
+        }
+
+        return rows;
+    }
+
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,33 @@
+package bg.softuni.paymentsvc.payments.service;
+
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+// UUIDv7 (RFC 9562): a 48-bit millisecond timestamp, then a 12-bit sequence in rand_a, then 62 random bits.
+// Ids from one process sort in creation order, so BINARY(16) primary key inserts append to the right edge of the index.
+@Component
+public class PaymentIdGenerator {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    // Millisecond timestamp shifted left by 12, plus the sequence within that millisecond.
+    private static final AtomicLong LAST_TIME_AND_SEQUENCE = new AtomicLong();
+
+    public UUID nextId() {
+        return nextTimeOrderedId();
+    }
+
+    // Shared with the Hibernate id generator, which is not a Spring bean.
+    public static UUID nextTimeOrderedId() {
+        long now = System.currentTimeMillis() << 12;
+        // A sequence overflow or a clock going backwards borrows from the next millisecond instead of reordering.
+        long timeAndSequence = LAST_TIME_AND_SEQUENCE.updateAndGet(last -> Math.max(last + 1, now));
+
+        long mostSigBits = (timeAndSequence >>> 12) << 16 | 0x7000L | (timeAndSequence & 0xFFFL);
+        long leastSigBits = RANDOM.nextLong() & 0x3FFFFFFFFFFFFFFFL | 0x8000000000000000L;
+        return new UUID(mostSigBits, leastSigBits);
+    }
+}
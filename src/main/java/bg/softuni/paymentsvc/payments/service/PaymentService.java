@@ -1,47 +1,91 @@
 package bg.softuni.paymentsvc.payments.service;
 
+import bg.softuni.paymentsvc.payments.cache.NegativeLookupCache;
+import bg.softuni.paymentsvc.payments.cache.PaymentCache;
 import bg.softuni.paymentsvc.payments.exception.PaymentAlreadyExistsException;
 import bg.softuni.paymentsvc.payments.exception.PaymentNotFoundException;
+import bg.softuni.paymentsvc.payments.exception.PaymentStatusConflictException;
+import bg.softuni.paymentsvc.payments.outbox.PaymentOutboxRepository;
+import bg.softuni.paymentsvc.payments.web.dto.BatchItemOutcome;
+import bg.softuni.paymentsvc.payments.web.dto.BatchPaymentItemResult;
+import bg.softuni.paymentsvc.payments.web.dto.BatchPaymentResponse;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentPageResponse;
 import bg.softuni.paymentsvc.payments.web.dto.PaymentRequest;
 import bg.softuni.paymentsvc.payments.web.dto.PaymentResponse;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentSearchRequest;
 import bg.softuni.paymentsvc.payments.web.dto.PaymentStatusUpdateRequest;
 import bg.softuni.paymentsvc.payments.model.Payment;
 import bg.softuni.paymentsvc.payments.model.PaymentStatus;
 import bg.softuni.paymentsvc.payments.repository.PaymentRepository;
+import bg.softuni.paymentsvc.payments.repository.PaymentSearchCriteria;
+import bg.softuni.paymentsvc.payments.repository.projection.PaymentKey;
+import bg.softuni.paymentsvc.payments.repository.projection.PaymentSummary;
+import bg.softuni.paymentsvc.payments.routing.ReadYourWrites;
+import bg.softuni.paymentsvc.payments.sharding.PaymentShards;
+import bg.softuni.paymentsvc.payments.sharding.ShardKey;
+import bg.softuni.paymentsvc.payments.stats.PaymentStatsService;
+import bg.softuni.paymentsvc.payments.watch.PaymentStatusChange;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
-import java.util.UUID;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class PaymentService {
 
+    // Same order as the search query: MySQL and H2 compare UUID ids as unsigned bytes.
+    private static final Comparator<PaymentSummary> SEARCH_ORDER = Comparator
+            .comparing(PaymentSummary::getCreatedOn)
+            .thenComparing(PaymentSummary::getId, (a, b) -> a.getMostSignificantBits() != b.getMostSignificantBits()
+                    ? Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits())
+                    : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits()));
+
     private final PaymentRepository paymentRepository;
+    private final PaymentOutboxRepository paymentOutboxRepository;
+    private final PaymentStatsService paymentStatsService;
+    private final NegativeLookupCache negativeLookupCache;
+    private final PaymentIdGenerator paymentIdGenerator;
+    private final PaymentCache paymentCache;
+    private final PaymentBatchProperties batchProperties;
+    private final Validator validator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ReadYourWrites readYourWrites;
+    private final PaymentShards paymentShards;
+    private final TransactionTemplate transactionTemplate;
 
     @Transactional
-    @CacheEvict(value = "payments", allEntries = true)
+    @Caching(put = {
+            @CachePut(value = "payments", key = "#result.id", unless = "#result == null"),
+            @CachePut(value = "payments", key = "'order-' + #result.orderId", unless = "#result == null")
+    })
+    @ShardKey(orderId = "#request.orderId")
     public PaymentResponse createPayment(PaymentRequest request) {
         LocalDateTime now = LocalDateTime.now();
 
-        log.info("Creating payment for order {} with amount {} and method {}",
-                request.getOrderId(), request.getAmount(), request.getMethod());
-
-        paymentRepository.findByOrderId(request.getOrderId())
-                .ifPresent(existing -> {
-                    throw new PaymentAlreadyExistsException(
-                            "Payment already exists for order " + request.getOrderId()
-                    );
-                });
+        log.atDebug()
+                .addKeyValue("orderId", request.getOrderId())
+                .addKeyValue("amount", request.getAmount())
+                .addKeyValue("method", request.getMethod())
+                .log("Creating payment");
 
         Payment payment = Payment.builder()
+                .id(paymentShards.newPaymentId(paymentIdGenerator.nextId(), request.getOrderId()))
                 .orderId(request.getOrderId())
                 .amount(request.getAmount())
                 .method(request.getMethod())
@@ -50,72 +94,376 @@ public class PaymentService {
                 .updatedOn(now)
                 .build();
 
+        if (!paymentRepository.insertIfAbsent(payment)) {
+            log.atDebug().addKeyValue("orderId", request.getOrderId()).log("Payment already exists");
+            negativeLookupCache.registerOrder(request.getOrderId());
+            throw new PaymentAlreadyExistsException(
+                    "Payment already exists for order " + request.getOrderId()
+            );
+        }
+
+        paymentStatsService.recordCreated(List.of(payment.getId()));
+        negativeLookupCache.registerPayment(payment.getId(), payment.getOrderId());
+        readYourWrites.recordWrite(payment.getId(), payment.getOrderId());
+        eventPublisher.publishEvent(
+                new PaymentStatusChange(payment.getId(), payment.getOrderId(), PaymentStatus.PENDING, now));
+        log.atDebug()
+                .addKeyValue("paymentId", payment.getId())
+                .addKeyValue("orderId", payment.getOrderId())
+                .log("Payment created");
+        return toResponse(payment);
+    }
+
+    // Each shard's part of the batch is written in its own transaction; unsharded, that is a single transaction.
+    public BatchPaymentResponse createPayments(List<PaymentRequest> requests) {
+        if (requests == null || requests.isEmpty() || requests.size() > batchProperties.getMaxSize()) {
+            throw new IllegalArgumentException(
+                    "Batch must contain between 1 and %d payments.".formatted(batchProperties.getMaxSize()));
+        }
+
+        log.debug("Creating batch of {} payments", requests.size());
+
+        BatchPaymentItemResult[] results = new BatchPaymentItemResult[requests.size()];
+        Map<UUID, Integer> firstIndexByOrder = new LinkedHashMap<>();
+        Map<Integer, Integer> duplicateOf = new LinkedHashMap<>();
+
+        for (int i = 0; i < requests.size(); i++) {
+            PaymentRequest request = requests.get(i);
+            String violations = validate(request);
+
+            if (violations != null) {
+                results[i] = itemResult(i, request == null ? null : request.getOrderId(),
+                        BatchItemOutcome.VALIDATION_ERROR, null, violations);
+                continue;
+            }
+
+            Integer first = firstIndexByOrder.putIfAbsent(request.getOrderId(), i);
+            if (first != null) {
+                duplicateOf.put(i, first);
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        paymentShards.partition(firstIndexByOrder.keySet(), paymentShards::ofOrder)
+                .forEach((shard, orderIds) -> paymentShards.on(shard, () -> {
+                    createOnShardOrRetry(orderIds, requests, firstIndexByOrder, results, now);
+                    return null;
+                }));
+
+        duplicateOf.forEach((index, first) -> results[index] = itemResult(index, requests.get(index).getOrderId(),
+                BatchItemOutcome.ALREADY_EXISTS, results[first].getPayment(), "Duplicate order in batch"));
+
+        List<BatchPaymentItemResult> items = List.of(results);
+        log.info("Batch of {} payments processed: {} created",
+                requests.size(), count(items, BatchItemOutcome.CREATED));
+
+        return BatchPaymentResponse.builder()
+                .created(count(items, BatchItemOutcome.CREATED))
+                .alreadyExists(count(items, BatchItemOutcome.ALREADY_EXISTS))
+                .rejected(count(items, BatchItemOutcome.VALIDATION_ERROR))
+                .results(items)
+                .build();
+    }
+
+    // Another request can insert one of these orders between the existence check and the flush. That rolls back
+    // this shard's part, and the second run finds the winner and reports the order as ALREADY_EXISTS. Any other
+    // integrity violation fails the second run as well and is rethrown.
+    private void createOnShardOrRetry(List<UUID> orderIds,
+                                      List<PaymentRequest> requests,
+                                      Map<UUID, Integer> firstIndexByOrder,
+                                      BatchPaymentItemResult[] results,
+                                      LocalDateTime now) {
         try {
-            Payment saved = paymentRepository.save(payment);
-            log.info("Payment {} created successfully for order {}", saved.getId(), saved.getOrderId());
-            return toResponse(saved);
-        } catch (DataIntegrityViolationException ex) {
-            log.warn("DataIntegrityViolation when creating payment for order {}. " +
-                            "Trying to load existing payment.",
-                    request.getOrderId());
+            transactionTemplate.execute(tx -> {
+                createOnShard(orderIds, requests, firstIndexByOrder, results, now);
+                return null;
+            });
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Batch insert raced with a concurrent create, retrying: {}", e.getMostSpecificCause().getMessage());
+            transactionTemplate.execute(tx -> {
+                createOnShard(orderIds, requests, firstIndexByOrder, results, now);
+                return null;
+            });
+        }
+    }
+
+    private void createOnShard(List<UUID> orderIds,
+                               List<PaymentRequest> requests,
+                               Map<UUID, Integer> firstIndexByOrder,
+                               BatchPaymentItemResult[] results,
+                               LocalDateTime now) {
+        Map<UUID, Payment> existing = paymentRepository.findByOrderIdIn(orderIds)
+                .stream()
+                .collect(Collectors.toMap(Payment::getOrderId, Function.identity()));
+
+        List<Payment> toCreate = new ArrayList<>();
+
+        for (UUID orderId : orderIds) {
+            int index = firstIndexByOrder.get(orderId);
+            Payment found = existing.get(orderId);
+            if (found != null) {
+                results[index] = itemResult(index, orderId, BatchItemOutcome.ALREADY_EXISTS, toResponse(found),
+                        "Payment already exists for order " + orderId);
+                continue;
+            }
+
+            PaymentRequest request = requests.get(index);
+            toCreate.add(Payment.builder()
+                    .orderId(orderId)
+                    .amount(request.getAmount())
+                    .method(request.getMethod())
+                    .status(PaymentStatus.PENDING)
+                    .createdOn(now)
+                    .updatedOn(now)
+                    .build());
+        }
 
-            Payment existing = paymentRepository.findByOrderId(request.getOrderId())
-                    .orElseThrow(() -> ex);
+        paymentRepository.saveAllAndFlush(toCreate);
+        if (!toCreate.isEmpty()) {
+            paymentStatsService.recordCreated(toCreate.stream().map(Payment::getId).toList());
+        }
 
-            log.info("Existing payment {} for order {} returned instead of creating a new one.",
-                    existing.getId(), existing.getOrderId());
+        for (Payment payment : toCreate) {
+            int index = firstIndexByOrder.get(payment.getOrderId());
+            PaymentResponse response = toResponse(payment);
 
-            return toResponse(existing);
+            results[index] = itemResult(index, payment.getOrderId(), BatchItemOutcome.CREATED, response, null);
+            negativeLookupCache.registerPayment(payment.getId(), payment.getOrderId());
+            readYourWrites.recordWrite(payment.getId(), payment.getOrderId());
+            paymentCache.put(response);
+            eventPublisher.publishEvent(
+                    new PaymentStatusChange(payment.getId(), payment.getOrderId(), PaymentStatus.PENDING, now));
         }
     }
 
-    @Cacheable(value = "payments", key = "#id")
+    @Cacheable(value = "payments", key = "#id", sync = true)
+    @ShardKey(paymentId = "#id")
     public PaymentResponse getPayment(UUID id) {
-        log.info("Fetching payment {}", id);
+        log.atDebug().addKeyValue("paymentId", id).log("Fetching payment");
+
+        if (negativeLookupCache.isKnownMissing(id)) {
+            throw new PaymentNotFoundException("Payment with id [%s] not found.".formatted(id));
+        }
 
-        Payment payment = paymentRepository.findById(id)
+        Payment payment = readYourWrites.read(id, () -> paymentRepository.findById(id))
                 .orElseThrow(() -> {
-                log.warn("Payment {} not found", id);
+                log.atDebug().addKeyValue("paymentId", id).log("Payment not found");
+                negativeLookupCache.recordMissing(id);
                 return new PaymentNotFoundException("Payment with id [%s] not found.".formatted(id));
                 });
 
         return toResponse(payment);
     }
 
-    @Cacheable(value = "payments", key = "'order-' + #orderId")
+    @Cacheable(value = "payments", key = "'order-' + #orderId", sync = true)
+    @ShardKey(orderId = "#orderId")
     public PaymentResponse getPaymentByOrderId(UUID orderId) {
-        log.info("Fetching payment for order {}", orderId);
+        log.atDebug().addKeyValue("orderId", orderId).log("Fetching payment by order");
 
-        Payment payment = paymentRepository.findByOrderId(orderId)
+        if (negativeLookupCache.isKnownMissingOrder(orderId)) {
+            throw new PaymentNotFoundException("Payment for order [%s] not found.".formatted(orderId));
+        }
+
+        Payment payment = readYourWrites.read(PaymentCache.orderKey(orderId),
+                        () -> paymentRepository.findByOrderId(orderId))
                 .orElseThrow(() -> {
-                    log.warn("Payment for order {} not found", orderId);
+                    log.atDebug().addKeyValue("orderId", orderId).log("Payment not found");
+                    negativeLookupCache.recordMissingOrder(orderId);
                     return new PaymentNotFoundException("Payment for order [%s] not found.".formatted(orderId));
                 });
 
         return toResponse(payment);
     }
 
+    // Every shard returns its first limit + 1 rows in (createdOn, id) order; merging them gives the global page.
+    public PaymentPageResponse listPayments(PaymentSearchRequest request) {
+        PaymentCursor cursor = request.getAfter() == null ? null : PaymentCursor.decode(request.getAfter());
+
+        PaymentSearchCriteria criteria = PaymentSearchCriteria.builder()
+                .status(request.getStatus())
+                .method(request.getMethod())
+                .from(request.getFrom())
+                .to(request.getTo())
+                .afterCreatedOn(cursor == null ? null : cursor.getCreatedOn())
+                .afterId(cursor == null ? null : cursor.getId())
+                .build();
+
+        int limit = request.getLimit();
+        List<List<PaymentSummary>> perShard = paymentShards.scatter(shard -> paymentRepository.search(criteria, limit + 1));
+        List<PaymentSummary> rows = perShard.size() == 1
+                ? perShard.get(0)
+                : perShard.stream()
+                        .flatMap(List::stream)
+                        .sorted(SEARCH_ORDER)
+                        .limit(limit + 1)
+                        .toList();
+
+        boolean hasMore = rows.size() > limit;
+        List<PaymentSummary> page = hasMore ? rows.subList(0, limit) : rows;
+
+        String nextCursor = null;
+        if (hasMore) {
+            PaymentSummary last = page.get(page.size() - 1);
+            nextCursor = new PaymentCursor(last.getCreatedOn(), last.getId()).encode();
+        }
+
+        return PaymentPageResponse.builder()
+                .items(page.stream().map(PaymentService::toResponse).toList())
+                .nextCursor(nextCursor)
+                .build();
+    }
+
     @Transactional
-    @CacheEvict(value = "payments", allEntries = true)
+    @Caching(put = {
+            @CachePut(value = "payments", key = "#result.id", unless = "#result == null"),
+            @CachePut(value = "payments", key = "'order-' + #result.orderId", unless = "#result == null")
+    })
+    @ShardKey(paymentId = "#paymentId")
     public PaymentResponse updateStatus(UUID paymentId, PaymentStatusUpdateRequest request) {
-        log.info("Updating payment {} status to {}", paymentId, request.getStatus());
+        PaymentStatus target = request.getStatus();
+        log.atDebug().addKeyValue("paymentId", paymentId).addKeyValue("status", target).log("Updating payment status");
 
-        Payment payment = paymentRepository.findById(paymentId)
+        PaymentSummary current = paymentRepository.findSummaryById(paymentId)
                 .orElseThrow(() -> {
-                    log.warn("Payment {} not found for status update", paymentId);
+                    log.atDebug().addKeyValue("paymentId", paymentId).log("Payment not found for status update");
                     return new PaymentNotFoundException("Payment with id [%s] not found.".formatted(paymentId));
                 });
 
-        payment.setStatus(request.getStatus());
-        payment.setUpdatedOn(LocalDateTime.now());
+        if (current.getStatus() == target) {
+            log.atDebug().addKeyValue("paymentId", paymentId).addKeyValue("status", target).log("Payment already has status");
+            return toResponse(current);
+        }
 
-        Payment saved = paymentRepository.save(payment);
+        if (!current.getStatus().canTransitionTo(target)) {
+            paymentCache.evict(paymentId, current.getOrderId());
+            throw new PaymentStatusConflictException("Payment [%s] cannot move from %s to %s."
+                    .formatted(paymentId, current.getStatus(), target));
+        }
 
-        log.info("Payment {} status updated to {}", saved.getId(), saved.getStatus());
-        return toResponse(saved);
+        LocalDateTime now = transitionTimestamp();
+        if (paymentRepository.compareAndSetStatus(paymentId, current.getStatus(), target, now) == 0) {
+            log.atDebug()
+                    .addKeyValue("paymentId", paymentId)
+                    .addKeyValue("status", current.getStatus())
+                    .addKeyValue("target", target)
+                    .log("Payment status changed concurrently");
+            paymentCache.evict(paymentId, current.getOrderId());
+            throw new PaymentStatusConflictException("Payment [%s] is no longer %s; it was changed concurrently."
+                    .formatted(paymentId, current.getStatus()));
+        }
+
+        paymentOutboxRepository.appendTransitions(List.of(paymentId), target, now);
+        paymentStatsService.recordTransitions(List.of(paymentId), current.getStatus(), target, now);
+        eventPublisher.publishEvent(new PaymentStatusChange(paymentId, current.getOrderId(), target, now));
+
+        PaymentResponse response = toResponse(current);
+        response.setStatus(target);
+        response.setUpdatedOn(now);
+
+        log.atDebug().addKeyValue("paymentId", paymentId).addKeyValue("status", target).log("Payment status updated");
+        return response;
+    }
+
+    // Used by the async processing queue: one UPDATE per shard, then evicts what it moved.
+    public int processPayments(Collection<UUID> paymentIds) {
+        int updated = transitionPending(paymentIds, PaymentStatus.SUCCESSFUL);
+
+        log.info("Processed {} of {} queued payments", updated, paymentIds.size());
+        return updated;
+    }
+
+    // Used by the expiry engine once the payments' deadlines have passed.
+    public int expirePayments(Collection<UUID> paymentIds) {
+        int updated = transitionPending(paymentIds, PaymentStatus.FAILED);
+
+        log.debug("Expired {} of {} due payments", updated, paymentIds.size());
+        return updated;
+    }
+
+    private int transitionPending(Collection<UUID> paymentIds, PaymentStatus target) {
+        int updated = 0;
+        for (Map.Entry<Integer, List<UUID>> shard : paymentShards.partition(paymentIds, paymentShards::ofPayment).entrySet()) {
+            updated += paymentShards.on(shard.getKey(),
+                    () -> transactionTemplate.execute(tx -> transitionPendingOnShard(shard.getValue(), target)));
+        }
+        return updated;
+    }
+
+    private int transitionPendingOnShard(List<UUID> paymentIds, PaymentStatus target) {
+        List<PaymentKey> pending = paymentRepository.findKeysByIdInAndStatus(paymentIds, PaymentStatus.PENDING);
+        if (pending.isEmpty()) {
+            log.debug("None of {} payments were still PENDING", paymentIds.size());
+            return 0;
+        }
+
+        List<UUID> ids = pending.stream().map(PaymentKey::getId).toList();
+        LocalDateTime now = transitionTimestamp();
+
+        int updated = paymentRepository.transitionStatus(ids, PaymentStatus.PENDING, target, now);
+        if (updated > 0) {
+            paymentOutboxRepository.appendTransitions(ids, target, now);
+            paymentStatsService.recordTransitions(ids, PaymentStatus.PENDING, target, now);
+
+            List<PaymentKey> moved = updated == pending.size()
+                    ? pending
+                    : paymentRepository.findKeysByIdInAndStatus(ids, target);
+            moved.forEach(key -> eventPublisher.publishEvent(
+                    new PaymentStatusChange(key.getId(), key.getOrderId(), target, now)));
+        }
+
+        pending.forEach(key -> paymentCache.evictAfterCommit(key.getId(), key.getOrderId()));
+        return updated;
     }
 
-    private PaymentResponse toResponse(Payment payment) {
+    private String validate(PaymentRequest request) {
+        if (request == null) {
+            return "payment must not be null";
+        }
+
+        Set<ConstraintViolation<PaymentRequest>> violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            return null;
+        }
+
+        return violations.stream()
+                .map(v -> v.getPropertyPath() + " " + v.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+    // The outbox matches transitioned rows by updated_on, so keep it at the column's precision.
+    private static LocalDateTime transitionTimestamp() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    private static BatchPaymentItemResult itemResult(int index, UUID orderId, BatchItemOutcome outcome,
+                                                     PaymentResponse payment, String message) {
+        return BatchPaymentItemResult.builder()
+                .index(index)
+                .orderId(orderId)
+                .outcome(outcome)
+                .payment(payment)
+                .message(message)
+                .build();
+    }
+
+    private static int count(List<BatchPaymentItemResult> items, BatchItemOutcome outcome) {
+        return (int) items.stream().filter(item -> item.getOutcome() == outcome).count();
+    }
+
+    public static PaymentResponse toResponse(PaymentSummary payment) {
+        return PaymentResponse.builder()
+                .id(payment.getId())
+                .orderId(payment.getOrderId())
+                .amount(payment.getAmount())
+                .status(payment.getStatus())
+                .method(payment.getMethod())
+                .createdOn(payment.getCreatedOn())
+                .updatedOn(payment.getUpdatedOn())
+                .build();
+    }
+
+    public static PaymentResponse toResponse(Payment payment) {
         return PaymentResponse.builder()
                 .id(payment.getId())
                 .orderId(payment.getOrderId())
@@ -128,25 +476,38 @@ public class PaymentService {
     }
 
     @Transactional
-    @CacheEvict(value = "payments", allEntries = true)
+    @Caching(put = {
+            @CachePut(value = "payments", key = "#result.id", unless = "#result == null"),
+            @CachePut(value = "payments", key = "'order-' + #result.orderId", unless = "#result == null")
+    })
+    @ShardKey(paymentId = "#paymentId")
     public PaymentResponse processPayment(UUID paymentId) {
-        log.info("Processing payment {}", paymentId);
+        log.atDebug().addKeyValue("paymentId", paymentId).log("Processing payment");
+
+        LocalDateTime now = transitionTimestamp();
+        int updated = paymentRepository.compareAndSetStatus(
+                paymentId, PaymentStatus.PENDING, PaymentStatus.SUCCESSFUL, now);
+        if (updated == 1) {
+            paymentOutboxRepository.appendTransitions(List.of(paymentId), PaymentStatus.SUCCESSFUL, now);
+            paymentStatsService.recordTransitions(
+                    List.of(paymentId), PaymentStatus.PENDING, PaymentStatus.SUCCESSFUL, now);
+        }
 
-        Payment payment = paymentRepository.findById(paymentId)
+        PaymentSummary payment = paymentRepository.findSummaryById(paymentId)
                 .orElseThrow(() -> {
-                    log.warn("Payment {} not found for processing", paymentId);
+                    log.atDebug().addKeyValue("paymentId", paymentId).log("Payment not found for processing");
                     return new PaymentNotFoundException("Payment with id [%s] not found.".formatted(paymentId));
                 });
 
-        if (payment.getStatus() == PaymentStatus.PENDING) {
-            log.info("Payment {} is PENDING. Marking as SUCCESSFUL.", paymentId);
-            payment.setStatus(PaymentStatus.SUCCESSFUL);
-            payment.setUpdatedOn(LocalDateTime.now());
-            payment = paymentRepository.save(payment);
-            log.info("Payment {} processed successfully", paymentId);
+        if (updated == 1) {
+            eventPublisher.publishEvent(
+                    new PaymentStatusChange(paymentId, payment.getOrderId(), PaymentStatus.SUCCESSFUL, now));
+            log.atDebug().addKeyValue("paymentId", paymentId).log("Payment processed");
         } else {
-            log.warn("Payment {} processed but status is {} (only PENDING gets changed).",
-                    paymentId, payment.getStatus());
+            log.atDebug()
+                    .addKeyValue("paymentId", paymentId)
+                    .addKeyValue("status", payment.getStatus())
+                    .log("Payment not processed, only PENDING payments are");
         }
         return toResponse(payment);
     }
@@ -0,0 +1,160 @@
+package bg.softuni.paymentsvc.payments.sharding;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+// Payments live on the shard picked by a hash of their orderId, and that shard is stamped into the last byte
+// of the payment id, so lookups by either key go to exactly one database.
+@Component
+public class PaymentShards implements DisposableBean {
+
+    private static final int MAX_SHARDS = 256;
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private final int count;
+    private final ExecutorService scatter;
+
+    public PaymentShards(ShardingProperties properties) {
+        this.count = properties.isEnabled() ? properties.getShards().size() + 1 : 1;
+        if (count > MAX_SHARDS) {
+            throw new IllegalStateException("At most %d payment shards are supported.".formatted(MAX_SHARDS));
+        }
+        this.scatter = count > 1
+                ? Executors.newFixedThreadPool(count, new CustomizableThreadFactory("payment-shard-"))
+                : null;
+    }
+
+    public static Integer current() {
+        return CURRENT.get();
+    }
+
+    public static UUID tag(UUID id, int shard) {
+        return new UUID(id.getMostSignificantBits(), (id.getLeastSignificantBits() & ~0xFFL) | shard);
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public int ofOrder(UUID orderId) {
+        return count == 1 ? 0 : (int) Math.floorMod(mix(orderId.getMostSignificantBits() ^ orderId.getLeastSignificantBits()), count);
+    }
+
+    // Ids that were not issued by this service land on an arbitrary shard and simply are not found there.
+    public int ofPayment(UUID paymentId) {
+        return count == 1 ? 0 : (int) (paymentId.getLeastSignificantBits() & 0xFF) % count;
+    }
+
+    public UUID newPaymentId(UUID randomId, UUID orderId) {
+        return count == 1 ? randomId : tag(randomId, ofOrder(orderId));
+    }
+
+    public <K> Map<Integer, List<K>> partition(Collection<K> keys, Function<K, Integer> shardOf) {
+        Map<Integer, List<K>> byShard = new TreeMap<>();
+        for (K key : keys) {
+            byShard.computeIfAbsent(shardOf.apply(key), shard -> new ArrayList<>()).add(key);
+        }
+        return byShard;
+    }
+
+    public <T> T on(int shard, Supplier<T> work) {
+        if (count == 1) {
+            return work.get();
+        }
+
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        try {
+            return work.get();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    public void forEach(IntConsumer work) {
+        for (int shard = 0; shard < count; shard++) {
+            int current = shard;
+            on(current, () -> {
+                work.accept(current);
+                return null;
+            });
+        }
+    }
+
+    // Runs the work on every shard in parallel and returns the results by shard index.
+    public <T> List<T> scatter(IntFunction<T> work) {
+        if (count == 1) {
+            return List.of(work.apply(0));
+        }
+
+        List<Future<T>> futures = new ArrayList<>(count);
+        for (int shard = 0; shard < count; shard++) {
+            int current = shard;
+            futures.add(scatter.submit(() -> on(current, () -> work.apply(current))));
+        }
+
+        List<T> results = new ArrayList<>(count);
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for payment shards.", e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        return results;
+    }
+
+    @Override
+    public void destroy() {
+        if (scatter != null) {
+            scatter.shutdownNow();
+        }
+    }
+
+    static Integer bind(int shard) {
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        return previous;
+    }
+
+    static void restore(Integer previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
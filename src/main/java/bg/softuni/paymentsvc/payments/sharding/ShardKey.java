@@ -0,0 +1,16 @@
+package bg.softuni.paymentsvc.payments.sharding;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Binds the call to one payment shard; set exactly one of the SpEL expressions, as with cache keys.
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ShardKey {
+
+    String paymentId() default "";
+
+    String orderId() default "";
+}
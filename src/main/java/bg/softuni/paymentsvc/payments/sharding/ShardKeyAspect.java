@@ -0,0 +1,71 @@
+package bg.softuni.paymentsvc.payments.sharding;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.expression.MethodBasedEvaluationContext;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.Ordered;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.core.annotation.Order;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Runs inside the cache and bulkhead, but outside the transaction interceptor: the shard has to be bound
+// before the transaction takes its connection.
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 3)
+@ConditionalOnProperty(prefix = "payments.sharding", name = "enabled", havingValue = "true")
+public class ShardKeyAspect {
+
+    private final PaymentShards shards;
+    private final SpelExpressionParser parser = new SpelExpressionParser();
+    private final ParameterNameDiscoverer parameterNames = new DefaultParameterNameDiscoverer();
+    private final Map<String, Expression> expressions = new ConcurrentHashMap<>();
+
+    public ShardKeyAspect(PaymentShards shards) {
+        this.shards = shards;
+    }
+
+    @Around("@annotation(shardKey)")
+    public Object route(ProceedingJoinPoint joinPoint, ShardKey shardKey) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        MethodBasedEvaluationContext context =
+                new MethodBasedEvaluationContext(null, method, joinPoint.getArgs(), parameterNames);
+
+        int shard = shardKey.paymentId().isEmpty()
+                ? shards.ofOrder(evaluate(shardKey.orderId(), context))
+                : shards.ofPayment(evaluate(shardKey.paymentId(), context));
+
+        Integer previous = PaymentShards.current();
+        if (previous != null && previous != shard && TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("%s needs shard %d inside a transaction on shard %d."
+                    .formatted(method.getName(), shard, previous));
+        }
+
+        PaymentShards.bind(shard);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            PaymentShards.restore(previous);
+        }
+    }
+
+    private UUID evaluate(String expression, MethodBasedEvaluationContext context) {
+        UUID key = expressions.computeIfAbsent(expression, parser::parseExpression).getValue(context, UUID.class);
+        if (key == null) {
+            throw new IllegalArgumentException("Shard key [%s] evaluated to null.".formatted(expression));
+        }
+        return key;
+    }
+}
@@ -0,0 +1,28 @@
+package bg.softuni.paymentsvc.payments.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import java.io.Closeable;
+import java.util.List;
+
+// Work that is not bound to a shard (schema setup, bootstrap queries) runs on shard 0.
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    private final List<HikariDataSource> ownedShards;
+
+    public ShardRoutingDataSource(List<HikariDataSource> ownedShards) {
+        this.ownedShards = List.copyOf(ownedShards);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Integer shard = PaymentShards.current();
+        return shard == null ? 0 : shard;
+    }
+
+    @Override
+    public void close() {
+        ownedShards.forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,27 @@
+package bg.softuni.paymentsvc.payments.sharding;
+
+import bg.softuni.paymentsvc.payments.service.PaymentIdGenerator;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.EventTypeSets;
+
+import java.util.EnumSet;
+import java.util.UUID;
+
+// Time-ordered UUID for entities saved through JPA, tagged with the shard the saving thread is bound to.
+public class ShardTaggedIdGenerator implements BeforeExecutionGenerator {
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue,
+                           EventType eventType) {
+        UUID id = PaymentIdGenerator.nextTimeOrderedId();
+        Integer shard = PaymentShards.current();
+        return shard == null ? id : PaymentShards.tag(id, shard);
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return EventTypeSets.INSERT_ONLY;
+    }
+}
@@ -0,0 +1,96 @@
+package bg.softuni.paymentsvc.payments.sharding;
+
+import bg.softuni.paymentsvc.payments.routing.ReplicaRoutingProperties;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.Flyway;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
+@Configuration
+@Profile("!reactive")
+@ConditionalOnProperty(prefix = "payments.sharding", name = "enabled", havingValue = "true")
+public class ShardingConfig {
+
+    public ShardingConfig(ReplicaRoutingProperties routingProperties) {
+        if (routingProperties.isEnabled()) {
+            throw new IllegalStateException("payments.sharding and payments.routing cannot be enabled together.");
+        }
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource shardZeroDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @Primary
+    public ShardRoutingDataSource dataSource(HikariDataSource shardZeroDataSource,
+                                             DataSourceProperties dataSourceProperties,
+                                             ShardingProperties properties,
+                                             MeterRegistry meterRegistry) {
+        List<HikariDataSource> shards = new ArrayList<>();
+        for (ShardingProperties.Shard shard : properties.getShards()) {
+            HikariDataSource pool = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(shard.getUrl())
+                    .username(shard.getUsername() != null
+                            ? shard.getUsername() : dataSourceProperties.determineUsername())
+                    .password(shard.getPassword() != null
+                            ? shard.getPassword() : dataSourceProperties.determinePassword())
+                    .build();
+            pool.setPoolName("payment-shard-" + (shards.size() + 1));
+            pool.setMaximumPoolSize(shard.getMaximumPoolSize());
+            pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            shards.add(pool);
+        }
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(0, shardZeroDataSource);
+        for (int i = 0; i < shards.size(); i++) {
+            targets.put(i + 1, shards.get(i));
+        }
+
+        ShardRoutingDataSource dataSource = new ShardRoutingDataSource(shards);
+        dataSource.setTargetDataSources(targets);
+        dataSource.setDefaultTargetDataSource(shardZeroDataSource);
+        dataSource.setLenientFallback(false);
+
+        log.info("Payments are sharded across {} databases", targets.size());
+        return dataSource;
+    }
+
+    // Flyway is configured against the routing DataSource, which reaches shard 0; the other shards are
+    // migrated with the same settings right after it.
+    @Bean
+    public FlywayMigrationStrategy shardedFlywayMigration(ShardRoutingDataSource dataSource) {
+        return flyway -> {
+            flyway.migrate();
+            dataSource.getResolvedDataSources().forEach((shard, target) -> {
+                if (!Integer.valueOf(0).equals(shard)) {
+                    Flyway.configure()
+                            .configuration(flyway.getConfiguration())
+                            .dataSource(target)
+                            .load()
+                            .migrate();
+                }
+            });
+        };
+    }
+}
@@ -0,0 +1,34 @@
+package bg.softuni.paymentsvc.payments.sharding;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "payments.sharding")
+public class ShardingProperties {
+
+    private boolean enabled = false;
+
+    // spring.datasource is shard 0; shards[i] becomes shard i + 1. The count is baked into every
+    // payment's shard, so changing it needs a data migration.
+    private List<Shard> shards = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class Shard {
+
+        private String url;
+
+        // Fall back to spring.datasource.username / password.
+        private String username;
+
+        private String password;
+
+        private int maximumPoolSize = 10;
+    }
+}
@@ -0,0 +1,53 @@
+package bg.softuni.paymentsvc.payments.stats;
+
+import bg.softuni.paymentsvc.payments.model.PaymentStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Count and amount of the payments created in one hour that now have the given status and method.
+// Each bucket is spread over a few slots, so concurrent writers rarely wait on the same row; readers add them up.
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@IdClass(HourlyPaymentStats.Key.class)
+@Table(name = "payment_stats_hourly")
+public class HourlyPaymentStats {
+
+    @Id
+    private LocalDateTime hourStart;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    private PaymentStatus status;
+
+    @Id
+    private String method;
+
+    @Id
+    private int slot;
+
+    @Column(nullable = false)
+    private long paymentCount;
+
+    @Column(nullable = false)
+    private BigDecimal amountTotal;
+
+    @Getter
+    @Setter
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Key implements Serializable {
+
+        private LocalDateTime hourStart;
+        private PaymentStatus status;
+        private String method;
+        private int slot;
+    }
+}
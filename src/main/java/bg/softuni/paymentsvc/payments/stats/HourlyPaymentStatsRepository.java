@@ -0,0 +1,74 @@
+package bg.softuni.paymentsvc.payments.stats;
+
+import bg.softuni.paymentsvc.payments.model.PaymentStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+// The counts are computed from the payment rows themselves, inside the caller's transaction, so they move
+// exactly with the changes that commit.
+public interface HourlyPaymentStatsRepository extends JpaRepository<HourlyPaymentStats, HourlyPaymentStats.Key> {
+
+    // Start of the hour p.created_on falls in. TIMESTAMPDIFF and TIMESTAMPADD behave the same on MySQL and H2.
+    String HOUR_START = "TIMESTAMPADD(HOUR, TIMESTAMPDIFF(HOUR, TIMESTAMP '2000-01-01 00:00:00', p.created_on), "
+            + "TIMESTAMP '2000-01-01 00:00:00')";
+
+    String ADD_TO_EXISTING = """
+             ON DUPLICATE KEY UPDATE
+                payment_count = payment_count + VALUES(payment_count),
+                amount_total = amount_total + VALUES(amount_total)
+            """;
+
+    // Counts payments the caller's transaction just created, under their current status.
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Modifying
+    @Query(value = """
+            INSERT INTO payment_stats_hourly (hour_start, status, method, slot, payment_count, amount_total)
+            SELECT t.hour_start, t.status, t.method, :slot, COUNT(*), SUM(t.amount)
+            FROM (SELECT\s""" + HOUR_START + """
+             AS hour_start, p.status, p.method, p.amount FROM payment p WHERE p.id IN (:ids)) t
+            GROUP BY t.hour_start, t.status, t.method
+            """ + ADD_TO_EXISTING, nativeQuery = true)
+    int addCreated(Collection<UUID> ids, int slot);
+
+    // Adds `sign` times the rows the caller's transaction just moved to :status to the :bucket counts. Like the
+    // outbox, the moved rows are the ones stamped with exactly :updatedOn.
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Modifying
+    @Query(value = """
+            INSERT INTO payment_stats_hourly (hour_start, status, method, slot, payment_count, amount_total)
+            SELECT t.hour_start, :#{#bucket.name()}, t.method, :slot, COUNT(*) * :sign, SUM(t.amount) * :sign
+            FROM (SELECT\s""" + HOUR_START + """
+             AS hour_start, p.method, p.amount FROM payment p
+                  WHERE p.id IN (:ids) AND p.status = :#{#status.name()} AND p.updated_on = :updatedOn) t
+            GROUP BY t.hour_start, t.method
+            """ + ADD_TO_EXISTING, nativeQuery = true)
+    int addTransitions(Collection<UUID> ids, PaymentStatus status, LocalDateTime updatedOn,
+                       PaymentStatus bucket, int sign, int slot);
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Modifying
+    @Query(value = "DELETE FROM payment_stats_hourly", nativeQuery = true)
+    int deleteAllHours();
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Modifying
+    @Query(value = """
+            INSERT INTO payment_stats_hourly (hour_start, status, method, slot, payment_count, amount_total)
+            SELECT t.hour_start, t.status, t.method, 0, COUNT(*), SUM(t.amount)
+            FROM (SELECT\s""" + HOUR_START + """
+             AS hour_start, p.status, p.method, p.amount FROM payment p) t
+            GROUP BY t.hour_start, t.status, t.method
+            """, nativeQuery = true)
+    int insertFromPayments();
+
+    List<HourlyPaymentStats> findByHourStartGreaterThanEqualAndHourStartLessThan(LocalDateTime from,
+                                                                                 LocalDateTime to);
+}
@@ -0,0 +1,22 @@
+package bg.softuni.paymentsvc.payments.stats;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+// POST /actuator/paymentstats rebuilds the stats from the payment table.
+@Component
+@Endpoint(id = "paymentstats")
+@RequiredArgsConstructor
+public class PaymentStatsEndpoint {
+
+    private final PaymentStatsService paymentStatsService;
+
+    @WriteOperation
+    public Map<String, Long> rebuild() {
+        return Map.of("rows", paymentStatsService.rebuild());
+    }
+}
@@ -0,0 +1,27 @@
+package bg.softuni.paymentsvc.payments.stats;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "payments.stats")
+public class PaymentStatsProperties {
+
+    // Rows per (hour, status, method). Each write picks one at random, so more slots mean less lock waiting
+    // between concurrent writers and a few more rows to add up per read.
+    private int slots = 8;
+
+    // Longest window one stats request may cover.
+    private Duration maxWindow = Duration.ofDays(31);
+
+    public void setSlots(int slots) {
+        if (slots < 1 || slots > 64) {
+            throw new IllegalArgumentException("payments.stats.slots must be between 1 and 64");
+        }
+        this.slots = slots;
+    }
+}
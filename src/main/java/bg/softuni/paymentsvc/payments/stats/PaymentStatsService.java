@@ -0,0 +1,133 @@
+package bg.softuni.paymentsvc.payments.stats;
+
+import bg.softuni.paymentsvc.payments.model.PaymentStatus;
+import bg.softuni.paymentsvc.payments.sharding.PaymentShards;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentStatsBucket;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentStatsResponse;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentStatsTotal;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Hourly payment totals kept in payment_stats_hourly. Every write path records its change in the same transaction
+// as the payment rows, so reading stats costs the same however many payments there are.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PaymentStatsService {
+
+    private final HourlyPaymentStatsRepository statsRepository;
+    private final PaymentStatsProperties properties;
+    private final PaymentShards paymentShards;
+    private final TransactionTemplate transactionTemplate;
+
+    // Called in the transaction that created the payments.
+    public void recordCreated(Collection<UUID> paymentIds) {
+        statsRepository.addCreated(paymentIds, nextSlot());
+    }
+
+    // Called in the transaction that moved the payments from `from` to `to`, with the updated_on it stamped.
+    // The source bucket is always written first, so two writers lock shared rows in the same order.
+    public void recordTransitions(Collection<UUID> paymentIds,
+                                  PaymentStatus from,
+                                  PaymentStatus to,
+                                  LocalDateTime updatedOn) {
+        int slot = nextSlot();
+        statsRepository.addTransitions(paymentIds, to, updatedOn, from, -1, slot);
+        statsRepository.addTransitions(paymentIds, to, updatedOn, to, 1, slot);
+    }
+
+    // Whole hours only: from is rounded down and to up. Defaults to the last 24 hours.
+    public PaymentStatsResponse getStats(LocalDateTime from, LocalDateTime to) {
+        LocalDateTime end = to == null ? ceilHour(LocalDateTime.now()) : ceilHour(to);
+        LocalDateTime start = from == null ? end.minusHours(24) : from.truncatedTo(ChronoUnit.HOURS);
+
+        if (Duration.between(start, end).compareTo(properties.getMaxWindow()) > 0) {
+            throw new IllegalArgumentException(
+                    "Stats window must not exceed %s.".formatted(properties.getMaxWindow()));
+        }
+
+        // Hour -> status -> method, summed over slots and shards.
+        Map<LocalDateTime, Map<PaymentStatus, Map<String, PaymentStatsTotal>>> hours = new TreeMap<>();
+        paymentShards.scatter(shard -> statsRepository.findByHourStartGreaterThanEqualAndHourStartLessThan(start, end))
+                .forEach(rows -> rows.forEach(row -> add(hours
+                                .computeIfAbsent(row.getHourStart(), hour -> new EnumMap<>(PaymentStatus.class))
+                                .computeIfAbsent(row.getStatus(), status -> new TreeMap<>())
+                                .computeIfAbsent(row.getMethod(), method -> emptyTotal()),
+                        row.getPaymentCount(), row.getAmountTotal())));
+
+        PaymentStatsTotal total = emptyTotal();
+        Map<PaymentStatus, PaymentStatsTotal> byStatus = new EnumMap<>(PaymentStatus.class);
+        Map<String, PaymentStatsTotal> byMethod = new TreeMap<>();
+        List<PaymentStatsBucket> hourly = new ArrayList<>();
+
+        hours.forEach((hour, statuses) -> statuses.forEach((status, methods) -> methods.forEach((method, sum) -> {
+            // A bucket whose payments all moved on nets out to zero.
+            if (sum.getCount() == 0) {
+                return;
+            }
+            add(total, sum.getCount(), sum.getAmount());
+            add(byStatus.computeIfAbsent(status, s -> emptyTotal()), sum.getCount(), sum.getAmount());
+            add(byMethod.computeIfAbsent(method, m -> emptyTotal()), sum.getCount(), sum.getAmount());
+            hourly.add(PaymentStatsBucket.builder()
+                    .hour(hour)
+                    .status(status)
+                    .method(method)
+                    .count(sum.getCount())
+                    .amount(sum.getAmount())
+                    .build());
+        })));
+
+        return PaymentStatsResponse.builder()
+                .from(start)
+                .to(end)
+                .total(total)
+                .byStatus(byStatus)
+                .byMethod(byMethod)
+                .hourly(hourly)
+                .build();
+    }
+
+    // Recomputes the stats of every shard from its payment table, e.g. after a bulk fix made directly in the
+    // database. Each shard's stats are locked until its rebuild commits, so run it when traffic is low.
+    public long rebuild() {
+        long started = System.currentTimeMillis();
+        long rows = paymentShards.scatter(shard -> transactionTemplate.execute(tx -> {
+                    statsRepository.deleteAllHours();
+                    return statsRepository.insertFromPayments();
+                }))
+                .stream()
+                .mapToLong(Integer::longValue)
+                .sum();
+
+        log.info("Rebuilt payment stats: {} rows in {} ms", rows, System.currentTimeMillis() - started);
+        return rows;
+    }
+
+    // The slot one write should add to. Also used by the reactive stack, which writes the same rows over R2DBC.
+    public int nextSlot() {
+        return ThreadLocalRandom.current().nextInt(properties.getSlots());
+    }
+
+    private static LocalDateTime ceilHour(LocalDateTime time) {
+        LocalDateTime hour = time.truncatedTo(ChronoUnit.HOURS);
+        return hour.equals(time) ? hour : hour.plusHours(1);
+    }
+
+    private static PaymentStatsTotal emptyTotal() {
+        return new PaymentStatsTotal(0, BigDecimal.ZERO);
+    }
+
+    private static void add(PaymentStatsTotal total, long count, BigDecimal amount) {
+        total.setCount(total.getCount() + count);
+        total.setAmount(total.getAmount().add(amount));
+    }
+}
@@ -0,0 +1,18 @@
+package bg.softuni.paymentsvc.payments.watch;
+
+import bg.softuni.paymentsvc.payments.model.PaymentStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Getter
+@AllArgsConstructor
+public class PaymentStatusChange {
+
+    private final UUID paymentId;
+    private final UUID orderId;
+    private final PaymentStatus status;
+    private final LocalDateTime updatedOn;
+}
@@ -0,0 +1,152 @@
+package bg.softuni.paymentsvc.payments.watch;
+
+import bg.softuni.paymentsvc.payments.exception.PaymentServiceBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+// Waiters are plain callbacks keyed by payment id; nothing here holds a thread while a client waits.
+// Notifications run on a small bounded pool, so a slow client never delays the transaction that woke it.
+@Slf4j
+@Component
+public class PaymentStatusWatcher implements DisposableBean {
+
+    private final ConcurrentMap<UUID, Set<Waiter>> listeners = new ConcurrentHashMap<>();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final PaymentWatchProperties properties;
+    private final Executor notifier;
+    private final Counter dropped;
+
+    @Autowired
+    public PaymentStatusWatcher(PaymentWatchProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, new ThreadPoolExecutor(
+                properties.getNotifyThreads(), properties.getNotifyThreads(), 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.getNotifyQueueCapacity()),
+                new CustomizableThreadFactory("payment-watch-")));
+    }
+
+    PaymentStatusWatcher(PaymentWatchProperties properties, MeterRegistry meterRegistry, Executor notifier) {
+        this.properties = properties;
+        this.notifier = notifier;
+        Gauge.builder("payments.watch.waiting", waiting, AtomicInteger::get)
+                .register(meterRegistry);
+        this.dropped = Counter.builder("payments.watch.dropped")
+                .description("Waiters closed because notifications could not keep up")
+                .register(meterRegistry);
+    }
+
+    public Runnable watch(UUID paymentId, Consumer<PaymentStatusChange> listener) {
+        return watch(paymentId, listener, () -> { });
+    }
+
+    // onDropped runs when the waiter is closed because notifications fell behind. It is called on the
+    // notifying thread, so it must only signal the client (complete the response), not block.
+    public Runnable watch(UUID paymentId, Consumer<PaymentStatusChange> listener, Runnable onDropped) {
+        if (waiting.incrementAndGet() > properties.getMaxWaiters()) {
+            waiting.decrementAndGet();
+            throw new PaymentServiceBusyException("Too many clients are waiting for payment updates. Please retry shortly.");
+        }
+
+        Waiter waiter = new Waiter(listener, onDropped);
+        listeners.compute(paymentId, (id, current) -> {
+            Set<Waiter> set = current != null ? current : ConcurrentHashMap.newKeySet();
+            set.add(waiter);
+            return set;
+        });
+
+        return () -> unwatch(paymentId, waiter);
+    }
+
+    // Fires once the writing transaction has committed, so a woken client never sees a rolled-back status.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStatusChange(PaymentStatusChange change) {
+        Set<Waiter> waiters = listeners.get(change.getPaymentId());
+        if (waiters == null) {
+            return;
+        }
+
+        for (Waiter waiter : waiters) {
+            try {
+                notifier.execute(() -> notify(waiter, change));
+            } catch (RejectedExecutionException e) {
+                drop(change.getPaymentId(), waiter);
+            }
+        }
+    }
+
+    public int getWaiting() {
+        return waiting.get();
+    }
+
+    @Override
+    public void destroy() {
+        if (notifier instanceof ExecutorService service) {
+            service.shutdownNow();
+        }
+    }
+
+    private static void notify(Waiter waiter, PaymentStatusChange change) {
+        try {
+            waiter.listener.accept(change);
+        } catch (RuntimeException e) {
+            log.debug("Could not notify a waiter for payment {}: {}", change.getPaymentId(), e.getMessage());
+        }
+    }
+
+    // The queue is full: rather than block the writer or lose the change silently, close the waiter so its
+    // client re-reads the payment.
+    private void drop(UUID paymentId, Waiter waiter) {
+        if (!unwatch(paymentId, waiter)) {
+            return;
+        }
+        dropped.increment();
+        try {
+            waiter.onDropped.run();
+        } catch (RuntimeException e) {
+            log.debug("Could not close a waiter for payment {}: {}", paymentId, e.getMessage());
+        }
+    }
+
+    private boolean unwatch(UUID paymentId, Waiter waiter) {
+        boolean[] removed = new boolean[1];
+        listeners.computeIfPresent(paymentId, (id, set) -> {
+            if (set.remove(waiter)) {
+                waiting.decrementAndGet();
+                removed[0] = true;
+            }
+            return set.isEmpty() ? null : set;
+        });
+        return removed[0];
+    }
+
+    // Identity equality on purpose: the same listener may be registered twice.
+    private static final class Waiter {
+
+        private final Consumer<PaymentStatusChange> listener;
+        private final Runnable onDropped;
+
+        private Waiter(Consumer<PaymentStatusChange> listener, Runnable onDropped) {
+            this.listener = listener;
+            this.onDropped = onDropped;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package bg.softuni.paymentsvc.payments.watch;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "payments.watch")
+public class PaymentWatchProperties {
+
+    private Duration defaultTimeout = Duration.ofSeconds(30);
+
+    private Duration maxTimeout = Duration.ofMinutes(2);
+
+    private Duration sseTimeout = Duration.ofMinutes(5);
+
+    private int maxWaiters = 20_000;
+
+    // Threads that deliver status changes to waiters, off the thread that committed them.
+    private int notifyThreads = 4;
+
+    // Notifications that may wait for those threads. Past this, waiters are closed instead of notified.
+    private int notifyQueueCapacity = 10_000;
+}
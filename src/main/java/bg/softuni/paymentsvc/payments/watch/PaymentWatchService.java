@@ -0,0 +1,152 @@
+package bg.softuni.paymentsvc.payments.watch;
+
+import bg.softuni.paymentsvc.payments.exception.PaymentNotFoundException;
+import bg.softuni.paymentsvc.payments.exception.PaymentServiceBusyException;
+import bg.softuni.paymentsvc.payments.model.PaymentStatus;
+import bg.softuni.paymentsvc.payments.repository.PaymentRepository;
+import bg.softuni.paymentsvc.payments.service.PaymentService;
+import bg.softuni.paymentsvc.payments.sharding.PaymentShards;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+@Slf4j
+@Service
+@Profile("!reactive")
+@RequiredArgsConstructor
+public class PaymentWatchService {
+
+    private final PaymentRepository paymentRepository;
+    private final PaymentShards paymentShards;
+    private final PaymentStatusWatcher watcher;
+    private final PaymentWatchProperties properties;
+
+    // Completes as soon as the payment reaches waitFor or a status from which waitFor is no longer reachable;
+    // on timeout it answers with whatever the payment looks like by then.
+    public DeferredResult<PaymentResponse> awaitStatus(UUID paymentId, PaymentStatus waitFor, Duration timeout) {
+        DeferredResult<PaymentResponse> result = new DeferredResult<>(waitTime(timeout).toMillis());
+
+        StatusFeed feed = new StatusFeed(response -> {
+            if (response.getStatus() == waitFor || !response.getStatus().canTransitionTo(waitFor)) {
+                result.setResult(response);
+            }
+        });
+        Runnable unwatch = watcher.watch(paymentId, feed, () -> result.setErrorResult(
+                new PaymentServiceBusyException("Too many payment updates to deliver. Please retry shortly.")));
+        result.onCompletion(unwatch);
+        result.onTimeout(() -> result.setResult(current(paymentId)));
+
+        start(feed, paymentId, unwatch);
+        if (result.hasResult()) {
+            unwatch.run();
+        }
+        return result;
+    }
+
+    // Sends the current state first, then every change, and completes once the payment is terminal.
+    public SseEmitter streamStatus(UUID paymentId) {
+        SseEmitter emitter = new SseEmitter(properties.getSseTimeout().toMillis());
+
+        StatusFeed feed = new StatusFeed(response -> {
+            try {
+                emitter.send(SseEmitter.event()
+                        .name("status")
+                        .id(response.getStatus().name())
+                        .data(response, MediaType.APPLICATION_JSON));
+                if (response.getStatus().isTerminal()) {
+                    emitter.complete();
+                }
+            } catch (IOException e) {
+                log.debug("Payment {} event stream closed: {}", paymentId, e.getMessage());
+                emitter.completeWithError(e);
+            }
+        });
+        // A dropped stream is just closed; EventSource clients reconnect and get the current status first.
+        Runnable unwatch = watcher.watch(paymentId, feed, emitter::complete);
+        emitter.onCompletion(unwatch);
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> unwatch.run());
+
+        start(feed, paymentId, unwatch);
+        return emitter;
+    }
+
+    private void start(StatusFeed feed, UUID paymentId, Runnable unwatch) {
+        try {
+            feed.start(current(paymentId));
+        } catch (RuntimeException e) {
+            unwatch.run();
+            throw e;
+        }
+    }
+
+    // Reads past the cache: it is only refreshed after commit, which is exactly when waiters get woken up.
+    private PaymentResponse current(UUID paymentId) {
+        return paymentShards.on(paymentShards.ofPayment(paymentId), () -> paymentRepository.findSummaryById(paymentId))
+                .map(PaymentService::toResponse)
+                .orElseThrow(() -> new PaymentNotFoundException("Payment with id [%s] not found.".formatted(paymentId)));
+    }
+
+    private Duration waitTime(Duration requested) {
+        if (requested == null) {
+            return properties.getDefaultTimeout();
+        }
+        if (requested.isNegative() || requested.isZero()) {
+            throw new IllegalArgumentException("timeout must be positive.");
+        }
+        return requested.compareTo(properties.getMaxTimeout()) > 0 ? properties.getMaxTimeout() : requested;
+    }
+
+    // The watcher is registered before the first read, so a change that commits in between is either
+    // visible to that read or delivered here; the lock keeps the two from interleaving.
+    private static final class StatusFeed implements Consumer<PaymentStatusChange> {
+
+        private final Consumer<PaymentResponse> sink;
+        private PaymentResponse latest;
+        private PaymentStatusChange early;
+
+        private StatusFeed(Consumer<PaymentResponse> sink) {
+            this.sink = sink;
+        }
+
+        synchronized void start(PaymentResponse current) {
+            latest = current;
+            sink.accept(current);
+            if (early != null) {
+                accept(early);
+            }
+        }
+
+        @Override
+        public synchronized void accept(PaymentStatusChange change) {
+            if (latest == null) {
+                early = change;
+                return;
+            }
+            if (change.getStatus() == latest.getStatus()) {
+                return;
+            }
+
+            latest = PaymentResponse.builder()
+                    .id(latest.getId())
+                    .orderId(latest.getOrderId())
+                    .amount(latest.getAmount())
+                    .status(change.getStatus())
+                    .method(latest.getMethod())
+                    .createdOn(latest.getCreatedOn())
+                    .updatedOn(change.getUpdatedOn())
+                    .build();
+            sink.accept(latest);
+        }
+    }
+}
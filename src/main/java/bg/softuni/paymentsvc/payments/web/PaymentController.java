@@ -1,47 +1,136 @@
 package bg.softuni.paymentsvc.payments.web;
 
+import bg.softuni.paymentsvc.payments.model.PaymentStatus;
+import bg.softuni.paymentsvc.payments.processing.PaymentProcessingQueue;
+import bg.softuni.paymentsvc.payments.web.dto.BatchPaymentResponse;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentAcceptedResponse;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentExportRequest;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentPageResponse;
 import bg.softuni.paymentsvc.payments.web.dto.PaymentRequest;
 import bg.softuni.paymentsvc.payments.web.dto.PaymentResponse;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentSearchRequest;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentStatsRequest;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentStatsResponse;
 import bg.softuni.paymentsvc.payments.web.dto.PaymentStatusUpdateRequest;
+import bg.softuni.paymentsvc.payments.service.PaymentExportService;
 import bg.softuni.paymentsvc.payments.service.PaymentService;
+import bg.softuni.paymentsvc.payments.stats.PaymentStatsService;
+import bg.softuni.paymentsvc.payments.watch.PaymentWatchService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.format.annotation.DurationFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
 import java.util.UUID;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("/api/v1/payments")
 @RequiredArgsConstructor
 public class PaymentController {
 
     private final PaymentService paymentService;
+    private final PaymentExportService paymentExportService;
+    private final PaymentStatsService paymentStatsService;
+    private final PaymentProcessingQueue processingQueue;
+    private final PaymentWatchService paymentWatchService;
 
-    @GetMapping
+    @GetMapping("/health")
     public String health() {
         return "Payments service is up";
     }
 
+    @GetMapping
+    public PaymentPageResponse listPayments(@Valid PaymentSearchRequest request) {
+        return paymentService.listPayments(request);
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportPayments(@Valid PaymentExportRequest request) {
+        ContentDisposition disposition = ContentDisposition.attachment()
+                .filename("payments." + request.getFormat().getExtension())
+                .build();
+
+        StreamingResponseBody body = out -> paymentExportService.exportPayments(
+                request.getFrom(), request.getTo(), request.getFormat(), out);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(request.getFormat().getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, disposition.toString())
+                .body(body);
+    }
+
+    @GetMapping("/stats")
+    public PaymentStatsResponse getStats(@Valid PaymentStatsRequest request) {
+        return paymentStatsService.getStats(request.getFrom(), request.getTo());
+    }
+
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     public PaymentResponse createPayment(@Valid @RequestBody PaymentRequest request) {
         return paymentService.createPayment(request);
     }
 
+    @PostMapping("/batch")
+    public BatchPaymentResponse createPayments(@RequestBody List<PaymentRequest> requests) {
+        return paymentService.createPayments(requests);
+    }
+
     @GetMapping("/{id}")
     public PaymentResponse getPayment(@PathVariable("id") UUID id) {
         return paymentService.getPayment(id);
     }
 
+    @GetMapping(value = "/{id}", params = "waitFor")
+    public DeferredResult<PaymentResponse> awaitPayment(@PathVariable("id") UUID id,
+                                                        @RequestParam("waitFor") PaymentStatus waitFor,
+                                                        @RequestParam(name = "timeout", required = false)
+                                                        @DurationFormat(style = DurationFormat.Style.SIMPLE) Duration timeout) {
+        return paymentWatchService.awaitStatus(id, waitFor, timeout);
+    }
+
+    @GetMapping(value = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamPayment(@PathVariable("id") UUID id) {
+        return paymentWatchService.streamStatus(id);
+    }
+
     @GetMapping("/order/{orderId}")
     public PaymentResponse getPaymentByOrder(@PathVariable("orderId") UUID orderId) {
         return paymentService.getPaymentByOrderId(orderId);
     }
 
     @PostMapping("/{id}/process")
-    public PaymentResponse processPayment(@PathVariable("id") UUID id) {
-        return paymentService.processPayment(id);
+    public ResponseEntity<?> processPayment(@PathVariable("id") UUID id) {
+        if (!processingQueue.isEnabled()) {
+            return ResponseEntity.ok(paymentService.processPayment(id));
+        }
+
+        processingQueue.submit(id);
+
+        URI statusUrl = ServletUriComponentsBuilder.fromCurrentContextPath()
+                .path("/api/v1/payments/{id}")
+                .buildAndExpand(id)
+                .toUri();
+
+        return ResponseEntity.accepted()
+                .location(statusUrl)
+                .body(PaymentAcceptedResponse.builder()
+                        .id(id)
+                        .statusUrl(statusUrl.toString())
+                        .build());
     }
 
     @PostMapping("/{id}")
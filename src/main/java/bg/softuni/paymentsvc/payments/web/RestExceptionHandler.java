@@ -2,9 +2,16 @@ package bg.softuni.paymentsvc.payments.web;
 
 import bg.softuni.paymentsvc.payments.exception.PaymentAlreadyExistsException;
 import bg.softuni.paymentsvc.payments.exception.PaymentNotFoundException;
+import bg.softuni.paymentsvc.payments.exception.PaymentServiceBusyException;
+import bg.softuni.paymentsvc.payments.exception.PaymentStatusConflictException;
+import bg.softuni.paymentsvc.payments.logging.LogRateLimiter;
 import bg.softuni.paymentsvc.payments.web.dto.ApiErrorResponse;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
+import org.slf4j.event.Level;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -15,9 +22,13 @@ import java.time.LocalDateTime;
 import java.util.stream.Collectors;
 
 @Slf4j
+@Profile("!reactive")
 @RestControllerAdvice
 public class RestExceptionHandler {
 
+    // Client errors are caused by callers, so a misbehaving one could otherwise flood the log.
+    private static final LogRateLimiter CLIENT_ERRORS = new LogRateLimiter(20);
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ApiErrorResponse> handleValidationErrors(
             MethodArgumentNotValidException ex,
@@ -29,7 +40,7 @@ public class RestExceptionHandler {
                 .map(fe -> fe.getField() + " " + fe.getDefaultMessage())
                 .collect(Collectors.joining(", "));
 
-        log.warn("Validation error on {}: {}", request.getRequestURI(), message);
+        CLIENT_ERRORS.log(log, Level.WARN, "Validation error on {}: {}", request.getRequestURI(), message);
 
         ApiErrorResponse body = ApiErrorResponse.builder()
                 .timestamp(LocalDateTime.now())
@@ -47,7 +58,7 @@ public class RestExceptionHandler {
             IllegalArgumentException ex,
             HttpServletRequest request
     ) {
-        log.warn("Illegal argument on {}: {}", request.getRequestURI(), ex.getMessage());
+        CLIENT_ERRORS.log(log, Level.WARN, "Illegal argument on {}: {}", request.getRequestURI(), ex.getMessage());
 
         ApiErrorResponse body = ApiErrorResponse.builder()
                 .timestamp(LocalDateTime.now())
@@ -65,7 +76,7 @@ public class RestExceptionHandler {
             PaymentAlreadyExistsException ex,
             HttpServletRequest request
     ) {
-        log.warn("Payment already exists on {}: {}", request.getRequestURI(), ex.getMessage());
+        CLIENT_ERRORS.log(log, Level.WARN, "Payment already exists on {}: {}", request.getRequestURI(), ex.getMessage());
 
         ApiErrorResponse body = ApiErrorResponse.builder()
                 .timestamp(LocalDateTime.now())
@@ -78,12 +89,31 @@ public class RestExceptionHandler {
         return ResponseEntity.status(HttpStatus.CONFLICT).body(body);
     }
 
+    // Only a unique key race is worth retrying; other integrity violations are bugs and go to the generic handler.
+    @ExceptionHandler(DuplicateKeyException.class)
+    public ResponseEntity<ApiErrorResponse> handleDuplicateKey(
+            DuplicateKeyException ex,
+            HttpServletRequest request
+    ) {
+        CLIENT_ERRORS.log(log, Level.WARN, "Duplicate key on {}: {}", request.getRequestURI(), ex.getMostSpecificCause().getMessage());
+
+        ApiErrorResponse body = ApiErrorResponse.builder()
+                .timestamp(LocalDateTime.now())
+                .status(HttpStatus.CONFLICT.value())
+                .error("Conflict")
+                .message("The request conflicts with a concurrent change. Please retry.")
+                .path(request.getRequestURI())
+                .build();
+
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(body);
+    }
+
     @ExceptionHandler(PaymentNotFoundException.class)
     public ResponseEntity<ApiErrorResponse> handlePaymentNotFound(
             PaymentNotFoundException ex,
             HttpServletRequest request
     ) {
-        log.warn("Payment not found on {}: {}", request.getRequestURI(), ex.getMessage());
+        CLIENT_ERRORS.log(log, Level.WARN, "Payment not found on {}: {}", request.getRequestURI(), ex.getMessage());
 
         ApiErrorResponse body = ApiErrorResponse.builder()
                 .timestamp(LocalDateTime.now())
@@ -96,6 +126,44 @@ public class RestExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(body);
     }
 
+    @ExceptionHandler(PaymentStatusConflictException.class)
+    public ResponseEntity<ApiErrorResponse> handlePaymentStatusConflict(
+            PaymentStatusConflictException ex,
+            HttpServletRequest request
+    ) {
+        CLIENT_ERRORS.log(log, Level.WARN, "Payment status conflict on {}: {}", request.getRequestURI(), ex.getMessage());
+
+        ApiErrorResponse body = ApiErrorResponse.builder()
+                .timestamp(LocalDateTime.now())
+                .status(HttpStatus.CONFLICT.value())
+                .error("Payment status conflict")
+                .message(ex.getMessage())
+                .path(request.getRequestURI())
+                .build();
+
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(body);
+    }
+
+    @ExceptionHandler(PaymentServiceBusyException.class)
+    public ResponseEntity<ApiErrorResponse> handleServiceBusy(
+            PaymentServiceBusyException ex,
+            HttpServletRequest request
+    ) {
+        CLIENT_ERRORS.log(log, Level.WARN, "Payment service busy on {}", request.getRequestURI());
+
+        ApiErrorResponse body = ApiErrorResponse.builder()
+                .timestamp(LocalDateTime.now())
+                .status(HttpStatus.SERVICE_UNAVAILABLE.value())
+                .error("Service unavailable")
+                .message(ex.getMessage())
+                .path(request.getRequestURI())
+                .build();
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(body);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ApiErrorResponse> handleAnyException(
             Exception ex,
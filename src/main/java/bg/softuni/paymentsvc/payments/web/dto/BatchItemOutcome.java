@@ -0,0 +1,7 @@
+package bg.softuni.paymentsvc.payments.web.dto;
+
+public enum BatchItemOutcome {
+    CREATED,
+    ALREADY_EXISTS,
+    VALIDATION_ERROR
+}
@@ -0,0 +1,19 @@
+package bg.softuni.paymentsvc.payments.web.dto;
+
+import lombok.*;
+
+import java.util.UUID;
+
+@Builder
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchPaymentItemResult {
+
+    private int index;
+    private UUID orderId;
+    private BatchItemOutcome outcome;
+    private PaymentResponse payment;
+    private String message;
+}
@@ -0,0 +1,18 @@
+package bg.softuni.paymentsvc.payments.web.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Builder
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchPaymentResponse {
+
+    private int created;
+    private int alreadyExists;
+    private int rejected;
+    private List<BatchPaymentItemResult> results;
+}
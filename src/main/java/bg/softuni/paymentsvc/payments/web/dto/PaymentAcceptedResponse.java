@@ -0,0 +1,16 @@
+package bg.softuni.paymentsvc.payments.web.dto;
+
+import lombok.*;
+
+import java.util.UUID;
+
+@Builder
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class PaymentAcceptedResponse {
+
+    private UUID id;
+    private String statusUrl;
+}
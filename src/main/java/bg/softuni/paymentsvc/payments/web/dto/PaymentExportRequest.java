@@ -0,0 +1,33 @@
+package bg.softuni.paymentsvc.payments.web.dto;
+
+import bg.softuni.paymentsvc.payments.service.PaymentExportFormat;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+
+@Builder
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class PaymentExportRequest {
+
+    @NotNull
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime from;
+
+    @NotNull
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime to;
+
+    @Builder.Default
+    private PaymentExportFormat format = PaymentExportFormat.NDJSON;
+
+    @AssertTrue(message = "must end after from")
+    public boolean isWindow() {
+        return from == null || to == null || to.isAfter(from);
+    }
+}
@@ -0,0 +1,16 @@
+package bg.softuni.paymentsvc.payments.web.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Builder
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class PaymentPageResponse {
+
+    private List<PaymentResponse> items;
+    private String nextCursor;
+}
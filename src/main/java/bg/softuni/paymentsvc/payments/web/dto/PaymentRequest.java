@@ -1,8 +1,10 @@
 package bg.softuni.paymentsvc.payments.web.dto;
 
 import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import lombok.*;
 
 import java.math.BigDecimal;
@@ -20,8 +22,11 @@ public class PaymentRequest {
 
     @NotNull
     @DecimalMin(value = "0.01", message = "Amount must be greater than 0.")
+    @Digits(integer = 36, fraction = 2)
     private BigDecimal amount;
 
+    // Matches the payment table's DECIMAL(38, 2) and VARCHAR(255) columns.
     @NotBlank
+    @Size(max = 255)
     private String method;
 }
@@ -0,0 +1,34 @@
+package bg.softuni.paymentsvc.payments.web.dto;
+
+import bg.softuni.paymentsvc.payments.model.PaymentStatus;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.*;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+
+@Builder
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class PaymentSearchRequest {
+
+    private PaymentStatus status;
+
+    private String method;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime from;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime to;
+
+    private String after;
+
+    @Min(1)
+    @Max(500)
+    @Builder.Default
+    private int limit = 50;
+}
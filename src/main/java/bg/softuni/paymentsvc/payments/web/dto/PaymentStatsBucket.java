@@ -0,0 +1,21 @@
+package bg.softuni.paymentsvc.payments.web.dto;
+
+import bg.softuni.paymentsvc.payments.model.PaymentStatus;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Builder
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class PaymentStatsBucket {
+
+    private LocalDateTime hour;
+    private PaymentStatus status;
+    private String method;
+    private long count;
+    private BigDecimal amount;
+}
@@ -0,0 +1,26 @@
+package bg.softuni.paymentsvc.payments.web.dto;
+
+import jakarta.validation.constraints.AssertTrue;
+import lombok.*;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+
+@Builder
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class PaymentStatsRequest {
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime from;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime to;
+
+    @AssertTrue(message = "must end after from")
+    public boolean isWindow() {
+        return from == null || to == null || to.isAfter(from);
+    }
+}
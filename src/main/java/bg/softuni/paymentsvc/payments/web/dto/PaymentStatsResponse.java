@@ -0,0 +1,24 @@
+package bg.softuni.paymentsvc.payments.web.dto;
+
+import bg.softuni.paymentsvc.payments.model.PaymentStatus;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+// Payments created in [from, to), by their current status and method.
+@Builder
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class PaymentStatsResponse {
+
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private PaymentStatsTotal total;
+    private Map<PaymentStatus, PaymentStatsTotal> byStatus;
+    private Map<String, PaymentStatsTotal> byMethod;
+    private List<PaymentStatsBucket> hourly;
+}
@@ -0,0 +1,16 @@
+package bg.softuni.paymentsvc.payments.web.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+
+@Builder
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class PaymentStatsTotal {
+
+    private long count;
+    private BigDecimal amount;
+}
@@ -0,0 +1,12 @@
+CREATE TABLE payment
+(
+    id         BINARY(16)                                 NOT NULL,
+    order_id   BINARY(16)                                 NOT NULL,
+    amount     DECIMAL(38, 2)                             NOT NULL,
+    status     ENUM ('FAILED', 'PENDING', 'SUCCESSFUL')   NOT NULL,
+    method     VARCHAR(255)                               NOT NULL,
+    created_on DATETIME(6)                                NOT NULL,
+    updated_on DATETIME(6)                                NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_payment_order_id UNIQUE (order_id)
+) ENGINE = InnoDB;
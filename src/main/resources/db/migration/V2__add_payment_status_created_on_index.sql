@@ -0,0 +1 @@
+CREATE INDEX idx_payment_status_created_on ON payment (status, created_on);
@@ -0,0 +1,2 @@
+CREATE INDEX idx_payment_created_on_id ON payment (created_on, id);
+CREATE INDEX idx_payment_method_created_on ON payment (method, created_on);
@@ -0,0 +1,16 @@
+CREATE TABLE payment_outbox
+(
+    id          BIGINT AUTO_INCREMENT                      NOT NULL,
+    payment_id  BINARY(16)                                 NOT NULL,
+    order_id    BINARY(16)                                 NOT NULL,
+    status      ENUM ('FAILED', 'PENDING', 'SUCCESSFUL')   NOT NULL,
+    occurred_on DATETIME(6)                                NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE payment_outbox_offset
+(
+    name          VARCHAR(64) NOT NULL,
+    last_event_id BIGINT      NOT NULL,
+    PRIMARY KEY (name)
+) ENGINE = InnoDB;
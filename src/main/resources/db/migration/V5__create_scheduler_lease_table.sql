@@ -0,0 +1,7 @@
+CREATE TABLE scheduler_lease
+(
+    name        VARCHAR(64)  NOT NULL,
+    owner       VARCHAR(128) NOT NULL,
+    lease_until DATETIME(6)  NOT NULL,
+    PRIMARY KEY (name)
+) ENGINE = InnoDB;
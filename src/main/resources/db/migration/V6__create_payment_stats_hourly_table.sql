@@ -0,0 +1,10 @@
+CREATE TABLE payment_stats_hourly
+(
+    hour_start    DATETIME(6)                                NOT NULL,
+    status        ENUM ('FAILED', 'PENDING', 'SUCCESSFUL')   NOT NULL,
+    method        VARCHAR(255)                               NOT NULL,
+    slot          INT                                        NOT NULL,
+    payment_count BIGINT                                     NOT NULL,
+    amount_total  DECIMAL(38, 2)                             NOT NULL,
+    PRIMARY KEY (hour_start, status, method, slot)
+) ENGINE = InnoDB;
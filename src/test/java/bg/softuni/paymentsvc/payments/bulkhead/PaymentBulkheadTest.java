@@ -0,0 +1,99 @@
+package bg.softuni.paymentsvc.payments.bulkhead;
+
+import bg.softuni.paymentsvc.payments.exception.PaymentServiceBusyException;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PaymentBulkheadTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void limit_shouldRejectCallsBeyondPermits_andReleaseOnCompletion() throws Throwable {
+        PaymentBulkheadProperties properties = new PaymentBulkheadProperties();
+        properties.setMaxConcurrent(1);
+        properties.setAcquireTimeout(Duration.ofMillis(50));
+
+        PaymentBulkhead bulkhead = new PaymentBulkhead(properties, new HikariDataSource(), meterRegistry);
+
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ProceedingJoinPoint slow = mock(ProceedingJoinPoint.class);
+        when(slow.proceed()).thenAnswer(invocation -> {
+            entered.countDown();
+            release.await();
+            return "slow";
+        });
+
+        CompletableFuture<Object> inFlight = CompletableFuture.supplyAsync(() -> {
+            try {
+                return bulkhead.limit(slow);
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        ProceedingJoinPoint fast = mock(ProceedingJoinPoint.class);
+        when(fast.proceed()).thenReturn("fast");
+
+        assertThrows(PaymentServiceBusyException.class, () -> bulkhead.limit(fast));
+        assertEquals(0.0, meterRegistry.get("payments.bulkhead.available").gauge().value());
+        assertEquals(1.0, meterRegistry.get("payments.bulkhead.rejected").counter().count());
+
+        release.countDown();
+        assertEquals("slow", inFlight.get(5, TimeUnit.SECONDS));
+        assertEquals("fast", bulkhead.limit(fast));
+        assertEquals(1.0, meterRegistry.get("payments.bulkhead.available").gauge().value());
+    }
+
+    @Test
+    void limit_shouldNotTakeAPermit_forExemptCallers() throws Throwable {
+        PaymentBulkheadProperties properties = new PaymentBulkheadProperties();
+        properties.setMaxConcurrent(1);
+        properties.setAcquireTimeout(Duration.ofMillis(10));
+
+        PaymentBulkhead bulkhead = new PaymentBulkhead(properties, new HikariDataSource(), meterRegistry);
+
+        ProceedingJoinPoint nested = mock(ProceedingJoinPoint.class);
+        when(nested.proceed()).thenReturn("nested");
+        ProceedingJoinPoint outer = mock(ProceedingJoinPoint.class);
+        when(outer.proceed()).thenAnswer(invocation -> bulkhead.limit(nested));
+
+        // Exempt calls take no permit; outside exempt(), the nested call would need a second one.
+        Object result = PaymentBulkhead.exempt(() -> {
+            try {
+                return bulkhead.limit(outer);
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        assertEquals("nested", result);
+        assertEquals(1.0, meterRegistry.get("payments.bulkhead.available").gauge().value());
+        assertEquals(0.0, meterRegistry.get("payments.bulkhead.rejected").counter().count());
+        assertThrows(PaymentServiceBusyException.class, () -> bulkhead.limit(outer));
+    }
+
+    @Test
+    void constructor_shouldSizePermitsToHikariPool_whenNotConfigured() {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setMaximumPoolSize(7);
+
+        new PaymentBulkhead(new PaymentBulkheadProperties(), dataSource, meterRegistry);
+
+        assertEquals(7.0, meterRegistry.get("payments.bulkhead.available").gauge().value());
+    }
+}
@@ -0,0 +1,190 @@
+package bg.softuni.paymentsvc.payments.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InstrumentedCacheTest {
+
+    private MeterRegistry meterRegistry;
+    private InstrumentedCache cache;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new InstrumentedCache(new ConcurrentMapCache("payments"), meterRegistry);
+    }
+
+    @Test
+    void get_shouldCountHitsAndMisses() {
+        assertNull(cache.get("a"));
+
+        cache.put("a", "value");
+
+        assertEquals("value", cache.get("a").get());
+        assertEquals("value", cache.get("a", String.class));
+
+        assertEquals(2.0, counter("cache.gets", "hit"));
+        assertEquals(1.0, counter("cache.gets", "miss"));
+        assertEquals(1.0, meterRegistry.get("cache.puts").counter().count());
+    }
+
+    @Test
+    void getWithLoader_shouldCountMissOnlyWhenLoaderRuns() {
+        assertEquals("loaded", cache.get("a", () -> "loaded"));
+        assertEquals("loaded", cache.get("a", () -> "other"));
+
+        assertEquals(1.0, counter("cache.gets", "hit"));
+        assertEquals(1.0, counter("cache.gets", "miss"));
+    }
+
+    @Test
+    void getWithLoader_shouldRunOneLoaderForConcurrentMisses() throws Exception {
+        int callers = 8;
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> cache.get("a", () -> {
+                    loads.incrementAndGet();
+                    release.await();
+                    return "loaded";
+                })));
+            }
+
+            awaitCoalesced(callers - 1);
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertEquals("loaded", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, loads.get());
+        assertEquals(callers - 1.0, meterRegistry.get("cache.loads.coalesced").counter().count());
+        assertEquals("loaded", cache.get("a").get());
+    }
+
+    @Test
+    void getWithLoader_shouldFailWaitersWithLoaderException() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            Future<String> leader = executor.submit(() -> cache.get("a", () -> {
+                loading.countDown();
+                release.await();
+                throw new IllegalStateException("boom");
+            }));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            Future<String> waiter = executor.submit(() -> cache.get("a", () -> "unused"));
+
+            awaitCoalesced(1);
+            release.countDown();
+
+            for (Future<String> caller : List.of(leader, waiter)) {
+                Exception e = assertThrows(Exception.class, () -> caller.get(5, TimeUnit.SECONDS));
+                Cache.ValueRetrievalException failure = assertInstanceOf(Cache.ValueRetrievalException.class, e.getCause());
+                assertInstanceOf(IllegalStateException.class, failure.getCause());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    void getWithLoader_shouldNotCacheLoadThatRacedWithEvict() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            Future<String> leader = executor.submit(() -> cache.get("a", () -> {
+                loading.countDown();
+                release.await();
+                return "stale";
+            }));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+            cache.evict("a");
+            release.countDown();
+
+            assertEquals("stale", leader.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    void getWithLoader_shouldKeepValuePutWhileLoading() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            Future<String> leader = executor.submit(() -> cache.get("a", () -> {
+                loading.countDown();
+                release.await();
+                return "stale";
+            }));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+            cache.put("a", "fresh");
+            release.countDown();
+
+            assertEquals("stale", leader.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals("fresh", cache.get("a").get());
+    }
+
+    @Test
+    void evict_shouldRemoveOnlyGivenKeyAndCountEviction() {
+        cache.put("a", "1");
+        cache.put("b", "2");
+
+        cache.evict("a");
+
+        assertNull(cache.get("a"));
+        assertNotNull(cache.get("b"));
+        assertEquals(1.0, meterRegistry.get("cache.evictions").counter().count());
+    }
+
+    private void awaitCoalesced(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("cache.loads.coalesced").counter().count() < expected) {
+            assertTrue(System.nanoTime() < deadline, "callers did not coalesce in time");
+            Thread.sleep(5);
+        }
+    }
+
+    private double counter(String name, String result) {
+        return meterRegistry.get(name).tag("result", result).counter().count();
+    }
+}
@@ -0,0 +1,81 @@
+package bg.softuni.paymentsvc.payments.cache;
+
+import bg.softuni.paymentsvc.payments.repository.PaymentRepository;
+import bg.softuni.paymentsvc.payments.sharding.PaymentShards;
+import bg.softuni.paymentsvc.payments.sharding.ShardingProperties;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NegativeLookupCacheTest {
+
+    @Mock
+    private PaymentRepository paymentRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final PaymentShards paymentShards = new PaymentShards(new ShardingProperties());
+
+    @Test
+    void recordMissing_shouldBeInvalidatedByRegisterPayment() {
+        NegativeLookupCache cache = new NegativeLookupCache(
+                new NegativeLookupProperties(), paymentRepository, paymentShards, transactionManager);
+        UUID paymentId = UUID.randomUUID();
+        UUID orderId = UUID.randomUUID();
+
+        cache.recordMissing(paymentId);
+        cache.recordMissingOrder(orderId);
+
+        assertTrue(cache.isKnownMissing(paymentId));
+        assertTrue(cache.isKnownMissingOrder(orderId));
+
+        cache.registerPayment(paymentId, orderId);
+
+        assertFalse(cache.isKnownMissing(paymentId));
+        assertFalse(cache.isKnownMissingOrder(orderId));
+    }
+
+    @Test
+    void isKnownMissingOrder_shouldNotConsultDatabase_whenBloomFilterDisabled() {
+        NegativeLookupCache cache = new NegativeLookupCache(
+                new NegativeLookupProperties(), paymentRepository, paymentShards, transactionManager);
+
+        cache.loadKnownOrders();
+
+        assertFalse(cache.isKnownMissingOrder(UUID.randomUUID()));
+        verifyNoInteractions(paymentRepository);
+    }
+
+    @Test
+    void isKnownMissingOrder_shouldUseBloomFilter_onceKnownOrdersAreLoaded() {
+        NegativeLookupProperties properties = new NegativeLookupProperties();
+        properties.getBloomFilter().setEnabled(true);
+        properties.getBloomFilter().setExpectedInsertions(1_000);
+
+        NegativeLookupCache cache = new NegativeLookupCache(properties, paymentRepository, paymentShards, transactionManager);
+        UUID existingOrder = UUID.randomUUID();
+        UUID createdLater = UUID.randomUUID();
+        when(paymentRepository.streamAllOrderIds()).thenReturn(Stream.of(existingOrder));
+
+        assertFalse(cache.isKnownMissingOrder(UUID.randomUUID()));
+
+        cache.loadKnownOrders();
+
+        assertFalse(cache.isKnownMissingOrder(existingOrder));
+        assertTrue(cache.isKnownMissingOrder(createdLater));
+
+        cache.registerPayment(UUID.randomUUID(), createdLater);
+
+        assertFalse(cache.isKnownMissingOrder(createdLater));
+    }
+}
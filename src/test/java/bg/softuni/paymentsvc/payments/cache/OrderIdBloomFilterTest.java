@@ -0,0 +1,48 @@
+package bg.softuni.paymentsvc.payments.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderIdBloomFilterTest {
+
+    @Test
+    void mightContain_shouldNeverReturnFalseForInsertedIds() {
+        OrderIdBloomFilter filter = new OrderIdBloomFilter(10_000, 0.01);
+        List<UUID> inserted = new ArrayList<>();
+
+        for (int i = 0; i < 10_000; i++) {
+            UUID orderId = UUID.randomUUID();
+            filter.put(orderId);
+            inserted.add(orderId);
+        }
+
+        inserted.forEach(orderId -> assertTrue(filter.mightContain(orderId)));
+    }
+
+    @Test
+    void mightContain_shouldKeepFalsePositivesNearConfiguredRate() {
+        OrderIdBloomFilter filter = new OrderIdBloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(UUID.randomUUID());
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain(UUID.randomUUID())) {
+                falsePositives++;
+            }
+        }
+
+        assertTrue(falsePositives < 3_000, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void constructor_shouldRejectInvalidFalsePositiveRate() {
+        assertThrows(IllegalArgumentException.class, () -> new OrderIdBloomFilter(100, 1.5));
+    }
+}
@@ -0,0 +1,50 @@
+package bg.softuni.paymentsvc.payments.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.CacheManager;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PaymentCacheConfigTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void cacheManager_shouldBoundConfiguredCacheBySize() {
+        PaymentCacheProperties.Spec spec = new PaymentCacheProperties.Spec();
+        spec.setMaximumSize(5);
+        spec.setExpireAfterWrite(Duration.ofMinutes(1));
+
+        PaymentCacheProperties properties = new PaymentCacheProperties();
+        properties.getSpecs().put("payments", spec);
+
+        CacheManager cacheManager = new PaymentCacheConfig().cacheManager(properties, meterRegistry);
+        org.springframework.cache.Cache cache = cacheManager.getCache("payments");
+
+        for (int i = 0; i < 100; i++) {
+            cache.put(i, "value-" + i);
+        }
+
+        @SuppressWarnings("unchecked")
+        Cache<Object, Object> nativeCache = (Cache<Object, Object>) cache.getNativeCache();
+        nativeCache.cleanUp();
+
+        assertTrue(nativeCache.estimatedSize() <= 5);
+        assertTrue(nativeCache.stats().evictionCount() > 0);
+        assertEquals(nativeCache.estimatedSize(), meterRegistry.get("cache.size").gauge().value());
+        assertTrue(meterRegistry.get("cache.evictions").tag("cause", "policy").functionCounter().count() > 0);
+    }
+
+    @Test
+    void cacheManager_shouldWrapCachesWithInstrumentation() {
+        CacheManager cacheManager = new PaymentCacheConfig()
+                .cacheManager(new PaymentCacheProperties(), meterRegistry);
+
+        assertInstanceOf(InstrumentedCache.class, cacheManager.getCache("payments"));
+    }
+}
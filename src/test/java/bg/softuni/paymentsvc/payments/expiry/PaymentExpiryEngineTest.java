@@ -0,0 +1,196 @@
+package bg.softuni.paymentsvc.payments.expiry;
+
+import bg.softuni.paymentsvc.payments.lease.SchedulerLeaseProperties;
+import bg.softuni.paymentsvc.payments.lease.SchedulerLeaseRepository;
+import bg.softuni.paymentsvc.payments.lease.SchedulerLeases;
+import bg.softuni.paymentsvc.payments.model.PaymentStatus;
+import bg.softuni.paymentsvc.payments.repository.PaymentRepository;
+import bg.softuni.paymentsvc.payments.repository.projection.PaymentSummary;
+import bg.softuni.paymentsvc.payments.scheduler.PaymentCleanupProperties;
+import bg.softuni.paymentsvc.payments.service.PaymentService;
+import bg.softuni.paymentsvc.payments.sharding.PaymentShards;
+import bg.softuni.paymentsvc.payments.sharding.ShardingProperties;
+import bg.softuni.paymentsvc.payments.watch.PaymentStatusChange;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PaymentExpiryEngineTest {
+
+    private static final LocalDateTime CREATED_ON = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    // CREATED_ON + the two hour timeout, in epoch millis.
+    private static final long DEADLINE = CREATED_ON.plusHours(2)
+            .atZone(ZoneId.systemDefault())
+            .toInstant()
+            .toEpochMilli();
+
+    @Mock
+    private PaymentService paymentService;
+
+    @Mock
+    private PaymentRepository paymentRepository;
+
+    @Mock
+    private SchedulerLeaseRepository leaseRepository;
+
+    private PaymentExpiryProperties properties;
+    private PaymentCleanupProperties cleanupProperties;
+    private PaymentExpiryEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        properties = new PaymentExpiryProperties();
+        properties.setTick(Duration.ofSeconds(1));
+        cleanupProperties = new PaymentCleanupProperties();
+        cleanupProperties.setPendingTimeout(Duration.ofHours(2));
+
+        // Disabled leases always grant the lease, as on a single instance.
+        engine = engine(new SchedulerLeaseProperties());
+    }
+
+    @Test
+    void takeDue_shouldNeverReturnPaymentsBeforeTheirDeadline() {
+        UUID paymentId = UUID.randomUUID();
+        engine.track(paymentId, CREATED_ON);
+
+        assertTrue(engine.takeDue(DEADLINE - 1, 10).isEmpty());
+        assertTrue(engine.takeDue(DEADLINE, 10).isEmpty());
+        assertEquals(Map.of(paymentId, DEADLINE), engine.takeDue(DEADLINE + 1_000, 10));
+        assertEquals(0, engine.tracked());
+    }
+
+    @Test
+    void takeDue_shouldReturnAtMostTheLimit_andKeepTheRestForTheNextTick() {
+        for (int i = 0; i < 5; i++) {
+            engine.track(UUID.randomUUID(), CREATED_ON.plusNanos(i * 1_000_000L));
+        }
+
+        assertEquals(3, engine.takeDue(DEADLINE + 2_000, 3).size());
+        assertEquals(2, engine.takeDue(DEADLINE + 2_000, 3).size());
+        assertEquals(0, engine.tracked());
+    }
+
+    @Test
+    void onStatusChange_shouldTrackNewPayments_andForgetSettledOnes() {
+        UUID settled = UUID.randomUUID();
+        UUID pending = UUID.randomUUID();
+
+        engine.onStatusChange(new PaymentStatusChange(settled, UUID.randomUUID(), PaymentStatus.PENDING, CREATED_ON));
+        engine.onStatusChange(new PaymentStatusChange(pending, UUID.randomUUID(), PaymentStatus.PENDING, CREATED_ON));
+        engine.onStatusChange(new PaymentStatusChange(settled, UUID.randomUUID(), PaymentStatus.SUCCESSFUL, CREATED_ON));
+
+        assertEquals(Map.of(pending, DEADLINE), engine.takeDue(DEADLINE + 1_000, 10));
+    }
+
+    @Test
+    void track_shouldDropPayments_whenFull() {
+        properties.setMaxTracked(2);
+
+        engine.track(UUID.randomUUID(), CREATED_ON);
+        engine.track(UUID.randomUUID(), CREATED_ON);
+        engine.track(UUID.randomUUID(), CREATED_ON);
+
+        assertEquals(2, engine.tracked());
+    }
+
+    @Test
+    void tick_shouldExpireDuePaymentsInBatches() {
+        properties.setBatchSize(2);
+        LocalDateTime overdue = LocalDateTime.now().minusHours(3);
+        Set<UUID> ids = Set.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+        ids.forEach(id -> engine.track(id, overdue));
+        engine.track(UUID.randomUUID(), LocalDateTime.now());
+        when(paymentRepository.streamByStatusOrderByCreatedOn(PaymentStatus.PENDING)).thenReturn(Stream.empty());
+        when(paymentService.expirePayments(any())).thenAnswer(invocation -> invocation.<List<UUID>>getArgument(0).size());
+
+        engine.tick();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<UUID>> batches = ArgumentCaptor.forClass(List.class);
+        verify(paymentService, times(2)).expirePayments(batches.capture());
+        assertEquals(List.of(2, 1), batches.getAllValues().stream().map(List::size).toList());
+        assertEquals(ids, batches.getAllValues().stream().flatMap(List::stream).collect(Collectors.toSet()));
+        assertEquals(1, engine.tracked());
+    }
+
+    @Test
+    void tick_shouldDoNothing_withoutTheLease() {
+        PaymentExpiryEngine follower = engine(enabledLeases());
+        when(leaseRepository.acquire(eq(PaymentExpiryEngine.LEASE), any(), anyLong())).thenReturn(0);
+
+        follower.onStatusChange(new PaymentStatusChange(UUID.randomUUID(), UUID.randomUUID(), PaymentStatus.PENDING,
+                LocalDateTime.now().minusHours(3)));
+        follower.tick();
+
+        assertEquals(0, follower.tracked());
+        verifyNoInteractions(paymentRepository, paymentService);
+    }
+
+    @Test
+    void tick_shouldLoadOnTakeover_rescanWhileHolding_andForgetEverythingOnceTheLeaseIsLost() {
+        properties.setRescanInterval(Duration.ZERO);
+        PaymentExpiryEngine holder = engine(enabledLeases());
+        UUID loaded = UUID.randomUUID();
+        UUID createdElsewhere = UUID.randomUUID();
+        LocalDateTime now = LocalDateTime.now();
+        when(leaseRepository.acquire(eq(PaymentExpiryEngine.LEASE), any(), anyLong())).thenReturn(1, 1, 0);
+        when(paymentRepository.streamByStatusOrderByCreatedOn(PaymentStatus.PENDING))
+                .thenReturn(Stream.of(summary(loaded, now)));
+        when(paymentRepository.streamByStatusCreatedSince(eq(PaymentStatus.PENDING), any()))
+                .thenReturn(Stream.of(summary(loaded, now), summary(createdElsewhere, now)));
+
+        holder.tick();
+        assertEquals(1, holder.tracked());
+
+        holder.tick();
+        assertEquals(2, holder.tracked());
+
+        holder.tick();
+        assertEquals(0, holder.tracked());
+        holder.onStatusChange(new PaymentStatusChange(UUID.randomUUID(), UUID.randomUUID(), PaymentStatus.PENDING, now));
+        assertEquals(0, holder.tracked());
+    }
+
+    private PaymentExpiryEngine engine(SchedulerLeaseProperties leaseProperties) {
+        PaymentShards paymentShards = new PaymentShards(new ShardingProperties());
+        return new PaymentExpiryEngine(paymentService, paymentRepository, paymentShards,
+                mock(PlatformTransactionManager.class), properties, cleanupProperties,
+                new SchedulerLeases(leaseRepository, paymentShards, leaseProperties), new SimpleMeterRegistry());
+    }
+
+    private static SchedulerLeaseProperties enabledLeases() {
+        SchedulerLeaseProperties leaseProperties = new SchedulerLeaseProperties();
+        leaseProperties.setEnabled(true);
+        leaseProperties.setOwner("test");
+        return leaseProperties;
+    }
+
+    private static PaymentSummary summary(UUID id, LocalDateTime createdOn) {
+        return new PaymentSummary(id, UUID.randomUUID(), BigDecimal.ONE, PaymentStatus.PENDING, "CARD",
+                createdOn, createdOn);
+    }
+}
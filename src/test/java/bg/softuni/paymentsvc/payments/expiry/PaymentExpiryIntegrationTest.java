@@ -0,0 +1,97 @@
+package bg.softuni.paymentsvc.payments.expiry;
+
+import bg.softuni.paymentsvc.payments.model.Payment;
+import bg.softuni.paymentsvc.payments.model.PaymentStatus;
+import bg.softuni.paymentsvc.payments.repository.PaymentRepository;
+import bg.softuni.paymentsvc.payments.service.PaymentService;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentRequest;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Own database, because this context keeps failing every PENDING payment older than a second.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:expiry;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "payments.expiry.enabled=true",
+        "payments.expiry.tick=100ms",
+        "payments.cleanup.pending-timeout=1s",
+        "payments.cleanup.cron=-"
+})
+class PaymentExpiryIntegrationTest {
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private PaymentExpiryEngine engine;
+
+    @Test
+    void createPayment_shouldBeFailedShortlyAfterItsDeadline() throws InterruptedException {
+        PaymentResponse created = paymentService.createPayment(request());
+
+        Payment failed = awaitStatus(created.getId(), PaymentStatus.FAILED);
+
+        Duration pendingFor = Duration.between(failed.getCreatedOn(), failed.getUpdatedOn());
+        assertTrue(pendingFor.compareTo(Duration.ofSeconds(1)) >= 0, "failed early, after " + pendingFor);
+        assertTrue(pendingFor.compareTo(Duration.ofSeconds(2)) < 0, "failed late, after " + pendingFor);
+    }
+
+    @Test
+    void processPayment_shouldStopTheExpiry() throws InterruptedException {
+        PaymentResponse created = paymentService.createPayment(request());
+        paymentService.processPayment(created.getId());
+
+        Thread.sleep(1_500);
+
+        assertEquals(PaymentStatus.SUCCESSFUL, paymentRepository.findById(created.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    void load_shouldPickUpPendingPaymentsFromTheDatabase() throws InterruptedException {
+        LocalDateTime old = LocalDateTime.now().minusMinutes(10);
+        UUID id = paymentRepository.save(Payment.builder()
+                .orderId(UUID.randomUUID())
+                .amount(new BigDecimal("6.00"))
+                .method("CARD")
+                .status(PaymentStatus.PENDING)
+                .createdOn(old)
+                .updatedOn(old)
+                .build()).getId();
+
+        engine.load();
+
+        awaitStatus(id, PaymentStatus.FAILED);
+    }
+
+    private Payment awaitStatus(UUID id, PaymentStatus status) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (System.nanoTime() < deadline) {
+            Payment payment = paymentRepository.findById(id).orElseThrow();
+            if (payment.getStatus() == status) {
+                return payment;
+            }
+            Thread.sleep(50);
+        }
+        fail("Payment " + id + " did not become " + status);
+        return null;
+    }
+
+    private static PaymentRequest request() {
+        return PaymentRequest.builder()
+                .orderId(UUID.randomUUID())
+                .amount(new BigDecimal("6.00"))
+                .method("CARD")
+                .build();
+    }
+}
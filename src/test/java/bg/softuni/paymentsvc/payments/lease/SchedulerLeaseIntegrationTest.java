@@ -0,0 +1,188 @@
+package bg.softuni.paymentsvc.payments.lease;
+
+import bg.softuni.paymentsvc.PaymentSvcApplication;
+import bg.softuni.paymentsvc.payments.model.Payment;
+import bg.softuni.paymentsvc.payments.model.PaymentStatus;
+import bg.softuni.paymentsvc.payments.repository.PaymentRepository;
+import bg.softuni.paymentsvc.payments.scheduler.PaymentCleanupProperties;
+import bg.softuni.paymentsvc.payments.scheduler.PaymentCleanupScheduler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Three application contexts share one embedded database, like three replicas sharing MySQL.
+class SchedulerLeaseIntegrationTest {
+
+    private static final int NODES = 3;
+
+    private static final List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+
+    @BeforeAll
+    static void startNodes() {
+        for (int i = 0; i < NODES; i++) {
+            nodes.add(new SpringApplicationBuilder(PaymentSvcApplication.class).run(
+                    "--spring.main.web-application-type=none",
+                    "--spring.main.banner-mode=off",
+                    "--spring.datasource.url=jdbc:h2:mem:leases;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                    "--spring.jpa.hibernate.ddl-auto=update",
+                    "--payments.leases.enabled=true",
+                    "--payments.leases.owner=node-" + i,
+                    "--payments.cleanup.chunk-size=10"));
+        }
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        nodes.forEach(ConfigurableApplicationContext::close);
+    }
+
+    @Test
+    void tryAcquire_shouldGrantLeaseToOneInstanceUntilReleased() {
+        SchedulerLeases first = nodes.get(0).getBean(SchedulerLeases.class);
+        SchedulerLeases second = nodes.get(1).getBean(SchedulerLeases.class);
+
+        assertTrue(first.tryAcquire("test-lease", Duration.ofMinutes(1)));
+        assertFalse(second.tryAcquire("test-lease", Duration.ofMinutes(1)));
+        assertTrue(first.tryAcquire("test-lease", Duration.ofMinutes(1)));
+
+        assertTrue(first.extend("test-lease", Duration.ZERO));
+        assertTrue(second.tryAcquire("test-lease", Duration.ofMinutes(1)));
+        assertFalse(first.tryAcquire("test-lease", Duration.ofMinutes(1)));
+        assertFalse(first.extend("test-lease", Duration.ofMinutes(1)));
+    }
+
+    @Test
+    void failOldPendingPayments_shouldRunOnOneInstancePerTick() throws Exception {
+        List<UUID> stale = seedStalePayments(35);
+        long[] runsBefore = runs();
+
+        runOnAllNodesAtOnce();
+
+        assertEquals(1, ranSince(runsBefore));
+        assertAllFailed(stale);
+
+        // The finished run keeps its lease, so a late cron on the other instances does nothing.
+        String holder = nodes.get(0).getBean(SchedulerLeaseRepository.class)
+                .findById("payment-cleanup").orElseThrow().getOwner();
+        long[] runsAfterFirstTick = runs();
+        runAtOnce(nodes.stream().filter(node -> !node.getBean(SchedulerLeases.class).owner().equals(holder)).toList());
+        assertEquals(0, ranSince(runsAfterFirstTick));
+    }
+
+    @Test
+    void failOldPendingPayments_shouldSplitPartitionsWithoutOverlap() throws Exception {
+        nodes.forEach(node -> node.getBean(PaymentCleanupProperties.class).setPartitions(4));
+        try {
+            List<UUID> stale = seedStalePayments(200);
+            double failedBefore = failedCount();
+
+            runOnAllNodesAtOnce();
+
+            assertAllFailed(stale);
+            assertEquals(200, failedCount() - failedBefore);
+
+            SchedulerLeaseRepository leaseRepository = nodes.get(0).getBean(SchedulerLeaseRepository.class);
+            for (int partition = 0; partition < 4; partition++) {
+                SchedulerLease lease = leaseRepository.findById("payment-cleanup-" + partition + "-of-4").orElseThrow();
+                assertTrue(lease.getOwner().startsWith("node-"));
+            }
+        } finally {
+            nodes.forEach(node -> node.getBean(PaymentCleanupProperties.class).setPartitions(1));
+        }
+    }
+
+    private static void runOnAllNodesAtOnce() throws Exception {
+        runAtOnce(nodes);
+    }
+
+    private static void runAtOnce(List<ConfigurableApplicationContext> nodesToRun) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(nodesToRun.size());
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> runs = new ArrayList<>();
+            for (ConfigurableApplicationContext node : nodesToRun) {
+                PaymentCleanupScheduler scheduler = node.getBean(PaymentCleanupScheduler.class);
+                runs.add(executor.submit(() -> {
+                    start.await();
+                    scheduler.failOldPendingPayments();
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> run : runs) {
+                run.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static List<UUID> seedStalePayments(int count) {
+        PaymentRepository paymentRepository = nodes.get(0).getBean(PaymentRepository.class);
+        LocalDateTime old = LocalDateTime.now().minusDays(1);
+
+        List<UUID> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(paymentRepository.save(Payment.builder()
+                    .orderId(UUID.randomUUID())
+                    .amount(new BigDecimal("5.00"))
+                    .method("CARD")
+                    .status(PaymentStatus.PENDING)
+                    .createdOn(old)
+                    .updatedOn(old)
+                    .build()).getId());
+        }
+        return ids;
+    }
+
+    private static void assertAllFailed(List<UUID> ids) {
+        PaymentRepository paymentRepository = nodes.get(0).getBean(PaymentRepository.class);
+        paymentRepository.findAllById(ids).forEach(payment -> assertEquals(PaymentStatus.FAILED, payment.getStatus()));
+        assertEquals(ids.size(), paymentRepository.findAllById(ids).size());
+    }
+
+    private static long[] runs() {
+        return nodes.stream()
+                .mapToLong(node -> {
+                    Timer timer = node.getBean(MeterRegistry.class).find("payments.cleanup.duration").timer();
+                    return timer == null ? 0 : timer.count();
+                })
+                .toArray();
+    }
+
+    private static long ranSince(long[] before) {
+        long[] after = runs();
+        long ran = 0;
+        for (int i = 0; i < NODES; i++) {
+            ran += after[i] - before[i];
+        }
+        return ran;
+    }
+
+    private static double failedCount() {
+        return nodes.stream()
+                .mapToDouble(node -> {
+                    Counter counter = node.getBean(MeterRegistry.class).find("payments.cleanup.failed").counter();
+                    return counter == null ? 0 : counter.count();
+                })
+                .sum();
+    }
+}
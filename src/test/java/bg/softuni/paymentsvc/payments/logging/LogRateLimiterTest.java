@@ -0,0 +1,72 @@
+package bg.softuni.paymentsvc.payments.logging;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.KeyValuePair;
+import org.slf4j.event.Level;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogRateLimiterTest {
+
+    private final Logger logger = (Logger) LoggerFactory.getLogger(LogRateLimiterTest.class);
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+    @BeforeEach
+    void attach() {
+        appender.start();
+        logger.addAppender(appender);
+    }
+
+    @AfterEach
+    void detach() {
+        logger.detachAppender(appender);
+    }
+
+    @Test
+    void log_shouldDropEventsOverTheLimit_andReportThemWithTheNextOne() throws Exception {
+        LogRateLimiter limiter = new LogRateLimiter(3);
+        awaitNextSecond();
+
+        for (int i = 0; i < 10; i++) {
+            limiter.log(logger, Level.WARN, "Rejected request {}", i);
+        }
+
+        assertEquals(3, appender.list.size());
+        assertEquals("Rejected request 0", appender.list.get(0).getFormattedMessage());
+        assertNull(appender.list.get(0).getKeyValuePairs());
+
+        awaitNextSecond();
+        limiter.log(logger, Level.WARN, "Rejected request {}", 10);
+
+        ILoggingEvent next = appender.list.get(3);
+        assertEquals("Rejected request 10", next.getFormattedMessage());
+        List<KeyValuePair> pairs = next.getKeyValuePairs();
+        assertEquals("suppressed", pairs.get(0).key);
+        assertEquals(7L, pairs.get(0).value);
+    }
+
+    @Test
+    void log_shouldNotUsePermits_whenLevelIsDisabled() {
+        LogRateLimiter limiter = new LogRateLimiter(1);
+
+        limiter.log(logger, Level.TRACE, "Not logged");
+
+        assertTrue(appender.list.isEmpty());
+        assertTrue(limiter.tryAcquire());
+    }
+
+    private static void awaitNextSecond() throws InterruptedException {
+        long second = System.currentTimeMillis() / 1000;
+        while (System.currentTimeMillis() / 1000 == second) {
+            Thread.sleep(5);
+        }
+    }
+}
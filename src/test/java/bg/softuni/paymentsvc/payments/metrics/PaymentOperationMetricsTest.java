@@ -0,0 +1,88 @@
+package bg.softuni.paymentsvc.payments.metrics;
+
+import bg.softuni.paymentsvc.payments.exception.PaymentNotFoundException;
+import bg.softuni.paymentsvc.payments.model.PaymentStatus;
+import bg.softuni.paymentsvc.payments.repository.PaymentRepository;
+import bg.softuni.paymentsvc.payments.service.PaymentService;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentRequest;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class PaymentOperationMetricsTest {
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private PendingPaymentsGauge pendingPaymentsGauge;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void paymentServiceCalls_shouldBeTimedByOperationAndOutcome() {
+        long created = count("createPayment", "success");
+        long found = count("getPayment", "success");
+        long notFound = count("getPayment", "not_found");
+
+        PaymentResponse payment = paymentService.createPayment(request());
+        paymentService.getPayment(payment.getId());
+        assertThrows(PaymentNotFoundException.class, () -> paymentService.getPayment(UUID.randomUUID()));
+
+        assertEquals(created + 1, count("createPayment", "success"));
+        assertEquals(found + 1, count("getPayment", "success"));
+        assertEquals(notFound + 1, count("getPayment", "not_found"));
+        assertTrue(timer("createPayment", "success").totalTime(TimeUnit.NANOSECONDS) > 0);
+    }
+
+    @Test
+    void refresh_shouldPublishThePendingCount() {
+        paymentService.createPayment(request());
+        paymentService.createPayment(request());
+
+        long expected = paymentRepository.countByStatus(PaymentStatus.PENDING);
+        pendingPaymentsGauge.refresh();
+
+        assertEquals(expected, pendingPaymentsGauge.pending());
+        assertEquals(expected, meterRegistry.get("payments.pending").gauge().value());
+    }
+
+    private long count(String operation, String outcome) {
+        Timer timer = meterRegistry.find(PaymentOperationMetrics.TIMER)
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+    private Timer timer(String operation, String outcome) {
+        return meterRegistry.get(PaymentOperationMetrics.TIMER)
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .timer();
+    }
+
+    private static PaymentRequest request() {
+        return PaymentRequest.builder()
+                .orderId(UUID.randomUUID())
+                .amount(new BigDecimal("12.00"))
+                .method("CARD")
+                .build();
+    }
+}
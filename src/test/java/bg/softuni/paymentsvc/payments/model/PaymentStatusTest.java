@@ -0,0 +1,24 @@
+package bg.softuni.paymentsvc.payments.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PaymentStatusTest {
+
+    @Test
+    void pending_shouldMoveOnlyToTerminalStatuses() {
+        assertTrue(PaymentStatus.PENDING.canTransitionTo(PaymentStatus.SUCCESSFUL));
+        assertTrue(PaymentStatus.PENDING.canTransitionTo(PaymentStatus.FAILED));
+        assertFalse(PaymentStatus.PENDING.canTransitionTo(PaymentStatus.PENDING));
+    }
+
+    @Test
+    void terminalStatuses_shouldNotMoveAnywhere() {
+        for (PaymentStatus target : PaymentStatus.values()) {
+            assertFalse(PaymentStatus.SUCCESSFUL.canTransitionTo(target));
+            assertFalse(PaymentStatus.FAILED.canTransitionTo(target));
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package bg.softuni.paymentsvc.payments.outbox;
+
+import bg.softuni.paymentsvc.payments.model.PaymentStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FilePaymentEventSinkTest {
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+
+    @Test
+    void publish_shouldAppendOneJsonLinePerEvent_acrossBatches(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("events/payment-events.ndjson");
+        FilePaymentEventSink sink = new FilePaymentEventSink(file, objectMapper);
+
+        sink.publish(List.of(event(1), event(2)));
+        sink.publish(List.of(event(3)));
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(3, lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            assertEquals(i + 1L, objectMapper.readValue(lines.get(i), PaymentStatusChangedEvent.class).getEventId());
+        }
+    }
+
+    private static PaymentStatusChangedEvent event(long id) {
+        return PaymentStatusChangedEvent.builder()
+                .eventId(id)
+                .paymentId(UUID.randomUUID())
+                .orderId(UUID.randomUUID())
+                .status(PaymentStatus.SUCCESSFUL)
+                .occurredOn(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,137 @@
+package bg.softuni.paymentsvc.payments.outbox;
+
+import bg.softuni.paymentsvc.payments.model.PaymentStatus;
+import bg.softuni.paymentsvc.payments.service.PaymentService;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentRequest;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentStatusUpdateRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.groups.Tuple.tuple;
+
+@SpringBootTest(properties = {
+        "payments.outbox.relay-enabled=true",
+        "payments.outbox.sink=memory",
+        "payments.outbox.poll-interval=1h",
+        "payments.outbox.batch-size=2"
+})
+class PaymentOutboxRelayTest {
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private PaymentOutboxRelay relay;
+
+    @Autowired
+    private PaymentEventSink sink;
+
+    @Autowired
+    private PaymentOutboxOffsetRepository offsetRepository;
+
+    @Autowired
+    private PaymentOutboxProperties properties;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void relay_shouldPublishEachStatusChangeOnceInOutboxOrder() {
+        UUID processed = create();
+        UUID failed = create();
+        UUID batched = create();
+        UUID untouched = create();
+
+        paymentService.processPayment(processed);
+        paymentService.updateStatus(failed, PaymentStatusUpdateRequest.builder().status(PaymentStatus.FAILED).build());
+        paymentService.processPayments(List.of(batched, processed));
+
+        relay.relay();
+        relay.relay();
+
+        List<PaymentStatusChangedEvent> events = ((InMemoryPaymentEventSink) sink).getEvents().stream()
+                .filter(event -> Set.of(processed, failed, batched, untouched).contains(event.getPaymentId()))
+                .toList();
+
+        assertThat(events)
+                .extracting(PaymentStatusChangedEvent::getPaymentId, PaymentStatusChangedEvent::getStatus)
+                .containsExactly(
+                        tuple(processed, PaymentStatus.SUCCESSFUL),
+                        tuple(failed, PaymentStatus.FAILED),
+                        tuple(batched, PaymentStatus.SUCCESSFUL));
+        assertThat(events)
+                .extracting(PaymentStatusChangedEvent::getEventId)
+                .isSorted();
+        assertThat(offsetRepository.findById(PaymentOutboxRelay.OFFSET_NAME))
+                .get()
+                .extracting(PaymentOutboxOffset::getLastEventId)
+                .isEqualTo(events.get(events.size() - 1).getEventId());
+    }
+
+    // Simulates a transaction that took an outbox id, then committed after a later id was already published.
+    @Test
+    void relay_shouldPublishEventsThatCommitBehindTheCursor() {
+        relay.relay();
+        long base = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM payment_outbox", Long.class) + 1;
+
+        insertEvent(base, LocalDateTime.now());
+        insertEvent(base + 2, LocalDateTime.now());
+        relay.relay();
+
+        assertThat(publishedIds()).contains(base, base + 2).doesNotContain(base + 1);
+        assertThat(offset()).isEqualTo(base);
+
+        // The late row keeps the occurred_on the app stamped before its commit was held up.
+        insertEvent(base + 1, LocalDateTime.now().minusHours(1));
+        relay.relay();
+
+        assertThat(publishedIds()).contains(base + 1);
+        assertThat(offset()).isEqualTo(base + 2);
+
+        Duration gapTimeout = properties.getGapTimeout();
+        properties.setGapTimeout(Duration.ZERO);
+        try {
+            insertEvent(base + 4, LocalDateTime.now());
+            relay.relay();
+        } finally {
+            properties.setGapTimeout(gapTimeout);
+        }
+
+        assertThat(offset()).isEqualTo(base + 4);
+    }
+
+    private void insertEvent(long id, LocalDateTime occurredOn) {
+        jdbcTemplate.update("""
+                        INSERT INTO payment_outbox (id, payment_id, order_id, status, occurred_on)
+                        VALUES (?, ?, ?, 'SUCCESSFUL', ?)
+                        """, id, UUID.randomUUID(), UUID.randomUUID(), occurredOn);
+    }
+
+    private List<Long> publishedIds() {
+        return ((InMemoryPaymentEventSink) sink).getEvents().stream()
+                .map(PaymentStatusChangedEvent::getEventId)
+                .toList();
+    }
+
+    private long offset() {
+        return offsetRepository.findById(PaymentOutboxRelay.OFFSET_NAME).orElseThrow().getLastEventId();
+    }
+
+    private UUID create() {
+        return paymentService.createPayment(PaymentRequest.builder()
+                .orderId(UUID.randomUUID())
+                .amount(new BigDecimal("4.20"))
+                .method("CARD")
+                .build()).getId();
+    }
+}
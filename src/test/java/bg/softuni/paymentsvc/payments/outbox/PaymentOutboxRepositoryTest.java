@@ -0,0 +1,96 @@
+package bg.softuni.paymentsvc.payments.outbox;
+
+import bg.softuni.paymentsvc.payments.model.Payment;
+import bg.softuni.paymentsvc.payments.model.PaymentStatus;
+import bg.softuni.paymentsvc.payments.repository.PaymentRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class PaymentOutboxRepositoryTest {
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private PaymentOutboxRepository outboxRepository;
+
+    @Test
+    @DisplayName("appendTransitions should record only the rows moved by the same update")
+    void appendTransitions_shouldRecordOnlyRowsThisUpdateMoved() {
+        Payment moved = pending();
+        Payment alreadyFailed = paymentRepository.saveAndFlush(Payment.builder()
+                .orderId(UUID.randomUUID())
+                .amount(BigDecimal.ONE)
+                .status(PaymentStatus.FAILED)
+                .method("CARD")
+                .createdOn(LocalDateTime.now())
+                .updatedOn(LocalDateTime.now().minusMinutes(1))
+                .build());
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        List<UUID> ids = List.of(moved.getId(), alreadyFailed.getId());
+
+        int updated = paymentRepository.transitionStatus(ids, PaymentStatus.PENDING, PaymentStatus.FAILED, now);
+        int appended = outboxRepository.appendTransitions(ids, PaymentStatus.FAILED, now);
+
+        assertThat(updated).isEqualTo(1);
+        assertThat(appended).isEqualTo(1);
+        assertThat(outboxRepository.findAll())
+                .filteredOn(event -> ids.contains(event.getPaymentId()))
+                .singleElement()
+                .satisfies(event -> {
+                    assertThat(event.getPaymentId()).isEqualTo(moved.getId());
+                    assertThat(event.getOrderId()).isEqualTo(moved.getOrderId());
+                    assertThat(event.getStatus()).isEqualTo(PaymentStatus.FAILED);
+                    assertThat(event.getOccurredOn()).isEqualTo(now);
+                });
+    }
+
+    @Test
+    @DisplayName("findByIdGreaterThan... should page through events in id order")
+    void findAfterId_shouldSeekPastLastPublishedEvent() {
+        LocalDateTime occurredOn = LocalDateTime.now().minusMinutes(1);
+        List<PaymentOutboxEvent> events = outboxRepository.saveAllAndFlush(List.of(
+                event(occurredOn), event(occurredOn), event(occurredOn), event(occurredOn)));
+
+        List<PaymentOutboxEvent> page = outboxRepository.findByIdGreaterThanOrderById(
+                events.get(0).getId(), Limit.of(2));
+
+        assertThat(page)
+                .extracting(PaymentOutboxEvent::getId)
+                .containsExactly(events.get(1).getId(), events.get(2).getId());
+    }
+
+    private Payment pending() {
+        return paymentRepository.saveAndFlush(Payment.builder()
+                .orderId(UUID.randomUUID())
+                .amount(BigDecimal.TEN)
+                .status(PaymentStatus.PENDING)
+                .method("CARD")
+                .createdOn(LocalDateTime.now())
+                .updatedOn(LocalDateTime.now())
+                .build());
+    }
+
+    private static PaymentOutboxEvent event(LocalDateTime occurredOn) {
+        return PaymentOutboxEvent.builder()
+                .paymentId(UUID.randomUUID())
+                .orderId(UUID.randomUUID())
+                .status(PaymentStatus.SUCCESSFUL)
+                .occurredOn(occurredOn)
+                .build();
+    }
+}
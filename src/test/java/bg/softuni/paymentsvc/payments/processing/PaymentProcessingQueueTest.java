@@ -0,0 +1,151 @@
+package bg.softuni.paymentsvc.payments.processing;
+
+import bg.softuni.paymentsvc.payments.exception.PaymentServiceBusyException;
+import bg.softuni.paymentsvc.payments.service.PaymentService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PaymentProcessingQueueTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PaymentService paymentService = mock(PaymentService.class);
+    private final List<Set<UUID>> batches = new CopyOnWriteArrayList<>();
+    private PaymentProcessingQueue queue;
+
+    @AfterEach
+    void tearDown() {
+        if (queue != null) {
+            queue.stop();
+        }
+    }
+
+    @Test
+    void submit_shouldBeRejected_whenAsyncProcessingIsNotRunning() {
+        queue = new PaymentProcessingQueue(paymentService, properties(10, 1, Duration.ZERO), meterRegistry);
+
+        assertThrows(PaymentServiceBusyException.class, () -> queue.submit(UUID.randomUUID()));
+        assertEquals(1.0, meterRegistry.get("payments.processing.rejected").counter().count());
+    }
+
+    @Test
+    void stop_shouldDrainEverythingAlreadyAccepted_inBatchesOfConfiguredSize() {
+        recordBatches();
+        queue = new PaymentProcessingQueue(paymentService, properties(100, 3, Duration.ofMillis(50)), meterRegistry);
+        queue.start();
+
+        List<UUID> submitted = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            UUID id = UUID.randomUUID();
+            submitted.add(id);
+            queue.submit(id);
+        }
+        queue.stop();
+
+        assertFalse(queue.isRunning());
+        assertTrue(batches.stream().allMatch(batch -> batch.size() <= 3));
+        assertEquals(submitted, batches.stream().flatMap(Collection::stream).toList());
+        assertEquals(10.0, meterRegistry.get("payments.processing.processed").counter().count());
+        assertEquals(0.0, meterRegistry.get("payments.processing.queue.depth").gauge().value());
+    }
+
+    @Test
+    void submit_shouldApplyBackPressure_whenQueueIsFull() throws Exception {
+        CountDownLatch inFlight = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(paymentService.processPayments(anyCollection())).thenAnswer(invocation -> {
+            inFlight.countDown();
+            release.await();
+            return 1;
+        });
+
+        queue = new PaymentProcessingQueue(paymentService, properties(1, 1, Duration.ZERO), meterRegistry);
+        queue.start();
+
+        queue.submit(UUID.randomUUID());
+        assertTrue(inFlight.await(5, TimeUnit.SECONDS));
+        queue.submit(UUID.randomUUID());
+
+        assertThrows(PaymentServiceBusyException.class, () -> queue.submit(UUID.randomUUID()));
+        assertEquals(1.0, meterRegistry.get("payments.processing.queue.depth").gauge().value());
+        assertEquals(1.0, meterRegistry.get("payments.processing.rejected").counter().count());
+
+        release.countDown();
+    }
+
+    @Test
+    void stop_shouldRetryAFailedBatch_withBackoff() {
+        when(paymentService.processPayments(anyCollection()))
+                .thenThrow(new PaymentServiceBusyException("busy"))
+                .thenThrow(new IllegalStateException("deadlock"))
+                .thenReturn(1);
+
+        queue = new PaymentProcessingQueue(paymentService, properties(10, 1, Duration.ZERO), meterRegistry);
+        queue.start();
+        queue.submit(UUID.randomUUID());
+        queue.stop();
+
+        verify(paymentService, times(3)).processPayments(anyCollection());
+        assertEquals(2.0, meterRegistry.get("payments.processing.retried").counter().count());
+        assertEquals(1.0, meterRegistry.get("payments.processing.processed").counter().count());
+        assertEquals(0.0, meterRegistry.get("payments.processing.failed").counter().count());
+    }
+
+    @Test
+    void stop_shouldGiveUpOnABatch_afterMaxRetries() {
+        when(paymentService.processPayments(anyCollection())).thenThrow(new IllegalStateException("down"));
+        PaymentProcessingProperties properties = properties(10, 2, Duration.ofMillis(50));
+        properties.setMaxRetries(2);
+
+        queue = new PaymentProcessingQueue(paymentService, properties, meterRegistry);
+        queue.start();
+        queue.submit(UUID.randomUUID());
+        queue.submit(UUID.randomUUID());
+        queue.stop();
+
+        verify(paymentService, times(3)).processPayments(anyCollection());
+        assertEquals(2.0, meterRegistry.get("payments.processing.failed").counter().count());
+        assertEquals(0.0, meterRegistry.get("payments.processing.processed").counter().count());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void recordBatches() {
+        when(paymentService.processPayments(anyCollection())).thenAnswer(invocation -> {
+            Set<UUID> batch = invocation.getArgument(0);
+            batches.add(batch);
+            return batch.size();
+        });
+    }
+
+    private static PaymentProcessingProperties properties(int capacity, int batchSize, Duration linger) {
+        PaymentProcessingProperties properties = new PaymentProcessingProperties();
+        properties.setAsync(true);
+        properties.setQueueCapacity(capacity);
+        properties.setBatchSize(batchSize);
+        properties.setLinger(linger);
+        properties.setWorkers(1);
+        properties.setEnqueueTimeout(Duration.ofMillis(20));
+        properties.setShutdownTimeout(Duration.ofSeconds(5));
+        properties.setRetryBackoff(Duration.ofMillis(1));
+        properties.setMaxRetryBackoff(Duration.ofMillis(5));
+        return properties;
+    }
+}
@@ -0,0 +1,248 @@
+package bg.softuni.paymentsvc.payments.reactive;
+
+import bg.softuni.paymentsvc.payments.model.PaymentStatus;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentPageResponse;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentRequest;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentResponse;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentStatusUpdateRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@ActiveProfiles("reactive")
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "spring.datasource.url=jdbc:h2:mem:reactivedb;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                "spring.r2dbc.url=r2dbc:h2:mem:///reactivedb;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                "spring.r2dbc.username=sa",
+                "spring.r2dbc.password="
+        })
+class ReactivePaymentApiTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // r2dbc-h2 binds every String as a CLOB, which H2 refuses to convert into its ENUM type; MySQL is unaffected.
+    @BeforeEach
+    void relaxStatusColumnForH2() {
+        jdbcTemplate.execute("ALTER TABLE payment ALTER COLUMN status VARCHAR(16) NOT NULL");
+        jdbcTemplate.execute("ALTER TABLE payment_stats_hourly ALTER COLUMN status VARCHAR(16) NOT NULL");
+    }
+
+    @Test
+    void createPayment_shouldCreateOnce_andRejectDuplicateOrder() {
+        PaymentRequest request = request(UUID.randomUUID());
+
+        PaymentResponse created = webTestClient.post().uri("/api/v1/payments")
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(PaymentResponse.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertNotNull(created);
+        assertEquals(PaymentStatus.PENDING, created.getStatus());
+
+        webTestClient.post().uri("/api/v1/payments")
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isEqualTo(409)
+                .expectBody()
+                .jsonPath("$.error").isEqualTo("Payment already exists");
+
+        webTestClient.get().uri("/api/v1/payments/{id}", created.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.orderId").isEqualTo(request.getOrderId().toString())
+                .jsonPath("$.amount").isEqualTo(12.5);
+
+        webTestClient.get().uri("/api/v1/payments/order/{orderId}", request.getOrderId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.id").isEqualTo(created.getId().toString());
+    }
+
+    @Test
+    void processPayment_shouldOnlyMovePendingToSuccessful() {
+        PaymentResponse created = create(UUID.randomUUID());
+
+        webTestClient.post().uri("/api/v1/payments/{id}/process", created.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo("SUCCESSFUL");
+
+        webTestClient.post().uri("/api/v1/payments/{id}", created.getId())
+                .bodyValue(new PaymentStatusUpdateRequest(PaymentStatus.FAILED))
+                .exchange()
+                .expectStatus().isEqualTo(409)
+                .expectBody()
+                .jsonPath("$.error").isEqualTo("Payment status conflict");
+
+        webTestClient.post().uri("/api/v1/payments/{id}/process", created.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo("SUCCESSFUL");
+    }
+
+    @Test
+    void updateStatus_shouldFailPendingPayment() {
+        PaymentResponse created = create(UUID.randomUUID());
+
+        webTestClient.post().uri("/api/v1/payments/{id}", created.getId())
+                .bodyValue(new PaymentStatusUpdateRequest(PaymentStatus.FAILED))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo("FAILED");
+
+        webTestClient.post().uri("/api/v1/payments/{id}/process", created.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo("FAILED");
+    }
+
+    @Test
+    void endpoints_shouldMapErrors() {
+        webTestClient.get().uri("/api/v1/payments/{id}", UUID.randomUUID())
+                .exchange()
+                .expectStatus().isNotFound();
+
+        webTestClient.post().uri("/api/v1/payments/{id}/process", UUID.randomUUID())
+                .exchange()
+                .expectStatus().isNotFound();
+
+        webTestClient.post().uri("/api/v1/payments")
+                .bodyValue(PaymentRequest.builder().amount(BigDecimal.ZERO).build())
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.error").isEqualTo("Validation error");
+
+        webTestClient.get().uri("/api/v1/payments?after=not-a-cursor")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void listPayments_shouldPageWithCursor() {
+        String method = "REACTIVE-" + UUID.randomUUID();
+        for (int i = 0; i < 3; i++) {
+            webTestClient.post().uri("/api/v1/payments")
+                    .bodyValue(PaymentRequest.builder()
+                            .orderId(UUID.randomUUID())
+                            .amount(BigDecimal.ONE)
+                            .method(method)
+                            .build())
+                    .exchange()
+                    .expectStatus().isCreated();
+        }
+
+        PaymentPageResponse first = page(method, null);
+        PaymentPageResponse second = page(method, first.getNextCursor());
+
+        assertEquals(2, first.getItems().size());
+        assertNotNull(first.getNextCursor());
+        assertEquals(1, second.getItems().size());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    void writes_shouldKeepTheHourlyStatsInStep() {
+        String method = "REACTIVE-" + UUID.randomUUID();
+        UUID processed = create(method).getId();
+        UUID failed = create(method).getId();
+        create(method);
+
+        webTestClient.post().uri("/api/v1/payments/{id}/process", processed)
+                .exchange()
+                .expectStatus().isOk();
+        webTestClient.post().uri("/api/v1/payments/{id}", failed)
+                .bodyValue(new PaymentStatusUpdateRequest(PaymentStatus.FAILED))
+                .exchange()
+                .expectStatus().isOk();
+
+        assertEquals(Map.of("PENDING", 1L, "SUCCESSFUL", 1L, "FAILED", 1L), statsByStatus(method));
+    }
+
+    private Map<String, Long> statsByStatus(String method) {
+        Map<String, Long> byStatus = new HashMap<>();
+        jdbcTemplate.query("""
+                        SELECT status, SUM(payment_count) AS payments FROM payment_stats_hourly
+                        WHERE method = ? GROUP BY status HAVING SUM(payment_count) <> 0
+                        """,
+                row -> {
+                    byStatus.put(row.getString("status"), row.getLong("payments"));
+                },
+                method);
+        return byStatus;
+    }
+
+    private PaymentResponse create(String method) {
+        return webTestClient.post().uri("/api/v1/payments")
+                .bodyValue(PaymentRequest.builder()
+                        .orderId(UUID.randomUUID())
+                        .amount(BigDecimal.ONE)
+                        .method(method)
+                        .build())
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(PaymentResponse.class)
+                .returnResult()
+                .getResponseBody();
+    }
+
+    private PaymentPageResponse page(String method, String after) {
+        return webTestClient.get().uri(uri -> uri.path("/api/v1/payments")
+                        .queryParam("method", method)
+                        .queryParam("limit", 2)
+                        .queryParamIfPresent("after", Optional.ofNullable(after))
+                        .build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(PaymentPageResponse.class)
+                .returnResult()
+                .getResponseBody();
+    }
+
+    private PaymentResponse create(UUID orderId) {
+        return webTestClient.post().uri("/api/v1/payments")
+                .bodyValue(request(orderId))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(PaymentResponse.class)
+                .returnResult()
+                .getResponseBody();
+    }
+
+    private static PaymentRequest request(UUID orderId) {
+        return PaymentRequest.builder()
+                .orderId(orderId)
+                .amount(new BigDecimal("12.50"))
+                .method("CARD")
+                .build();
+    }
+}
@@ -0,0 +1,41 @@
+package bg.softuni.paymentsvc.payments.repository;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:migrations;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.jpa.database-platform=org.hibernate.dialect.MySQLDialect",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.flyway.enabled=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class PaymentMigrationTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    @DisplayName("migrations should produce a schema that the Payment mapping validates against")
+    void migrations_shouldMatchEntityMapping() {
+        @SuppressWarnings("unchecked")
+        List<String> indexes = entityManager.createNativeQuery("""
+                        SELECT index_name FROM information_schema.indexes
+                        WHERE table_name = 'payment'
+                        """)
+                .getResultList();
+
+        assertThat(indexes).contains(
+                "idx_payment_status_created_on",
+                "idx_payment_created_on_id",
+                "idx_payment_method_created_on");
+    }
+}
@@ -2,25 +2,38 @@ package bg.softuni.paymentsvc.payments.repository;
 
 import bg.softuni.paymentsvc.payments.model.Payment;
 import bg.softuni.paymentsvc.payments.model.PaymentStatus;
+import bg.softuni.paymentsvc.payments.repository.projection.PaymentKey;
+import bg.softuni.paymentsvc.payments.repository.projection.PaymentSummary;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
 class PaymentRepositoryTest {
 
     @Autowired
     private PaymentRepository paymentRepository;
 
+    @Autowired
+    private EntityManager entityManager;
+
     @Test
     @DisplayName("findByOrderId should return payment when exists")
     void findByOrderId_shouldReturnPayment_whenExists() {
@@ -43,8 +56,8 @@ class PaymentRepositoryTest {
     }
 
     @Test
-    @DisplayName("findAllByStatusAndCreatedOnBefore should return old pending payments")
-    void findAllByStatusAndCreatedOnBefore_shouldReturnOldPendingPayments() {
+    @DisplayName("findKeysByStatusAndCreatedOnBefore should return only old pending payments")
+    void findKeysByStatusAndCreatedOnBefore_shouldReturnOldPendingPayments() {
         LocalDateTime now = LocalDateTime.now();
         LocalDateTime threeHoursAgo = now.minusHours(3);
 
@@ -69,13 +82,267 @@ class PaymentRepositoryTest {
         paymentRepository.save(oldPending);
         paymentRepository.save(recentPending);
 
-        List<Payment> result = paymentRepository
-                .findAllByStatusAndCreatedOnBefore(PaymentStatus.PENDING, now.minusHours(2));
+        List<PaymentKey> result = paymentRepository
+                .findKeysByStatusAndCreatedOnBefore(PaymentStatus.PENDING, now.minusHours(2), Limit.of(10));
 
         assertThat(result)
                 .hasSize(1)
                 .first()
-                .extracting(Payment::getId)
+                .extracting(PaymentKey::getId)
                 .isEqualTo(oldPending.getId());
     }
+
+    @Test
+    @DisplayName("streamAllOrderIds should stream every stored order id")
+    void streamAllOrderIds_shouldStreamEveryOrderId() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+
+        for (UUID orderId : List.of(first, second)) {
+            paymentRepository.save(Payment.builder()
+                    .orderId(orderId)
+                    .amount(BigDecimal.ONE)
+                    .status(PaymentStatus.PENDING)
+                    .method("CARD")
+                    .createdOn(LocalDateTime.now())
+                    .updatedOn(LocalDateTime.now())
+                    .build());
+        }
+
+        try (Stream<UUID> orderIds = paymentRepository.streamAllOrderIds()) {
+            assertThat(orderIds).containsExactlyInAnyOrder(first, second);
+        }
+    }
+
+    @Test
+    @DisplayName("insertIfAbsent should insert once and report duplicates by orderId")
+    void insertIfAbsent_shouldInsertOnlyFirstPaymentForOrder() {
+        UUID orderId = UUID.randomUUID();
+        LocalDateTime now = LocalDateTime.now();
+
+        Payment first = Payment.builder()
+                .id(UUID.randomUUID())
+                .orderId(orderId)
+                .amount(BigDecimal.valueOf(3.30))
+                .status(PaymentStatus.PENDING)
+                .method("CARD")
+                .createdOn(now)
+                .updatedOn(now)
+                .build();
+
+        Payment duplicate = Payment.builder()
+                .id(UUID.randomUUID())
+                .orderId(orderId)
+                .amount(BigDecimal.valueOf(9.99))
+                .status(PaymentStatus.PENDING)
+                .method("CASH")
+                .createdOn(now)
+                .updatedOn(now)
+                .build();
+
+        assertThat(paymentRepository.insertIfAbsent(first)).isTrue();
+        assertThat(paymentRepository.insertIfAbsent(duplicate)).isFalse();
+
+        Optional<Payment> stored = paymentRepository.findByOrderId(orderId);
+        assertThat(stored).isPresent();
+        assertThat(stored.get().getId()).isEqualTo(first.getId());
+        assertThat(stored.get().getMethod()).isEqualTo("CARD");
+    }
+
+    @Test
+    @DisplayName("insertIfAbsent should fail, not truncate, when a value does not fit its column")
+    void insertIfAbsent_shouldRejectValuesThatDoNotFit() {
+        LocalDateTime now = LocalDateTime.now();
+        Payment tooLong = Payment.builder()
+                .id(UUID.randomUUID())
+                .orderId(UUID.randomUUID())
+                .amount(BigDecimal.ONE)
+                .status(PaymentStatus.PENDING)
+                .method("C".repeat(256))
+                .createdOn(now)
+                .updatedOn(now)
+                .build();
+
+        assertThatThrownBy(() -> paymentRepository.insertIfAbsent(tooLong))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    @DisplayName("findByOrderIdIn should return only payments for the given orders")
+    void findByOrderIdIn_shouldReturnMatchingPayments() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+
+        for (UUID orderId : List.of(first, second, UUID.randomUUID())) {
+            paymentRepository.save(Payment.builder()
+                    .orderId(orderId)
+                    .amount(BigDecimal.ONE)
+                    .status(PaymentStatus.PENDING)
+                    .method("CARD")
+                    .createdOn(LocalDateTime.now())
+                    .updatedOn(LocalDateTime.now())
+                    .build());
+        }
+
+        List<Payment> result = paymentRepository.findByOrderIdIn(List.of(first, second, UUID.randomUUID()));
+
+        assertThat(result)
+                .extracting(Payment::getOrderId)
+                .containsExactlyInAnyOrder(first, second);
+    }
+
+    @Test
+    @DisplayName("findKeysByStatusAndCreatedOnBefore and transitionStatus should fail stale pending payments in chunks")
+    void transitionStatus_shouldOnlyUpdateRowsStillInSourceStatus() {
+        LocalDateTime threeHoursAgo = LocalDateTime.now().minusHours(3);
+
+        List<Payment> stale = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            stale.add(paymentRepository.save(Payment.builder()
+                    .orderId(UUID.randomUUID())
+                    .amount(BigDecimal.ONE)
+                    .status(PaymentStatus.PENDING)
+                    .method("CARD")
+                    .createdOn(threeHoursAgo.plusMinutes(i))
+                    .updatedOn(threeHoursAgo.plusMinutes(i))
+                    .build()));
+        }
+        paymentRepository.flush();
+
+        List<PaymentKey> firstChunk = paymentRepository.findKeysByStatusAndCreatedOnBefore(
+                PaymentStatus.PENDING, LocalDateTime.now().minusHours(2), Limit.of(2));
+
+        assertThat(firstChunk)
+                .extracting(PaymentKey::getId)
+                .containsExactly(stale.get(0).getId(), stale.get(1).getId());
+
+        int updated = paymentRepository.transitionStatus(
+                List.of(stale.get(0).getId(), stale.get(1).getId()),
+                PaymentStatus.PENDING, PaymentStatus.FAILED, LocalDateTime.now());
+        int repeated = paymentRepository.transitionStatus(
+                List.of(stale.get(0).getId()),
+                PaymentStatus.PENDING, PaymentStatus.FAILED, LocalDateTime.now());
+
+        assertThat(updated).isEqualTo(2);
+        assertThat(repeated).isZero();
+        assertThat(paymentRepository.findKeysByStatusAndCreatedOnBefore(
+                PaymentStatus.PENDING, LocalDateTime.now().minusHours(2), Limit.of(2)))
+                .extracting(PaymentKey::getId)
+                .containsExactly(stale.get(2).getId());
+    }
+
+    @Test
+    @DisplayName("compareAndSetStatus should only move a payment out of the expected status once")
+    void compareAndSetStatus_shouldUpdateOnlyFromExpectedStatus() {
+        Payment payment = paymentRepository.saveAndFlush(Payment.builder()
+                .orderId(UUID.randomUUID())
+                .amount(BigDecimal.TEN)
+                .status(PaymentStatus.PENDING)
+                .method("CARD")
+                .createdOn(LocalDateTime.now())
+                .updatedOn(LocalDateTime.now())
+                .build());
+
+        int first = paymentRepository.compareAndSetStatus(
+                payment.getId(), PaymentStatus.PENDING, PaymentStatus.SUCCESSFUL, LocalDateTime.now());
+        int second = paymentRepository.compareAndSetStatus(
+                payment.getId(), PaymentStatus.PENDING, PaymentStatus.FAILED, LocalDateTime.now());
+
+        assertThat(first).isEqualTo(1);
+        assertThat(second).isZero();
+        assertThat(paymentRepository.findSummaryById(payment.getId()))
+                .get()
+                .extracting(PaymentSummary::getStatus)
+                .isEqualTo(PaymentStatus.SUCCESSFUL);
+    }
+
+    @Test
+    @DisplayName("stale pending lookup should use the (status, created_on) index")
+    void stalePendingLookup_shouldUseStatusCreatedOnIndex() {
+        String plan = (String) entityManager.createNativeQuery("""
+                        EXPLAIN SELECT id, order_id FROM payment
+                        WHERE status = 'PENDING' AND created_on < CURRENT_TIMESTAMP
+                        ORDER BY created_on, id
+                        LIMIT 500
+                        """)
+                .getSingleResult();
+
+        assertThat(plan).containsIgnoringCase("idx_payment_status_created_on");
+    }
+
+    @Test
+    @DisplayName("search should page through filtered payments by (createdOn, id) without gaps or repeats")
+    void search_shouldSeekPastCursor() {
+        LocalDateTime sameInstant = LocalDateTime.now().minusMinutes(10).withNano(0);
+
+        for (int i = 0; i < 5; i++) {
+            paymentRepository.save(Payment.builder()
+                    .orderId(UUID.randomUUID())
+                    .amount(BigDecimal.ONE)
+                    .status(PaymentStatus.PENDING)
+                    .method("CARD")
+                    .createdOn(sameInstant)
+                    .updatedOn(sameInstant)
+                    .build());
+        }
+        paymentRepository.save(Payment.builder()
+                .orderId(UUID.randomUUID())
+                .amount(BigDecimal.ONE)
+                .status(PaymentStatus.SUCCESSFUL)
+                .method("CARD")
+                .createdOn(sameInstant)
+                .updatedOn(sameInstant)
+                .build());
+        paymentRepository.flush();
+
+        PaymentSearchCriteria firstPage = PaymentSearchCriteria.builder()
+                .status(PaymentStatus.PENDING)
+                .method("CARD")
+                .from(sameInstant.minusMinutes(1))
+                .to(sameInstant.plusMinutes(1))
+                .build();
+
+        List<PaymentSummary> page1 = paymentRepository.search(firstPage, 3);
+        PaymentSummary last = page1.get(page1.size() - 1);
+
+        List<PaymentSummary> page2 = paymentRepository.search(PaymentSearchCriteria.builder()
+                .status(PaymentStatus.PENDING)
+                .method("CARD")
+                .from(sameInstant.minusMinutes(1))
+                .to(sameInstant.plusMinutes(1))
+                .afterCreatedOn(last.getCreatedOn())
+                .afterId(last.getId())
+                .build(), 3);
+
+        assertThat(page1).hasSize(3);
+        assertThat(page2).hasSize(2);
+        assertThat(page2)
+                .extracting(PaymentSummary::getId)
+                .doesNotContainAnyElementsOf(page1.stream().map(PaymentSummary::getId).toList());
+        assertThat(page2).allMatch(p -> p.getStatus() == PaymentStatus.PENDING);
+    }
+
+    @Test
+    @DisplayName("streamByCreatedOnBetween should stream only the window, oldest first")
+    void streamByCreatedOnBetween_shouldStreamWindowInOrder() {
+        LocalDateTime start = LocalDateTime.now().minusDays(1).withNano(0);
+
+        for (int hour = -1; hour <= 3; hour++) {
+            paymentRepository.save(Payment.builder()
+                    .orderId(UUID.randomUUID())
+                    .amount(BigDecimal.valueOf(hour + 10))
+                    .status(PaymentStatus.PENDING)
+                    .method("CARD")
+                    .createdOn(start.plusHours(hour))
+                    .updatedOn(start.plusHours(hour))
+                    .build());
+        }
+        paymentRepository.flush();
+
+        try (Stream<PaymentSummary> payments = paymentRepository.streamByCreatedOnBetween(start, start.plusHours(3))) {
+            assertThat(payments)
+                    .extracting(PaymentSummary::getCreatedOn)
+                    .containsExactly(start, start.plusHours(1), start.plusHours(2));
+        }
+    }
 }
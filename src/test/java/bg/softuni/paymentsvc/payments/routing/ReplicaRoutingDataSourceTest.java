@@ -0,0 +1,63 @@
+package bg.softuni.paymentsvc.payments.routing;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReplicaRoutingDataSourceTest {
+
+    private final DataSource primary = mock(DataSource.class);
+    private final HikariDataSource replica1 = replica("replica-1");
+    private final HikariDataSource replica2 = replica("replica-2");
+
+    @Test
+    void select_shouldRoundRobinAcrossReplicas() {
+        ReplicaRoutingDataSource dataSource = routing(ReplicaRoutingProperties.Selection.ROUND_ROBIN);
+
+        assertSame(replica1, dataSource.select());
+        assertSame(replica2, dataSource.select());
+        assertSame(replica1, dataSource.select());
+    }
+
+    @Test
+    void select_shouldPickReplicaWithFewestActiveConnections() {
+        HikariPoolMXBean busy = mock(HikariPoolMXBean.class);
+        HikariPoolMXBean idle = mock(HikariPoolMXBean.class);
+        when(busy.getActiveConnections()).thenReturn(7);
+        when(idle.getActiveConnections()).thenReturn(1);
+        when(replica1.getHikariPoolMXBean()).thenReturn(busy);
+        when(replica2.getHikariPoolMXBean()).thenReturn(idle);
+
+        ReplicaRoutingDataSource dataSource = routing(ReplicaRoutingProperties.Selection.LEAST_CONNECTIONS);
+
+        assertSame(replica2, dataSource.select());
+        assertSame(replica2, dataSource.select());
+    }
+
+    @Test
+    void select_shouldUsePrimaryWhilePinned() {
+        ReadYourWrites readYourWrites = new ReadYourWrites(new ReplicaRoutingProperties());
+        ReplicaRoutingDataSource dataSource = routing(ReplicaRoutingProperties.Selection.ROUND_ROBIN);
+
+        assertSame(primary, readYourWrites.onPrimary(dataSource::select));
+        assertSame(replica1, dataSource.select());
+    }
+
+    private ReplicaRoutingDataSource routing(ReplicaRoutingProperties.Selection selection) {
+        return new ReplicaRoutingDataSource(primary, List.of(replica1, replica2), selection, new SimpleMeterRegistry());
+    }
+
+    private static HikariDataSource replica(String poolName) {
+        HikariDataSource replica = mock(HikariDataSource.class);
+        when(replica.getPoolName()).thenReturn(poolName);
+        return replica;
+    }
+}
@@ -0,0 +1,155 @@
+package bg.softuni.paymentsvc.payments.routing;
+
+import bg.softuni.paymentsvc.payments.cache.PaymentCache;
+import bg.softuni.paymentsvc.payments.model.Payment;
+import bg.softuni.paymentsvc.payments.model.PaymentStatus;
+import bg.softuni.paymentsvc.payments.repository.PaymentRepository;
+import bg.softuni.paymentsvc.payments.service.PaymentService;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentRequest;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentResponse;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "payments.routing.enabled=true",
+        "payments.routing.read-your-writes-window=1m",
+        "payments.routing.replicas[0].url=" + ReplicaRoutingIntegrationTest.REPLICA_1,
+        "payments.routing.replicas[1].url=" + ReplicaRoutingIntegrationTest.REPLICA_2
+})
+class ReplicaRoutingIntegrationTest {
+
+    static final String REPLICA_1 = "jdbc:h2:mem:replica1;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_2 = "jdbc:h2:mem:replica2;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private PaymentCache paymentCache;
+
+    @Autowired
+    private HikariDataSource primaryDataSource;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Replication is simulated: replicas only see the primary's rows as of the last replicate() call.
+    @BeforeEach
+    void replicate() {
+        List<String> snapshot = new JdbcTemplate(primaryDataSource).queryForList("SCRIPT TABLE payment", String.class);
+
+        for (String replica : List.of(REPLICA_1, REPLICA_2)) {
+            JdbcTemplate jdbc = replicaJdbc(replica);
+            jdbc.execute("DROP TABLE IF EXISTS payment");
+            snapshot.stream()
+                    .filter(sql -> !sql.startsWith("CREATE USER"))
+                    .forEach(jdbc::execute);
+        }
+    }
+
+    @Test
+    void readOnlyReads_shouldBeSpreadAcrossReplicas() {
+        UUID paymentId = saveBypassingTracker();
+        replicate();
+        double before1 = connections("replica-1");
+        double before2 = connections("replica-2");
+
+        assertTrue(paymentRepository.findById(paymentId).isPresent());
+        assertTrue(paymentRepository.findById(paymentId).isPresent());
+
+        assertEquals(before1 + 1, connections("replica-1"));
+        assertEquals(before2 + 1, connections("replica-2"));
+    }
+
+    @Test
+    void getPayment_shouldBeServedByReplica_whenNotRecentlyWritten() {
+        UUID paymentId = saveBypassingTracker();
+        replicate();
+        for (String replica : List.of(REPLICA_1, REPLICA_2)) {
+            replicaJdbc(replica).update("UPDATE payment SET amount = 99.99 WHERE id = ?", paymentId);
+        }
+
+        PaymentResponse payment = paymentService.getPayment(paymentId);
+
+        assertEquals(0, new BigDecimal("99.99").compareTo(payment.getAmount()));
+    }
+
+    @Test
+    void getPayment_shouldStayOnPrimary_rightAfterCreate() {
+        PaymentResponse created = paymentService.createPayment(request());
+        paymentCache.evict(created.getId(), created.getOrderId());
+        double replicaReads = connections("replica-1") + connections("replica-2");
+        double primaryReads = connections("primary");
+
+        assertEquals(created.getId(), paymentService.getPaymentByOrderId(created.getOrderId()).getId());
+
+        assertEquals(replicaReads, connections("replica-1") + connections("replica-2"));
+        assertEquals(primaryReads + 1, connections("primary"));
+    }
+
+    @Test
+    void getPayment_shouldRecheckPrimary_whenReplicaIsBehind() {
+        UUID paymentId = saveBypassingTracker();
+        double replicaReads = connections("replica-1") + connections("replica-2");
+        double primaryReads = connections("primary");
+
+        assertEquals(paymentId, paymentService.getPayment(paymentId).getId());
+
+        assertEquals(replicaReads + 1, connections("replica-1") + connections("replica-2"));
+        assertEquals(primaryReads + 1, connections("primary"));
+    }
+
+    @Test
+    void writes_shouldGoToPrimary() {
+        PaymentResponse created = paymentService.createPayment(request());
+        PaymentResponse processed = paymentService.processPayment(created.getId());
+
+        assertEquals(PaymentStatus.SUCCESSFUL, processed.getStatus());
+        assertEquals(0, replicaJdbc(REPLICA_1).queryForObject(
+                "SELECT COUNT(*) FROM payment WHERE id = ?", Integer.class, created.getId()));
+    }
+
+    private UUID saveBypassingTracker() {
+        LocalDateTime now = LocalDateTime.now();
+        return paymentRepository.save(Payment.builder()
+                .orderId(UUID.randomUUID())
+                .amount(new BigDecimal("12.00"))
+                .method("CARD")
+                .status(PaymentStatus.PENDING)
+                .createdOn(now)
+                .updatedOn(now)
+                .build()).getId();
+    }
+
+    private double connections(String target) {
+        return meterRegistry.get("payments.routing.connections").tag("target", target).counter().count();
+    }
+
+    private static JdbcTemplate replicaJdbc(String url) {
+        return new JdbcTemplate(new SingleConnectionDataSource(url, "sa", "", true));
+    }
+
+    private static PaymentRequest request() {
+        return PaymentRequest.builder()
+                .orderId(UUID.randomUUID())
+                .amount(new BigDecimal("7.25"))
+                .method("CARD")
+                .build();
+    }
+}
@@ -1,21 +1,39 @@
 package bg.softuni.paymentsvc.payments.scheduler;
 
-import bg.softuni.paymentsvc.payments.model.Payment;
+import bg.softuni.paymentsvc.payments.cache.PaymentCache;
+import bg.softuni.paymentsvc.payments.lease.SchedulerLeaseProperties;
+import bg.softuni.paymentsvc.payments.lease.SchedulerLeaseRepository;
+import bg.softuni.paymentsvc.payments.lease.SchedulerLeases;
 import bg.softuni.paymentsvc.payments.model.PaymentStatus;
+import bg.softuni.paymentsvc.payments.outbox.PaymentOutboxRepository;
 import bg.softuni.paymentsvc.payments.repository.PaymentRepository;
+import bg.softuni.paymentsvc.payments.repository.projection.PaymentKey;
+import bg.softuni.paymentsvc.payments.sharding.PaymentShards;
+import bg.softuni.paymentsvc.payments.sharding.ShardingProperties;
+import bg.softuni.paymentsvc.payments.stats.PaymentStatsService;
+import bg.softuni.paymentsvc.payments.watch.PaymentStatusChange;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
@@ -25,49 +43,137 @@ class PaymentCleanupSchedulerTest {
     @Mock
     private PaymentRepository paymentRepository;
 
+    @Mock
+    private PaymentOutboxRepository paymentOutboxRepository;
+
+    @Mock
+    private PaymentStatsService paymentStatsService;
+
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PaymentCache paymentCache;
+
+    @Spy
+    private PaymentCleanupProperties properties = new PaymentCleanupProperties();
+
+    @Spy
+    private PaymentShards paymentShards = new PaymentShards(new ShardingProperties());
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    // Disabled leases always grant the lease, as on a single instance.
+    @Spy
+    private SchedulerLeases leases = new SchedulerLeases(
+            mock(SchedulerLeaseRepository.class), paymentShards, new SchedulerLeaseProperties());
+
     @InjectMocks
     private PaymentCleanupScheduler scheduler;
 
     @Test
     void failOldPendingPayments_shouldMarkOldPaymentsAsFailed() {
-        LocalDateTime threeHoursAgo = LocalDateTime.now().minusHours(3);
-
-        Payment oldPending = Payment.builder()
-                .id(UUID.randomUUID())
-                .orderId(UUID.randomUUID())
-                .amount(BigDecimal.TEN)
-                .status(PaymentStatus.PENDING)
-                .method("CARD")
-                .createdOn(threeHoursAgo)
-                .updatedOn(threeHoursAgo)
-                .build();
-
-        when(paymentRepository.findAllByStatusAndCreatedOnBefore(
+        PaymentKey oldPending = new PaymentKey(UUID.randomUUID(), UUID.randomUUID());
+
+        when(paymentRepository.findKeysByStatusAndCreatedOnBefore(
                 eq(PaymentStatus.PENDING),
-                any(LocalDateTime.class)))
+                any(LocalDateTime.class),
+                any(Limit.class)))
                 .thenReturn(List.of(oldPending));
+        when(paymentRepository.transitionStatus(
+                any(), eq(PaymentStatus.PENDING), eq(PaymentStatus.FAILED), any(LocalDateTime.class)))
+                .thenReturn(1);
 
         scheduler.failOldPendingPayments();
 
-        ArgumentCaptor<List<Payment>> captor = ArgumentCaptor.forClass(List.class);
-        verify(paymentRepository).saveAll(captor.capture());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<UUID>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(paymentRepository).transitionStatus(
+                captor.capture(), eq(PaymentStatus.PENDING), eq(PaymentStatus.FAILED), any(LocalDateTime.class));
+
+        assertEquals(List.of(oldPending.getId()), List.copyOf(captor.getValue()));
+        verify(paymentOutboxRepository).appendTransitions(
+                eq(List.of(oldPending.getId())), eq(PaymentStatus.FAILED), any(LocalDateTime.class));
+        verify(paymentStatsService).recordTransitions(eq(List.of(oldPending.getId())), eq(PaymentStatus.PENDING),
+                eq(PaymentStatus.FAILED), any(LocalDateTime.class));
+        verify(transactionTemplate).execute(any());
+        verify(eventPublisher).publishEvent(any(PaymentStatusChange.class));
+        verify(paymentCache).evict(oldPending.getId(), oldPending.getOrderId());
+        assertEquals(1, meterRegistry.get("payments.cleanup.duration").timer().count());
+        assertEquals(1.0, meterRegistry.get("payments.cleanup.failed").counter().count());
+    }
+
+    @Test
+    void failOldPendingPayments_shouldProcessInChunksUntilNoneRemain() {
+        properties.setChunkSize(2);
 
-        List<Payment> saved = captor.getValue();
-        assertEquals(1, saved.size());
+        List<PaymentKey> firstChunk = List.of(
+                new PaymentKey(UUID.randomUUID(), UUID.randomUUID()),
+                new PaymentKey(UUID.randomUUID(), UUID.randomUUID()));
+        List<PaymentKey> secondChunk = List.of(
+                new PaymentKey(UUID.randomUUID(), UUID.randomUUID()),
+                new PaymentKey(UUID.randomUUID(), UUID.randomUUID()));
 
-        Payment updated = saved.get(0);
-        assertEquals(PaymentStatus.FAILED, updated.getStatus());
+        when(paymentRepository.findKeysByStatusAndCreatedOnBefore(
+                eq(PaymentStatus.PENDING),
+                any(LocalDateTime.class),
+                eq(Limit.of(2))))
+                .thenReturn(firstChunk)
+                .thenReturn(secondChunk)
+                .thenReturn(List.of());
+        when(paymentRepository.transitionStatus(any(), any(), any(), any())).thenReturn(2);
+
+        scheduler.failOldPendingPayments();
+
+        verify(paymentRepository, times(3)).findKeysByStatusAndCreatedOnBefore(any(), any(), any());
+        verify(paymentRepository, times(2)).transitionStatus(any(), any(), any(), any());
+        verify(paymentCache, times(4)).evict(any(), any());
     }
 
     @Test
     void failOldPendingPayments_shouldDoNothing_whenNoneFound() {
-        when(paymentRepository.findAllByStatusAndCreatedOnBefore(
+        when(paymentRepository.findKeysByStatusAndCreatedOnBefore(
                 eq(PaymentStatus.PENDING),
-                any(LocalDateTime.class)))
+                any(LocalDateTime.class),
+                any(Limit.class)))
+                .thenReturn(List.of());
+
+        scheduler.failOldPendingPayments();
+
+        verify(paymentRepository, never()).transitionStatus(any(), any(), any(), any());
+        verifyNoInteractions(paymentCache);
+    }
+
+    @Test
+    void failOldPendingPayments_shouldSkipRun_whenAnotherInstanceHoldsTheLease() {
+        doReturn(false).when(leases).tryAcquire(eq(PaymentCleanupScheduler.LEASE), any());
+
+        scheduler.failOldPendingPayments();
+
+        verifyNoInteractions(paymentRepository, paymentCache);
+        assertNull(meterRegistry.find("payments.cleanup.duration").timer());
+    }
+
+    @Test
+    void failOldPendingPayments_shouldOnlyCleanPartitionsItHoldsTheLeaseFor() {
+        properties.setPartitions(4);
+        Set<String> heldElsewhere = Set.of(PaymentCleanupScheduler.leaseName(1, 4), PaymentCleanupScheduler.leaseName(3, 4));
+        doAnswer(invocation -> !heldElsewhere.contains(invocation.<String>getArgument(0)))
+                .when(leases).tryAcquire(any(), any());
+        when(paymentRepository.findKeysByStatusAndCreatedOnBeforeInPartition(
+                eq(PaymentStatus.PENDING), any(LocalDateTime.class), anyInt(), eq(4), eq(500)))
                 .thenReturn(List.of());
 
         scheduler.failOldPendingPayments();
 
-        verify(paymentRepository, never()).saveAll(any());
+        verify(paymentRepository).findKeysByStatusAndCreatedOnBeforeInPartition(any(), any(), eq(0), eq(4), anyInt());
+        verify(paymentRepository).findKeysByStatusAndCreatedOnBeforeInPartition(any(), any(), eq(2), eq(4), anyInt());
+        verifyNoMoreInteractions(paymentRepository);
+        verify(leases).extend(PaymentCleanupScheduler.leaseName(0, 4), properties.getLeaseHold());
+        verify(leases).extend(PaymentCleanupScheduler.leaseName(2, 4), properties.getLeaseHold());
     }
 }
@@ -0,0 +1,108 @@
+package bg.softuni.paymentsvc.payments.service;
+
+import bg.softuni.paymentsvc.payments.model.PaymentStatus;
+import bg.softuni.paymentsvc.payments.repository.PaymentRepository;
+import bg.softuni.paymentsvc.payments.repository.projection.PaymentSummary;
+import bg.softuni.paymentsvc.payments.sharding.PaymentShards;
+import bg.softuni.paymentsvc.payments.sharding.ShardingProperties;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PaymentExportServiceTest {
+
+    private static final LocalDateTime FROM = LocalDateTime.of(2026, 1, 1, 0, 0);
+    private static final LocalDateTime TO = FROM.plusDays(1);
+
+    @Mock
+    private PaymentRepository paymentRepository;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper()
+            .findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Spy
+    private PaymentShards paymentShards = new PaymentShards(new ShardingProperties());
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private PaymentExportService paymentExportService;
+
+    @Test
+    void exportPayments_shouldWriteOneJsonObjectPerLine_andCloseCursor() throws Exception {
+        PaymentSummary first = summary("CARD", FROM.plusHours(1));
+        PaymentSummary second = summary("BANK", FROM.plusHours(2));
+        AtomicBoolean closed = new AtomicBoolean();
+
+        when(paymentRepository.streamByCreatedOnBetween(FROM, TO))
+                .thenReturn(Stream.of(first, second).onClose(() -> closed.set(true)));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = paymentExportService.exportPayments(FROM, TO, PaymentExportFormat.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        JsonNode line = objectMapper.readTree(lines[1]);
+
+        assertEquals(2, rows);
+        assertEquals(2, lines.length);
+        assertEquals(second.getId().toString(), line.get("id").asText());
+        assertEquals("BANK", line.get("method").asText());
+        assertEquals("2026-01-01T02:00:00", line.get("createdOn").asText());
+        assertTrue(closed.get());
+    }
+
+    @Test
+    void exportPayments_shouldWriteCsvWithHeader_andQuoteSpecialCharacters() throws Exception {
+        PaymentSummary payment = summary("CARD, \"VISA\"", FROM.plusHours(1));
+
+        when(paymentRepository.streamByCreatedOnBetween(FROM, TO)).thenReturn(Stream.of(payment));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = paymentExportService.exportPayments(FROM, TO, PaymentExportFormat.CSV, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+
+        assertEquals(1, rows);
+        assertEquals(PaymentExportService.CSV_HEADER, lines[0]);
+        assertEquals(payment.getId() + "," + payment.getOrderId()
+                + ",12.50,PENDING,\"CARD, \"\"VISA\"\"\",2026-01-01T01:00,2026-01-01T01:00", lines[1]);
+    }
+
+    @Test
+    void exportPayments_shouldWriteOnlyHeader_whenWindowIsEmpty() throws Exception {
+        when(paymentRepository.streamByCreatedOnBetween(FROM, TO)).thenReturn(Stream.empty());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = paymentExportService.exportPayments(FROM, TO, PaymentExportFormat.CSV, out);
+
+        assertEquals(0, rows);
+        assertEquals(PaymentExportService.CSV_HEADER + "\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    private static PaymentSummary summary(String method, LocalDateTime createdOn) {
+        return new PaymentSummary(UUID.randomUUID(), UUID.randomUUID(), new BigDecimal("12.50"),
+                PaymentStatus.PENDING, method, createdOn, createdOn);
+    }
+}
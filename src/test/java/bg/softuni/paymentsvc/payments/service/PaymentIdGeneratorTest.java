@@ -0,0 +1,73 @@
+package bg.softuni.paymentsvc.payments.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PaymentIdGeneratorTest {
+
+    private final PaymentIdGenerator paymentIdGenerator = new PaymentIdGenerator();
+
+    @Test
+    void nextId_shouldBeVersion7_withCurrentTimestamp() {
+        long before = System.currentTimeMillis();
+        UUID id = paymentIdGenerator.nextId();
+        long after = System.currentTimeMillis();
+
+        assertEquals(7, id.version());
+        assertEquals(2, id.variant());
+        long timestamp = id.getMostSignificantBits() >>> 16;
+        assertTrue(timestamp >= before && timestamp <= after + 1);
+    }
+
+    @Test
+    void nextId_shouldIncreaseInByteOrder_evenWithinOneMillisecond() {
+        UUID previous = paymentIdGenerator.nextId();
+
+        for (int i = 0; i < 100_000; i++) {
+            UUID next = paymentIdGenerator.nextId();
+            assertTrue(compareUnsigned(previous, next) < 0, previous + " should sort before " + next);
+            previous = next;
+        }
+    }
+
+    @Test
+    void nextId_shouldBeUnique_acrossThreads() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<List<UUID>>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    List<UUID> ids = new ArrayList<>();
+                    for (int i = 0; i < 10_000; i++) {
+                        ids.add(paymentIdGenerator.nextId());
+                    }
+                    return ids;
+                }));
+            }
+
+            Set<UUID> all = new HashSet<>();
+            for (Future<List<UUID>> future : futures) {
+                all.addAll(future.get());
+            }
+            assertEquals(80_000, all.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static int compareUnsigned(UUID a, UUID b) {
+        return a.getMostSignificantBits() != b.getMostSignificantBits()
+                ? Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits())
+                : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    }
+}
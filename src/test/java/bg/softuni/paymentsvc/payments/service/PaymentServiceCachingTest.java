@@ -0,0 +1,90 @@
+package bg.softuni.paymentsvc.payments.service;
+
+import bg.softuni.paymentsvc.payments.model.Payment;
+import bg.softuni.paymentsvc.payments.model.PaymentStatus;
+import bg.softuni.paymentsvc.payments.repository.PaymentRepository;
+import bg.softuni.paymentsvc.payments.repository.projection.PaymentSummary;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentRequest;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+class PaymentServiceCachingTest {
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @MockitoBean
+    private PaymentRepository paymentRepository;
+
+    @Test
+    void createPayment_shouldWriteThroughSoNextReadsAreHits() {
+        UUID orderId = UUID.randomUUID();
+        when(paymentRepository.insertIfAbsent(any(Payment.class))).thenReturn(true);
+
+        PaymentResponse created = paymentService.createPayment(request(orderId));
+
+        PaymentResponse byId = paymentService.getPayment(created.getId());
+        PaymentResponse byOrder = paymentService.getPaymentByOrderId(orderId);
+
+        assertEquals(created.getId(), byId.getId());
+        assertEquals(created.getId(), byOrder.getId());
+        verify(paymentRepository, never()).findById(any());
+        verify(paymentRepository, never()).findByOrderId(any());
+    }
+
+    @Test
+    void processPayment_shouldNotEvictOtherPayments() {
+        Payment cached = pendingPayment();
+        Payment processed = pendingPayment();
+        when(paymentRepository.findById(cached.getId())).thenReturn(Optional.of(cached));
+        when(paymentRepository.compareAndSetStatus(eq(processed.getId()), eq(PaymentStatus.PENDING),
+                eq(PaymentStatus.SUCCESSFUL), any(LocalDateTime.class))).thenReturn(1);
+        when(paymentRepository.findSummaryById(processed.getId())).thenReturn(Optional.of(new PaymentSummary(
+                processed.getId(), processed.getOrderId(), processed.getAmount(), PaymentStatus.SUCCESSFUL,
+                processed.getMethod(), processed.getCreatedOn(), LocalDateTime.now())));
+
+        paymentService.getPayment(cached.getId());
+        paymentService.processPayment(processed.getId());
+        paymentService.getPayment(cached.getId());
+
+        PaymentResponse afterProcess = paymentService.getPayment(processed.getId());
+
+        assertEquals(PaymentStatus.SUCCESSFUL, afterProcess.getStatus());
+        verify(paymentRepository, times(1)).findById(cached.getId());
+        verify(paymentRepository, never()).findById(processed.getId());
+    }
+
+    private Payment pendingPayment() {
+        return Payment.builder()
+                .id(UUID.randomUUID())
+                .orderId(UUID.randomUUID())
+                .amount(new BigDecimal("12.00"))
+                .method("CARD")
+                .status(PaymentStatus.PENDING)
+                .createdOn(LocalDateTime.now())
+                .updatedOn(LocalDateTime.now())
+                .build();
+    }
+
+    private PaymentRequest request(UUID orderId) {
+        return PaymentRequest.builder()
+                .orderId(orderId)
+                .amount(new BigDecimal("12.00"))
+                .method("CARD")
+                .build();
+    }
+}
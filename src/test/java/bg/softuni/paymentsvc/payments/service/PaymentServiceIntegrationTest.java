@@ -0,0 +1,154 @@
+package bg.softuni.paymentsvc.payments.service;
+
+import bg.softuni.paymentsvc.payments.exception.PaymentAlreadyExistsException;
+import bg.softuni.paymentsvc.payments.exception.PaymentStatusConflictException;
+import bg.softuni.paymentsvc.payments.model.PaymentStatus;
+import bg.softuni.paymentsvc.payments.repository.PaymentRepository;
+import bg.softuni.paymentsvc.payments.web.dto.BatchItemOutcome;
+import bg.softuni.paymentsvc.payments.web.dto.BatchPaymentResponse;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentRequest;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentStatusUpdateRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class PaymentServiceIntegrationTest {
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Test
+    void createPayment_shouldCreateExactlyOnce_underConcurrentDuplicateSubmits() throws Exception {
+        UUID orderId = UUID.randomUUID();
+        PaymentRequest request = PaymentRequest.builder()
+                .orderId(orderId)
+                .amount(new BigDecimal("25.00"))
+                .method("CARD")
+                .build();
+
+        int submitters = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(submitters);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger duplicates = new AtomicInteger();
+
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < submitters; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        paymentService.createPayment(request);
+                        created.incrementAndGet();
+                    } catch (PaymentAlreadyExistsException ex) {
+                        duplicates.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, created.get());
+        assertEquals(submitters - 1, duplicates.get());
+        assertTrue(paymentRepository.findByOrderId(orderId).isPresent());
+    }
+
+    @Test
+    void createPayments_shouldPersistBatchAndSkipExistingOrders() {
+        UUID existingOrder = UUID.randomUUID();
+        paymentService.createPayment(PaymentRequest.builder()
+                .orderId(existingOrder)
+                .amount(new BigDecimal("3.00"))
+                .method("CARD")
+                .build());
+
+        List<PaymentRequest> requests = new ArrayList<>();
+        requests.add(PaymentRequest.builder().orderId(existingOrder).amount(BigDecimal.ONE).method("CARD").build());
+        for (int i = 0; i < 120; i++) {
+            requests.add(PaymentRequest.builder()
+                    .orderId(UUID.randomUUID())
+                    .amount(new BigDecimal("1.50"))
+                    .method("CARD")
+                    .build());
+        }
+
+        BatchPaymentResponse response = paymentService.createPayments(requests);
+
+        assertEquals(120, response.getCreated());
+        assertEquals(1, response.getAlreadyExists());
+        assertEquals(BatchItemOutcome.ALREADY_EXISTS, response.getResults().get(0).getOutcome());
+        assertTrue(paymentRepository.findByOrderId(requests.get(120).getOrderId()).isPresent());
+    }
+
+    @Test
+    void processAndFail_shouldLetExactlyOneTransitionWin_underContention() throws Exception {
+        UUID paymentId = paymentService.createPayment(PaymentRequest.builder()
+                .orderId(UUID.randomUUID())
+                .amount(new BigDecimal("8.00"))
+                .method("CARD")
+                .build()).getId();
+
+        int workers = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        CountDownLatch start = new CountDownLatch(1);
+        PaymentStatusUpdateRequest fail = PaymentStatusUpdateRequest.builder().status(PaymentStatus.FAILED).build();
+        Set<PaymentStatus> observed = ConcurrentHashMap.newKeySet();
+        AtomicInteger conflicts = new AtomicInteger();
+
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < workers; i++) {
+                boolean process = i % 2 == 0;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        observed.add(process
+                                ? paymentService.processPayment(paymentId).getStatus()
+                                : paymentService.updateStatus(paymentId, fail).getStatus());
+                    } catch (PaymentStatusConflictException ex) {
+                        conflicts.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        PaymentStatus stored = paymentRepository.findById(paymentId).orElseThrow().getStatus();
+
+        assertNotEquals(PaymentStatus.PENDING, stored);
+        assertEquals(Set.of(stored), observed);
+        if (stored == PaymentStatus.SUCCESSFUL) {
+            assertEquals(workers / 2, conflicts.get());
+        }
+    }
+}
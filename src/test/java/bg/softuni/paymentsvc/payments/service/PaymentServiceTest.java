@@ -1,27 +1,53 @@
 package bg.softuni.paymentsvc.payments.service;
 
+import bg.softuni.paymentsvc.payments.cache.NegativeLookupCache;
+import bg.softuni.paymentsvc.payments.cache.PaymentCache;
 import bg.softuni.paymentsvc.payments.exception.PaymentAlreadyExistsException;
 import bg.softuni.paymentsvc.payments.exception.PaymentNotFoundException;
+import bg.softuni.paymentsvc.payments.exception.PaymentStatusConflictException;
 import bg.softuni.paymentsvc.payments.model.Payment;
 import bg.softuni.paymentsvc.payments.model.PaymentStatus;
+import bg.softuni.paymentsvc.payments.outbox.PaymentOutboxRepository;
 import bg.softuni.paymentsvc.payments.repository.PaymentRepository;
+import bg.softuni.paymentsvc.payments.repository.PaymentSearchCriteria;
+import bg.softuni.paymentsvc.payments.repository.projection.PaymentKey;
+import bg.softuni.paymentsvc.payments.repository.projection.PaymentSummary;
+import bg.softuni.paymentsvc.payments.routing.ReadYourWrites;
+import bg.softuni.paymentsvc.payments.routing.ReplicaRoutingProperties;
+import bg.softuni.paymentsvc.payments.sharding.PaymentShards;
+import bg.softuni.paymentsvc.payments.sharding.ShardingProperties;
+import bg.softuni.paymentsvc.payments.stats.PaymentStatsService;
+import bg.softuni.paymentsvc.payments.watch.PaymentStatusChange;
+import bg.softuni.paymentsvc.payments.web.dto.BatchItemOutcome;
+import bg.softuni.paymentsvc.payments.web.dto.BatchPaymentResponse;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentPageResponse;
 import bg.softuni.paymentsvc.payments.web.dto.PaymentRequest;
 import bg.softuni.paymentsvc.payments.web.dto.PaymentResponse;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentSearchRequest;
 import bg.softuni.paymentsvc.payments.web.dto.PaymentStatusUpdateRequest;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -30,6 +56,39 @@ class PaymentServiceTest {
     @Mock
     private PaymentRepository paymentRepository;
 
+    @Mock
+    private PaymentOutboxRepository paymentOutboxRepository;
+
+    @Mock
+    private PaymentStatsService paymentStatsService;
+
+    @Mock
+    private NegativeLookupCache negativeLookupCache;
+
+    @Spy
+    private PaymentIdGenerator paymentIdGenerator = new PaymentIdGenerator();
+
+    @Mock
+    private PaymentCache paymentCache;
+
+    @Spy
+    private PaymentBatchProperties batchProperties = new PaymentBatchProperties();
+
+    @Spy
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private ReadYourWrites readYourWrites = new ReadYourWrites(new ReplicaRoutingProperties());
+
+    @Spy
+    private PaymentShards paymentShards = new PaymentShards(new ShardingProperties());
+
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
     @InjectMocks
     private PaymentService paymentService;
 
@@ -43,20 +102,7 @@ class PaymentServiceTest {
                 .method("CARD")
                 .build();
 
-        when(paymentRepository.findByOrderId(orderId))
-                .thenReturn(Optional.empty());
-
-        Payment saved = Payment.builder()
-                .id(UUID.randomUUID())
-                .orderId(orderId)
-                .amount(request.getAmount())
-                .method(request.getMethod())
-                .status(PaymentStatus.PENDING)
-                .createdOn(LocalDateTime.now())
-                .updatedOn(LocalDateTime.now())
-                .build();
-
-        when(paymentRepository.save(any(Payment.class))).thenReturn(saved);
+        when(paymentRepository.insertIfAbsent(any(Payment.class))).thenReturn(true);
 
         PaymentResponse response = paymentService.createPayment(request);
 
@@ -66,8 +112,10 @@ class PaymentServiceTest {
         assertEquals(PaymentStatus.PENDING, response.getStatus());
         assertEquals("CARD", response.getMethod());
 
-        verify(paymentRepository).findByOrderId(orderId);
-        verify(paymentRepository).save(any(Payment.class));
+        verify(paymentRepository).insertIfAbsent(any(Payment.class));
+        verify(paymentRepository, never()).findByOrderId(any());
+        verify(paymentRepository, never()).save(any());
+        verify(negativeLookupCache).registerPayment(response.getId(), orderId);
     }
 
     @Test
@@ -80,28 +128,18 @@ class PaymentServiceTest {
                 .method("CARD")
                 .build();
 
-        Payment existing = Payment.builder()
-                .id(UUID.randomUUID())
-                .orderId(orderId)
-                .amount(request.getAmount())
-                .method(request.getMethod())
-                .status(PaymentStatus.PENDING)
-                .createdOn(LocalDateTime.now())
-                .updatedOn(LocalDateTime.now())
-                .build();
-
-        when(paymentRepository.findByOrderId(orderId))
-                .thenReturn(Optional.of(existing));
+        when(paymentRepository.insertIfAbsent(any(Payment.class))).thenReturn(false);
 
         assertThrows(PaymentAlreadyExistsException.class,
                 () -> paymentService.createPayment(request));
 
-        verify(paymentRepository).findByOrderId(orderId);
-        verify(paymentRepository, never()).save(any());
+        verify(paymentRepository).insertIfAbsent(any(Payment.class));
+        verify(paymentRepository, never()).findByOrderId(any());
+        verify(negativeLookupCache).registerOrder(orderId);
     }
 
     @Test
-    void createPayment_shouldReturnExisting_whenSaveCausesDataIntegrityViolation() {
+    void createPayment_shouldAssignApplicationGeneratedId() {
         UUID orderId = UUID.randomUUID();
 
         PaymentRequest request = PaymentRequest.builder()
@@ -110,62 +148,237 @@ class PaymentServiceTest {
                 .method("CARD")
                 .build();
 
-        when(paymentRepository.findByOrderId(orderId))
-                .thenReturn(Optional.empty())
-                .thenReturn(Optional.of(
-                        Payment.builder()
-                                .id(UUID.randomUUID())
-                                .orderId(orderId)
-                                .amount(request.getAmount())
-                                .method(request.getMethod())
-                                .status(PaymentStatus.PENDING)
-                                .createdOn(LocalDateTime.now())
-                                .updatedOn(LocalDateTime.now())
-                                .build()
-                ));
-
-        when(paymentRepository.save(any(Payment.class)))
-                .thenThrow(new DataIntegrityViolationException("unique constraint"));
+        when(paymentRepository.insertIfAbsent(any(Payment.class))).thenReturn(true);
 
         PaymentResponse response = paymentService.createPayment(request);
 
-        assertEquals(orderId, response.getOrderId());
-        assertEquals(new BigDecimal("4.20"), response.getAmount());
-        assertEquals(PaymentStatus.PENDING, response.getStatus());
+        ArgumentCaptor<Payment> captor = ArgumentCaptor.forClass(Payment.class);
+        verify(paymentRepository).insertIfAbsent(captor.capture());
+        verify(paymentIdGenerator).nextId();
 
-        verify(paymentRepository, times(2)).findByOrderId(orderId);
-        verify(paymentRepository).save(any(Payment.class));
+        assertNotNull(captor.getValue().getId());
+        assertEquals(captor.getValue().getId(), response.getId());
     }
 
     @Test
-    void updateStatus_shouldChangeStatus() {
-        UUID paymentId = UUID.randomUUID();
+    void createPayments_shouldReportPerItemOutcome() {
+        UUID newOrder = UUID.randomUUID();
+        UUID existingOrder = UUID.randomUUID();
 
-        Payment payment = Payment.builder()
-                .id(paymentId)
-                .orderId(UUID.randomUUID())
-                .amount(new BigDecimal("5.50"))
+        Payment existing = Payment.builder()
+                .id(UUID.randomUUID())
+                .orderId(existingOrder)
+                .amount(new BigDecimal("1.00"))
+                .method("CARD")
+                .status(PaymentStatus.SUCCESSFUL)
+                .createdOn(LocalDateTime.now())
+                .updatedOn(LocalDateTime.now())
+                .build();
+
+        List<PaymentRequest> requests = List.of(
+                PaymentRequest.builder().orderId(newOrder).amount(new BigDecimal("5.00")).method("CARD").build(),
+                PaymentRequest.builder().orderId(existingOrder).amount(new BigDecimal("1.00")).method("CARD").build(),
+                PaymentRequest.builder().orderId(UUID.randomUUID()).amount(BigDecimal.ZERO).method("CARD").build(),
+                PaymentRequest.builder().orderId(newOrder).amount(new BigDecimal("5.00")).method("CARD").build()
+        );
+
+        when(paymentRepository.findByOrderIdIn(any())).thenReturn(List.of(existing));
+        when(paymentRepository.saveAllAndFlush(any())).thenAnswer(invocation -> {
+            List<Payment> payments = invocation.getArgument(0);
+            payments.forEach(p -> p.setId(UUID.randomUUID()));
+            return payments;
+        });
+
+        BatchPaymentResponse response = paymentService.createPayments(requests);
+
+        assertEquals(1, response.getCreated());
+        assertEquals(2, response.getAlreadyExists());
+        assertEquals(1, response.getRejected());
+
+        assertEquals(BatchItemOutcome.CREATED, response.getResults().get(0).getOutcome());
+        assertEquals(BatchItemOutcome.ALREADY_EXISTS, response.getResults().get(1).getOutcome());
+        assertEquals(existing.getId(), response.getResults().get(1).getPayment().getId());
+        assertEquals(BatchItemOutcome.VALIDATION_ERROR, response.getResults().get(2).getOutcome());
+        assertEquals(BatchItemOutcome.ALREADY_EXISTS, response.getResults().get(3).getOutcome());
+        assertEquals(response.getResults().get(0).getPayment().getId(),
+                response.getResults().get(3).getPayment().getId());
+
+        verify(paymentRepository).findByOrderIdIn(any());
+        verify(paymentRepository).saveAllAndFlush(argThat(payments -> ((List<?>) payments).size() == 1));
+        verify(paymentCache).put(any(PaymentResponse.class));
+    }
+
+    @Test
+    void createPayments_shouldReportOrdersCreatedConcurrently_asAlreadyExisting() {
+        UUID racedOrder = UUID.randomUUID();
+        Payment winner = Payment.builder()
+                .id(UUID.randomUUID())
+                .orderId(racedOrder)
+                .amount(new BigDecimal("2.00"))
                 .method("CARD")
                 .status(PaymentStatus.PENDING)
                 .createdOn(LocalDateTime.now())
                 .updatedOn(LocalDateTime.now())
                 .build();
 
-        when(paymentRepository.findById(paymentId))
-                .thenReturn(Optional.of(payment));
+        List<PaymentRequest> requests = List.of(
+                PaymentRequest.builder().orderId(racedOrder).amount(new BigDecimal("2.00")).method("CARD").build());
 
-        when(paymentRepository.save(any(Payment.class)))
+        when(paymentRepository.findByOrderIdIn(any())).thenReturn(List.of()).thenReturn(List.of(winner));
+        when(paymentRepository.saveAllAndFlush(any()))
+                .thenThrow(new DataIntegrityViolationException("Duplicate entry for key 'payment.order_id'"))
                 .thenAnswer(invocation -> invocation.getArgument(0));
 
-        PaymentStatusUpdateRequest request = PaymentStatusUpdateRequest.builder()
-                .status(PaymentStatus.SUCCESSFUL)
-                .build();
+        BatchPaymentResponse response = paymentService.createPayments(requests);
 
-        PaymentResponse response = paymentService.updateStatus(paymentId, request);
+        assertEquals(0, response.getCreated());
+        assertEquals(1, response.getAlreadyExists());
+        assertEquals(winner.getId(), response.getResults().get(0).getPayment().getId());
+        verify(paymentRepository, times(2)).findByOrderIdIn(any());
+        verifyNoInteractions(paymentCache, eventPublisher);
+    }
 
-        assertEquals(PaymentStatus.SUCCESSFUL, response.getStatus());
-        verify(paymentRepository).findById(paymentId);
-        verify(paymentRepository).save(any(Payment.class));
+    @Test
+    void createPayments_shouldRethrow_whenTheRetryStillViolatesAConstraint() {
+        List<PaymentRequest> requests = List.of(
+                PaymentRequest.builder().orderId(UUID.randomUUID()).amount(BigDecimal.ONE).method("CARD").build());
+
+        when(paymentRepository.findByOrderIdIn(any())).thenReturn(List.of());
+        when(paymentRepository.saveAllAndFlush(any()))
+                .thenThrow(new DataIntegrityViolationException("Column 'method' cannot be null"));
+
+        assertThrows(DataIntegrityViolationException.class, () -> paymentService.createPayments(requests));
+        verify(paymentRepository, times(2)).saveAllAndFlush(any());
+    }
+
+    @Test
+    void createPayments_shouldRejectOversizedBatch() {
+        batchProperties.setMaxSize(1);
+
+        List<PaymentRequest> requests = List.of(
+                PaymentRequest.builder().orderId(UUID.randomUUID()).amount(BigDecimal.ONE).method("CARD").build(),
+                PaymentRequest.builder().orderId(UUID.randomUUID()).amount(BigDecimal.ONE).method("CARD").build()
+        );
+
+        assertThrows(IllegalArgumentException.class, () -> paymentService.createPayments(requests));
+        verifyNoInteractions(paymentRepository);
+    }
+
+    @Test
+    void listPayments_shouldReturnCursor_whenMoreRowsExist() {
+        LocalDateTime now = LocalDateTime.now();
+        List<PaymentSummary> rows = List.of(
+                new PaymentSummary(UUID.randomUUID(), UUID.randomUUID(), BigDecimal.ONE,
+                        PaymentStatus.PENDING, "CARD", now, now),
+                new PaymentSummary(UUID.randomUUID(), UUID.randomUUID(), BigDecimal.TEN,
+                        PaymentStatus.PENDING, "CARD", now, now),
+                new PaymentSummary(UUID.randomUUID(), UUID.randomUUID(), BigDecimal.TEN,
+                        PaymentStatus.PENDING, "CARD", now.plusSeconds(1), now));
+
+        when(paymentRepository.search(any(PaymentSearchCriteria.class), eq(3))).thenReturn(rows);
+
+        PaymentPageResponse page = paymentService.listPayments(PaymentSearchRequest.builder()
+                .status(PaymentStatus.PENDING)
+                .limit(2)
+                .build());
+
+        assertEquals(2, page.getItems().size());
+        assertNotNull(page.getNextCursor());
+
+        PaymentCursor cursor = PaymentCursor.decode(page.getNextCursor());
+        assertEquals(rows.get(1).getId(), cursor.getId());
+        assertEquals(rows.get(1).getCreatedOn(), cursor.getCreatedOn());
+    }
+
+    @Test
+    void listPayments_shouldSeekPastDecodedCursor_andOmitCursorOnLastPage() {
+        PaymentCursor after = new PaymentCursor(LocalDateTime.now(), UUID.randomUUID());
+        when(paymentRepository.search(any(PaymentSearchCriteria.class), eq(51))).thenReturn(List.of());
+
+        PaymentPageResponse page = paymentService.listPayments(PaymentSearchRequest.builder()
+                .after(after.encode())
+                .build());
+
+        ArgumentCaptor<PaymentSearchCriteria> captor = ArgumentCaptor.forClass(PaymentSearchCriteria.class);
+        verify(paymentRepository).search(captor.capture(), eq(51));
+
+        assertEquals(after.getCreatedOn(), captor.getValue().getAfterCreatedOn());
+        assertEquals(after.getId(), captor.getValue().getAfterId());
+        assertTrue(page.getItems().isEmpty());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void listPayments_shouldRejectMalformedCursor() {
+        assertThrows(IllegalArgumentException.class, () -> paymentService.listPayments(
+                PaymentSearchRequest.builder().after("not-a-cursor").build()));
+    }
+
+    @Test
+    void updateStatus_shouldChangeStatus() {
+        PaymentSummary pending = summary(PaymentStatus.PENDING);
+        UUID paymentId = pending.getId();
+
+        when(paymentRepository.findSummaryById(paymentId)).thenReturn(Optional.of(pending));
+        when(paymentRepository.compareAndSetStatus(eq(paymentId), eq(PaymentStatus.PENDING),
+                eq(PaymentStatus.FAILED), any(LocalDateTime.class))).thenReturn(1);
+
+        PaymentResponse response = paymentService.updateStatus(paymentId, statusUpdate(PaymentStatus.FAILED));
+
+        assertEquals(PaymentStatus.FAILED, response.getStatus());
+        assertEquals(pending.getOrderId(), response.getOrderId());
+        verify(paymentRepository, never()).save(any(Payment.class));
+        verify(paymentOutboxRepository).appendTransitions(List.of(paymentId), PaymentStatus.FAILED,
+                response.getUpdatedOn());
+        verify(paymentStatsService).recordTransitions(List.of(paymentId), PaymentStatus.PENDING,
+                PaymentStatus.FAILED, response.getUpdatedOn());
+
+        ArgumentCaptor<PaymentStatusChange> change = ArgumentCaptor.forClass(PaymentStatusChange.class);
+        verify(eventPublisher).publishEvent(change.capture());
+        assertEquals(PaymentStatus.FAILED, change.getValue().getStatus());
+        assertEquals(pending.getOrderId(), change.getValue().getOrderId());
+    }
+
+    @Test
+    void updateStatus_shouldRejectIllegalTransition() {
+        PaymentSummary successful = summary(PaymentStatus.SUCCESSFUL);
+        UUID paymentId = successful.getId();
+
+        when(paymentRepository.findSummaryById(paymentId)).thenReturn(Optional.of(successful));
+
+        assertThrows(PaymentStatusConflictException.class,
+                () -> paymentService.updateStatus(paymentId, statusUpdate(PaymentStatus.FAILED)));
+
+        verify(paymentRepository, never()).compareAndSetStatus(any(), any(), any(), any());
+        verify(paymentCache).evict(paymentId, successful.getOrderId());
+    }
+
+    @Test
+    void updateStatus_shouldReturnCurrentState_whenAlreadyInTargetStatus() {
+        PaymentSummary failed = summary(PaymentStatus.FAILED);
+
+        when(paymentRepository.findSummaryById(failed.getId())).thenReturn(Optional.of(failed));
+
+        PaymentResponse response = paymentService.updateStatus(failed.getId(), statusUpdate(PaymentStatus.FAILED));
+
+        assertEquals(PaymentStatus.FAILED, response.getStatus());
+        verify(paymentRepository, never()).compareAndSetStatus(any(), any(), any(), any());
+    }
+
+    @Test
+    void updateStatus_shouldReportConflict_whenStatusChangedConcurrently() {
+        PaymentSummary pending = summary(PaymentStatus.PENDING);
+        UUID paymentId = pending.getId();
+
+        when(paymentRepository.findSummaryById(paymentId)).thenReturn(Optional.of(pending));
+        when(paymentRepository.compareAndSetStatus(eq(paymentId), eq(PaymentStatus.PENDING),
+                eq(PaymentStatus.SUCCESSFUL), any(LocalDateTime.class))).thenReturn(0);
+
+        assertThrows(PaymentStatusConflictException.class,
+                () -> paymentService.updateStatus(paymentId, statusUpdate(PaymentStatus.SUCCESSFUL)));
+
+        verify(paymentCache).evict(paymentId, pending.getOrderId());
+        verifyNoInteractions(paymentOutboxRepository, paymentStatsService);
     }
 
     @Test
@@ -177,6 +390,18 @@ class PaymentServiceTest {
                 () -> paymentService.getPayment(id));
 
         verify(paymentRepository).findById(id);
+        verify(negativeLookupCache).recordMissing(id);
+    }
+
+    @Test
+    void getPayment_shouldSkipDatabase_whenKnownMissing() {
+        UUID id = UUID.randomUUID();
+        when(negativeLookupCache.isKnownMissing(id)).thenReturn(true);
+
+        assertThrows(PaymentNotFoundException.class,
+                () -> paymentService.getPayment(id));
+
+        verifyNoInteractions(paymentRepository);
     }
 
     @Test
@@ -188,55 +413,97 @@ class PaymentServiceTest {
                 () -> paymentService.getPaymentByOrderId(orderId));
 
         verify(paymentRepository).findByOrderId(orderId);
+        verify(negativeLookupCache).recordMissingOrder(orderId);
     }
 
     @Test
-    void processPayment_shouldMarkSuccessful_whenPending() {
-        UUID paymentId = UUID.randomUUID();
+    void getPaymentByOrderId_shouldSkipDatabase_whenKnownMissing() {
+        UUID orderId = UUID.randomUUID();
+        when(negativeLookupCache.isKnownMissingOrder(orderId)).thenReturn(true);
 
-        Payment payment = Payment.builder()
-                .id(paymentId)
-                .orderId(UUID.randomUUID())
-                .amount(new BigDecimal("10.00"))
-                .method("CARD")
-                .status(PaymentStatus.PENDING)
-                .createdOn(LocalDateTime.now())
-                .updatedOn(LocalDateTime.now())
-                .build();
+        assertThrows(PaymentNotFoundException.class,
+                () -> paymentService.getPaymentByOrderId(orderId));
 
-        when(paymentRepository.findById(paymentId))
-                .thenReturn(Optional.of(payment));
-        when(paymentRepository.save(any(Payment.class)))
-                .thenAnswer(invocation -> invocation.getArgument(0));
+        verifyNoInteractions(paymentRepository);
+    }
+
+    @Test
+    void processPayment_shouldMarkSuccessful_whenPending() {
+        PaymentSummary successful = summary(PaymentStatus.SUCCESSFUL);
+        UUID paymentId = successful.getId();
+
+        when(paymentRepository.compareAndSetStatus(eq(paymentId), eq(PaymentStatus.PENDING),
+                eq(PaymentStatus.SUCCESSFUL), any(LocalDateTime.class))).thenReturn(1);
+        when(paymentRepository.findSummaryById(paymentId)).thenReturn(Optional.of(successful));
 
         PaymentResponse response = paymentService.processPayment(paymentId);
 
         assertEquals(PaymentStatus.SUCCESSFUL, response.getStatus());
-        verify(paymentRepository).findById(paymentId);
-        verify(paymentRepository).save(any(Payment.class));
+        verify(paymentRepository, never()).findById(any());
+        verify(paymentRepository, never()).save(any(Payment.class));
+        verify(paymentOutboxRepository).appendTransitions(eq(List.of(paymentId)), eq(PaymentStatus.SUCCESSFUL),
+                any(LocalDateTime.class));
+        verify(paymentStatsService).recordTransitions(eq(List.of(paymentId)), eq(PaymentStatus.PENDING),
+                eq(PaymentStatus.SUCCESSFUL), any(LocalDateTime.class));
     }
 
     @Test
     void processPayment_shouldNotChangeStatus_whenNotPending() {
-        UUID paymentId = UUID.randomUUID();
-
-        Payment payment = Payment.builder()
-                .id(paymentId)
-                .orderId(UUID.randomUUID())
-                .amount(new BigDecimal("10.00"))
-                .method("CARD")
-                .status(PaymentStatus.SUCCESSFUL)
-                .createdOn(LocalDateTime.now())
-                .updatedOn(LocalDateTime.now())
-                .build();
+        PaymentSummary failed = summary(PaymentStatus.FAILED);
+        UUID paymentId = failed.getId();
 
-        when(paymentRepository.findById(paymentId))
-                .thenReturn(Optional.of(payment));
+        when(paymentRepository.compareAndSetStatus(eq(paymentId), eq(PaymentStatus.PENDING),
+                eq(PaymentStatus.SUCCESSFUL), any(LocalDateTime.class))).thenReturn(0);
+        when(paymentRepository.findSummaryById(paymentId)).thenReturn(Optional.of(failed));
 
         PaymentResponse response = paymentService.processPayment(paymentId);
 
-        assertEquals(PaymentStatus.SUCCESSFUL, response.getStatus());
-        verify(paymentRepository).findById(paymentId);
+        assertEquals(PaymentStatus.FAILED, response.getStatus());
         verify(paymentRepository, never()).save(any(Payment.class));
+        verifyNoInteractions(paymentOutboxRepository, paymentStatsService, eventPublisher);
+    }
+
+    @Test
+    void processPayment_shouldThrowPaymentNotFound_whenMissing() {
+        UUID paymentId = UUID.randomUUID();
+
+        when(paymentRepository.findSummaryById(paymentId)).thenReturn(Optional.empty());
+
+        assertThrows(PaymentNotFoundException.class, () -> paymentService.processPayment(paymentId));
+    }
+
+    @Test
+    void processPayments_shouldTransitionOnlyPendingPaymentsInOneStatement() {
+        UUID pendingId = UUID.randomUUID();
+        UUID pendingOrderId = UUID.randomUUID();
+        UUID settledId = UUID.randomUUID();
+
+        when(paymentRepository.findKeysByIdInAndStatus(List.of(pendingId, settledId), PaymentStatus.PENDING))
+                .thenReturn(List.of(new PaymentKey(pendingId, pendingOrderId)));
+        when(paymentRepository.transitionStatus(eq(List.of(pendingId)), eq(PaymentStatus.PENDING),
+                eq(PaymentStatus.SUCCESSFUL), any(LocalDateTime.class))).thenReturn(1);
+
+        int processed = paymentService.processPayments(List.of(pendingId, settledId));
+
+        assertEquals(1, processed);
+        verify(paymentOutboxRepository).appendTransitions(eq(List.of(pendingId)), eq(PaymentStatus.SUCCESSFUL),
+                any(LocalDateTime.class));
+        verify(paymentStatsService).recordTransitions(eq(List.of(pendingId)), eq(PaymentStatus.PENDING),
+                eq(PaymentStatus.SUCCESSFUL), any(LocalDateTime.class));
+        verify(paymentCache).evictAfterCommit(pendingId, pendingOrderId);
+        verify(eventPublisher).publishEvent(any(PaymentStatusChange.class));
+        verify(paymentCache, never()).evictAfterCommit(eq(settledId), any());
+    }
+
+    private static PaymentSummary summary(PaymentStatus status) {
+        LocalDateTime now = LocalDateTime.now();
+        return new PaymentSummary(UUID.randomUUID(), UUID.randomUUID(), new BigDecimal("5.50"),
+                status, "CARD", now, now);
+    }
+
+    private static PaymentStatusUpdateRequest statusUpdate(PaymentStatus status) {
+        return PaymentStatusUpdateRequest.builder()
+                .status(status)
+                .build();
     }
 }
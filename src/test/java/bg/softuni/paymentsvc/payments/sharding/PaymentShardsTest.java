@@ -0,0 +1,95 @@
+package bg.softuni.paymentsvc.payments.sharding;
+
+import bg.softuni.paymentsvc.payments.service.PaymentIdGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PaymentShardsTest {
+
+    private PaymentShards paymentShards;
+
+    @AfterEach
+    void tearDown() {
+        if (paymentShards != null) {
+            paymentShards.destroy();
+        }
+    }
+
+    @Test
+    void newPaymentId_shouldPointBackToTheOrdersShard() {
+        paymentShards = new PaymentShards(enabled(3));
+
+        for (int i = 0; i < 1_000; i++) {
+            UUID orderId = UUID.randomUUID();
+            UUID paymentId = paymentShards.newPaymentId(PaymentIdGenerator.nextTimeOrderedId(), orderId);
+
+            assertEquals(paymentShards.ofOrder(orderId), paymentShards.ofPayment(paymentId));
+            assertEquals(7, paymentId.version());
+            assertEquals(2, paymentId.variant());
+        }
+    }
+
+    @Test
+    void unsharded_shouldLeaveIdsAndThreadUntouched() {
+        paymentShards = new PaymentShards(new ShardingProperties());
+        UUID randomId = UUID.randomUUID();
+
+        assertEquals(1, paymentShards.count());
+        assertEquals(randomId, paymentShards.newPaymentId(randomId, UUID.randomUUID()));
+        assertNull(paymentShards.on(0, PaymentShards::current));
+        assertEquals(List.of(0), paymentShards.scatter(shard -> shard));
+    }
+
+    @Test
+    void on_shouldBindShard_andRestorePreviousOne() {
+        paymentShards = new PaymentShards(enabled(2));
+
+        Integer inner = paymentShards.on(1, () -> paymentShards.on(2, PaymentShards::current));
+        Integer outer = paymentShards.on(1, PaymentShards::current);
+
+        assertEquals(2, inner);
+        assertEquals(1, outer);
+        assertNull(PaymentShards.current());
+    }
+
+    @Test
+    void partition_shouldGroupKeysByShard() {
+        paymentShards = new PaymentShards(enabled(2));
+        List<UUID> orderIds = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+
+        Map<Integer, List<UUID>> byShard = paymentShards.partition(orderIds, paymentShards::ofOrder);
+
+        assertEquals(orderIds.size(), byShard.values().stream().mapToInt(List::size).sum());
+        byShard.forEach((shard, keys) -> keys.forEach(key -> assertEquals(shard, paymentShards.ofOrder(key))));
+    }
+
+    @Test
+    void scatter_shouldRunOnEveryShard_andRethrowFailures() {
+        paymentShards = new PaymentShards(enabled(2));
+
+        assertEquals(List.of(0, 1, 2), paymentShards.scatter(shard -> PaymentShards.current()));
+
+        IllegalStateException failure = assertThrows(IllegalStateException.class, () -> paymentShards.scatter(shard -> {
+            if (shard == 1) {
+                throw new IllegalStateException("shard 1 is down");
+            }
+            return shard;
+        }));
+        assertEquals("shard 1 is down", failure.getMessage());
+    }
+
+    private static ShardingProperties enabled(int extraShards) {
+        ShardingProperties properties = new ShardingProperties();
+        properties.setEnabled(true);
+        for (int i = 0; i < extraShards; i++) {
+            properties.getShards().add(new ShardingProperties.Shard());
+        }
+        return properties;
+    }
+}
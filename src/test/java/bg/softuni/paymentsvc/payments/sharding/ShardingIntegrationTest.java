@@ -0,0 +1,215 @@
+package bg.softuni.paymentsvc.payments.sharding;
+
+import bg.softuni.paymentsvc.payments.cache.PaymentCache;
+import bg.softuni.paymentsvc.payments.model.Payment;
+import bg.softuni.paymentsvc.payments.model.PaymentStatus;
+import bg.softuni.paymentsvc.payments.repository.PaymentRepository;
+import bg.softuni.paymentsvc.payments.scheduler.PaymentCleanupScheduler;
+import bg.softuni.paymentsvc.payments.service.PaymentService;
+import bg.softuni.paymentsvc.payments.web.dto.BatchPaymentResponse;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentPageResponse;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentRequest;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentResponse;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentSearchRequest;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "payments.sharding.enabled=true",
+        "payments.sharding.shards[0].url=" + ShardingIntegrationTest.SHARD_1,
+        "payments.sharding.shards[1].url=" + ShardingIntegrationTest.SHARD_2
+})
+class ShardingIntegrationTest {
+
+    static final String SHARD_1 = "jdbc:h2:mem:shard1;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    static final String SHARD_2 = "jdbc:h2:mem:shard2;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private PaymentCleanupScheduler cleanupScheduler;
+
+    @Autowired
+    private PaymentCache paymentCache;
+
+    @Autowired
+    private PaymentShards paymentShards;
+
+    @Autowired
+    private HikariDataSource shardZeroDataSource;
+
+    // Hibernate only creates the schema on shard 0, so the other shards get a copy of it.
+    @BeforeEach
+    void createShardSchemas() {
+        List<String> schema = new JdbcTemplate(shardZeroDataSource).queryForList("SCRIPT NODATA", String.class);
+
+        for (String shard : List.of(SHARD_1, SHARD_2)) {
+            JdbcTemplate jdbc = shardJdbc(shard);
+            if (jdbc.queryForObject("SELECT COUNT(*) FROM information_schema.tables WHERE table_name = 'payment'",
+                    Integer.class) == 0) {
+                schema.stream()
+                        .filter(sql -> !sql.startsWith("CREATE USER"))
+                        .forEach(jdbc::execute);
+            }
+        }
+    }
+
+    @Test
+    void createPayment_shouldStoreEachPaymentOnItsOrdersShard() {
+        Set<Integer> used = new HashSet<>();
+
+        for (int i = 0; i < 24; i++) {
+            PaymentResponse created = paymentService.createPayment(request("CARD"));
+            int shard = paymentShards.ofOrder(created.getOrderId());
+
+            assertEquals(shard, paymentShards.ofPayment(created.getId()));
+            assertEquals(1, countOn(shard, created.getId()));
+            used.add(shard);
+
+            paymentCache.evict(created.getId(), created.getOrderId());
+            assertEquals(created.getOrderId(), paymentService.getPayment(created.getId()).getOrderId());
+            assertEquals(created.getId(), paymentService.getPaymentByOrderId(created.getOrderId()).getId());
+        }
+
+        assertEquals(Set.of(0, 1, 2), used);
+    }
+
+    @Test
+    void createPayments_shouldWriteEachShardsPartOfTheBatch() {
+        List<PaymentRequest> requests = new ArrayList<>(IntStream.range(0, 12).mapToObj(i -> request("CARD")).toList());
+        requests.add(requests.get(0));
+
+        BatchPaymentResponse response = paymentService.createPayments(requests);
+
+        assertEquals(12, response.getCreated());
+        assertEquals(1, response.getAlreadyExists());
+        for (int i = 0; i < 12; i++) {
+            PaymentResponse payment = response.getResults().get(i).getPayment();
+            int shard = paymentShards.ofOrder(payment.getOrderId());
+
+            assertEquals(shard, paymentShards.ofPayment(payment.getId()));
+            assertEquals(1, countOn(shard, payment.getId()));
+        }
+    }
+
+    @Test
+    void listPayments_shouldPageAcrossShardsInGlobalOrder() {
+        String method = "SHARD-" + UUID.randomUUID().toString().substring(0, 8);
+        BatchPaymentResponse created = paymentService.createPayments(
+                IntStream.range(0, 10).mapToObj(i -> request(method)).toList());
+        assertEquals(10, created.getCreated());
+
+        List<PaymentResponse> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            PaymentPageResponse page = paymentService.listPayments(PaymentSearchRequest.builder()
+                    .method(method)
+                    .after(cursor)
+                    .limit(3)
+                    .build());
+            seen.addAll(page.getItems());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        List<UUID> expected = created.getResults().stream().map(item -> item.getPayment().getId()).toList();
+
+        assertEquals(10, seen.size());
+        assertEquals(Set.copyOf(expected), Set.copyOf(seen.stream().map(PaymentResponse::getId).toList()));
+        // The whole batch shares one createdOn, so the pages are ordered by id across all shards.
+        for (int i = 1; i < seen.size(); i++) {
+            assertTrue(compareUnsigned(seen.get(i - 1).getId(), seen.get(i).getId()) < 0);
+        }
+    }
+
+    @Test
+    void processPayments_shouldUpdatePaymentsOnEveryShard() {
+        List<UUID> ids = paymentService.createPayments(IntStream.range(0, 9).mapToObj(i -> request("CARD")).toList())
+                .getResults().stream()
+                .map(item -> item.getPayment().getId())
+                .toList();
+
+        assertEquals(9, paymentService.processPayments(ids));
+
+        ids.forEach(id -> assertEquals(PaymentStatus.SUCCESSFUL, paymentService.getPayment(id).getStatus()));
+    }
+
+    @Test
+    void failOldPendingPayments_shouldCleanUpEveryShard() {
+        List<UUID> ids = new ArrayList<>();
+        for (int shard = 0; shard < paymentShards.count(); shard++) {
+            UUID orderId = orderOn(shard);
+            LocalDateTime old = LocalDateTime.now().minusDays(1);
+            ids.add(paymentShards.on(shard, () -> paymentRepository.save(Payment.builder()
+                    .orderId(orderId)
+                    .amount(new BigDecimal("3.00"))
+                    .method("CARD")
+                    .status(PaymentStatus.PENDING)
+                    .createdOn(old)
+                    .updatedOn(old)
+                    .build())).getId());
+        }
+
+        cleanupScheduler.failOldPendingPayments();
+
+        for (int shard = 0; shard < paymentShards.count(); shard++) {
+            UUID id = ids.get(shard);
+            assertEquals(shard, paymentShards.ofPayment(id));
+            assertEquals(PaymentStatus.FAILED, paymentService.getPayment(id).getStatus());
+        }
+    }
+
+    private UUID orderOn(int shard) {
+        UUID orderId;
+        do {
+            orderId = UUID.randomUUID();
+        } while (paymentShards.ofOrder(orderId) != shard);
+        return orderId;
+    }
+
+    private int countOn(int shard, UUID paymentId) {
+        JdbcTemplate jdbc = switch (shard) {
+            case 0 -> new JdbcTemplate(shardZeroDataSource);
+            case 1 -> shardJdbc(SHARD_1);
+            default -> shardJdbc(SHARD_2);
+        };
+        return jdbc.queryForObject("SELECT COUNT(*) FROM payment WHERE id = ?", Integer.class, paymentId);
+    }
+
+    private static int compareUnsigned(UUID a, UUID b) {
+        return a.getMostSignificantBits() != b.getMostSignificantBits()
+                ? Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits())
+                : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    }
+
+    private static JdbcTemplate shardJdbc(String url) {
+        return new JdbcTemplate(new SingleConnectionDataSource(url, "sa", "", true));
+    }
+
+    private static PaymentRequest request(String method) {
+        return PaymentRequest.builder()
+                .orderId(UUID.randomUUID())
+                .amount(new BigDecimal("7.25"))
+                .method(method)
+                .build();
+    }
+}
@@ -0,0 +1,135 @@
+package bg.softuni.paymentsvc.payments.stats;
+
+import bg.softuni.paymentsvc.payments.model.PaymentStatus;
+import bg.softuni.paymentsvc.payments.scheduler.PaymentCleanupProperties;
+import bg.softuni.paymentsvc.payments.scheduler.PaymentCleanupScheduler;
+import bg.softuni.paymentsvc.payments.service.PaymentService;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentRequest;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentResponse;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentStatsBucket;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentStatsResponse;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentStatusUpdateRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Own database, because the cleanup run below fails every PENDING payment in it.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:stats;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "payments.cleanup.cron=-"
+})
+class PaymentStatsIntegrationTest {
+
+    @Autowired
+    private PaymentStatsService paymentStatsService;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private PaymentCleanupScheduler cleanupScheduler;
+
+    @Autowired
+    private PaymentCleanupProperties cleanupProperties;
+
+    @Test
+    void stats_shouldFollowEveryWritePath() {
+        String method = "VOUCHER";
+        PaymentResponse first = paymentService.createPayment(request(method, "10.00"));
+        PaymentResponse second = paymentService.createPayment(request(method, "20.00"));
+        PaymentResponse third = paymentService.createPayment(request(method, "30.00"));
+        List<UUID> batch = paymentService.createPayments(List.of(request(method, "5.00"), request(method, "5.00")))
+                .getResults().stream()
+                .map(result -> result.getPayment().getId())
+                .toList();
+
+        assertTotals(method, PaymentStatus.PENDING, 5, "70.00");
+
+        paymentService.processPayment(first.getId());
+        paymentService.updateStatus(second.getId(), new PaymentStatusUpdateRequest(PaymentStatus.FAILED));
+        paymentService.processPayments(List.of(third.getId(), batch.get(0)));
+
+        assertTotals(method, PaymentStatus.PENDING, 1, "5.00");
+        assertTotals(method, PaymentStatus.SUCCESSFUL, 3, "45.00");
+        assertTotals(method, PaymentStatus.FAILED, 1, "20.00");
+
+        Duration timeout = cleanupProperties.getPendingTimeout();
+        cleanupProperties.setPendingTimeout(Duration.ZERO);
+        try {
+            cleanupScheduler.failOldPendingPayments();
+        } finally {
+            cleanupProperties.setPendingTimeout(timeout);
+        }
+
+        Map<PaymentStatus, PaymentStatsBucket> byStatus = byStatus(method);
+        assertFalse(byStatus.containsKey(PaymentStatus.PENDING));
+        assertTotals(method, PaymentStatus.SUCCESSFUL, 3, "45.00");
+        assertTotals(method, PaymentStatus.FAILED, 2, "25.00");
+    }
+
+    @Test
+    void rebuild_shouldMatchTheIncrementalStats() {
+        for (int i = 0; i < 20; i++) {
+            PaymentResponse payment = paymentService.createPayment(request(i % 2 == 0 ? "CARD" : "BANK", "1.50"));
+            if (i % 3 == 0) {
+                paymentService.processPayment(payment.getId());
+            }
+        }
+
+        List<String> incremental = rows(paymentStatsService.getStats(null, null));
+
+        assertTrue(paymentStatsService.rebuild() > 0);
+
+        assertEquals(incremental, rows(paymentStatsService.getStats(null, null)));
+    }
+
+    @Test
+    void getStats_shouldRejectWindowsLongerThanTheLimit() {
+        LocalDateTime to = LocalDateTime.now();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> paymentStatsService.getStats(to.minusDays(40), to));
+    }
+
+    private void assertTotals(String method, PaymentStatus status, long count, String amount) {
+        PaymentStatsBucket bucket = byStatus(method).get(status);
+        assertNotNull(bucket, "no " + status + " stats for " + method);
+        assertEquals(count, bucket.getCount());
+        assertEquals(0, new BigDecimal(amount).compareTo(bucket.getAmount()));
+    }
+
+    // Sums the hourly rows of one method, so other tests' payments do not matter.
+    private Map<PaymentStatus, PaymentStatsBucket> byStatus(String method) {
+        Map<PaymentStatus, PaymentStatsBucket> byStatus = new EnumMap<>(PaymentStatus.class);
+        paymentStatsService.getStats(null, null).getHourly().stream()
+                .filter(bucket -> bucket.getMethod().equals(method))
+                .forEach(bucket -> byStatus.merge(bucket.getStatus(), bucket, (a, b) -> new PaymentStatsBucket(
+                        null, a.getStatus(), method, a.getCount() + b.getCount(), a.getAmount().add(b.getAmount()))));
+        return byStatus;
+    }
+
+    private static List<String> rows(PaymentStatsResponse stats) {
+        return stats.getHourly().stream()
+                .map(bucket -> bucket.getHour() + " " + bucket.getStatus() + " " + bucket.getMethod() + " "
+                        + bucket.getCount() + " " + bucket.getAmount().stripTrailingZeros().toPlainString())
+                .toList();
+    }
+
+    private static PaymentRequest request(String method, String amount) {
+        return PaymentRequest.builder()
+                .orderId(UUID.randomUUID())
+                .amount(new BigDecimal(amount))
+                .method(method)
+                .build();
+    }
+}
@@ -0,0 +1,109 @@
+package bg.softuni.paymentsvc.payments.watch;
+
+import bg.softuni.paymentsvc.payments.exception.PaymentServiceBusyException;
+import bg.softuni.paymentsvc.payments.model.PaymentStatus;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PaymentStatusWatcherTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void onStatusChange_shouldNotifyOnlyWatchersOfThatPayment_untilTheyUnwatch() {
+        PaymentStatusWatcher watcher = new PaymentStatusWatcher(new PaymentWatchProperties(), meterRegistry, Runnable::run);
+        UUID watched = UUID.randomUUID();
+        List<PaymentStatusChange> received = new ArrayList<>();
+
+        Runnable unwatch = watcher.watch(watched, received::add);
+        watcher.onStatusChange(change(UUID.randomUUID()));
+        watcher.onStatusChange(change(watched));
+
+        assertEquals(1, received.size());
+        assertEquals(1.0, meterRegistry.get("payments.watch.waiting").gauge().value());
+
+        unwatch.run();
+        unwatch.run();
+        watcher.onStatusChange(change(watched));
+
+        assertEquals(1, received.size());
+        assertEquals(0, watcher.getWaiting());
+    }
+
+    @Test
+    void watch_shouldRejectWaitersBeyondTheLimit() {
+        PaymentWatchProperties properties = new PaymentWatchProperties();
+        properties.setMaxWaiters(1);
+        PaymentStatusWatcher watcher = new PaymentStatusWatcher(properties, meterRegistry, Runnable::run);
+
+        watcher.watch(UUID.randomUUID(), change -> { });
+
+        assertThrows(PaymentServiceBusyException.class, () -> watcher.watch(UUID.randomUUID(), change -> { }));
+        assertEquals(1, watcher.getWaiting());
+    }
+
+    @Test
+    void onStatusChange_shouldDropWaiters_whenNotificationsCannotBeQueued() {
+        PaymentStatusWatcher watcher = new PaymentStatusWatcher(new PaymentWatchProperties(), meterRegistry,
+                task -> {
+                    throw new RejectedExecutionException("full");
+                });
+        UUID paymentId = UUID.randomUUID();
+        List<PaymentStatusChange> received = new ArrayList<>();
+        AtomicInteger dropped = new AtomicInteger();
+
+        watcher.watch(paymentId, received::add, dropped::incrementAndGet);
+        watcher.onStatusChange(change(paymentId));
+        watcher.onStatusChange(change(paymentId));
+
+        assertTrue(received.isEmpty());
+        assertEquals(1, dropped.get());
+        assertEquals(0, watcher.getWaiting());
+        assertEquals(1.0, meterRegistry.get("payments.watch.dropped").counter().count());
+    }
+
+    @Test
+    void onStatusChange_shouldNotWaitForSlowWaiters() throws Exception {
+        PaymentWatchProperties properties = new PaymentWatchProperties();
+        properties.setNotifyThreads(1);
+        PaymentStatusWatcher watcher = new PaymentStatusWatcher(properties, meterRegistry);
+        UUID paymentId = UUID.randomUUID();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch notified = new CountDownLatch(1);
+
+        try {
+            watcher.watch(paymentId, change -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                notified.countDown();
+            });
+
+            watcher.onStatusChange(change(paymentId));
+
+            assertEquals(1, notified.getCount());
+            release.countDown();
+            assertTrue(notified.await(5, TimeUnit.SECONDS));
+        } finally {
+            watcher.destroy();
+        }
+    }
+
+    private static PaymentStatusChange change(UUID paymentId) {
+        return new PaymentStatusChange(paymentId, UUID.randomUUID(), PaymentStatus.SUCCESSFUL, LocalDateTime.now());
+    }
+}
@@ -0,0 +1,79 @@
+package bg.softuni.paymentsvc.payments.watch;
+
+import bg.softuni.paymentsvc.payments.model.PaymentStatus;
+import bg.softuni.paymentsvc.payments.service.PaymentService;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentRequest;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentResponse;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentStatusUpdateRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class PaymentWatchServiceTest {
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private PaymentWatchService watchService;
+
+    @Autowired
+    private PaymentStatusWatcher watcher;
+
+    @Test
+    void awaitStatus_shouldCompleteWhenTheTransitionCommits() throws InterruptedException {
+        UUID paymentId = create();
+
+        DeferredResult<PaymentResponse> result =
+                watchService.awaitStatus(paymentId, PaymentStatus.SUCCESSFUL, Duration.ofSeconds(30));
+        assertFalse(result.hasResult());
+        CountDownLatch completed = new CountDownLatch(1);
+        result.setResultHandler(value -> completed.countDown());
+
+        paymentService.processPayment(paymentId);
+
+        // Waiters are notified on the watcher's own threads, just after the commit.
+        assertTrue(completed.await(5, TimeUnit.SECONDS));
+        assertEquals(PaymentStatus.SUCCESSFUL, ((PaymentResponse) result.getResult()).getStatus());
+    }
+
+    @Test
+    void awaitStatus_shouldAnswerImmediately_whenTargetIsNoLongerReachable() {
+        UUID paymentId = create();
+        paymentService.updateStatus(paymentId, PaymentStatusUpdateRequest.builder().status(PaymentStatus.FAILED).build());
+        int waitingBefore = watcher.getWaiting();
+
+        DeferredResult<PaymentResponse> result =
+                watchService.awaitStatus(paymentId, PaymentStatus.SUCCESSFUL, null);
+
+        assertTrue(result.hasResult());
+        assertEquals(PaymentStatus.FAILED, ((PaymentResponse) result.getResult()).getStatus());
+        assertEquals(waitingBefore, watcher.getWaiting());
+    }
+
+    @Test
+    void awaitStatus_shouldRejectNonPositiveTimeout() {
+        UUID paymentId = create();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> watchService.awaitStatus(paymentId, PaymentStatus.SUCCESSFUL, Duration.ZERO));
+    }
+
+    private UUID create() {
+        return paymentService.createPayment(PaymentRequest.builder()
+                .orderId(UUID.randomUUID())
+                .amount(new BigDecimal("6.00"))
+                .method("CARD")
+                .build()).getId();
+    }
+}
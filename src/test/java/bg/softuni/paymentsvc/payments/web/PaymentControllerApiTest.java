@@ -2,10 +2,25 @@ package bg.softuni.paymentsvc.payments.web;
 
 import bg.softuni.paymentsvc.payments.exception.PaymentAlreadyExistsException;
 import bg.softuni.paymentsvc.payments.exception.PaymentNotFoundException;
+import bg.softuni.paymentsvc.payments.exception.PaymentServiceBusyException;
+import bg.softuni.paymentsvc.payments.exception.PaymentStatusConflictException;
 import bg.softuni.paymentsvc.payments.model.PaymentStatus;
+import bg.softuni.paymentsvc.payments.processing.PaymentProcessingQueue;
+import bg.softuni.paymentsvc.payments.service.PaymentExportFormat;
+import bg.softuni.paymentsvc.payments.service.PaymentExportService;
 import bg.softuni.paymentsvc.payments.service.PaymentService;
+import bg.softuni.paymentsvc.payments.stats.PaymentStatsService;
+import bg.softuni.paymentsvc.payments.watch.PaymentWatchService;
+import bg.softuni.paymentsvc.payments.web.dto.BatchItemOutcome;
+import bg.softuni.paymentsvc.payments.web.dto.BatchPaymentItemResult;
+import bg.softuni.paymentsvc.payments.web.dto.BatchPaymentResponse;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentPageResponse;
 import bg.softuni.paymentsvc.payments.web.dto.PaymentRequest;
 import bg.softuni.paymentsvc.payments.web.dto.PaymentResponse;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentSearchRequest;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentStatsBucket;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentStatsResponse;
+import bg.softuni.paymentsvc.payments.web.dto.PaymentStatsTotal;
 import bg.softuni.paymentsvc.payments.web.dto.PaymentStatusUpdateRequest;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -15,16 +30,33 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -39,6 +71,18 @@ class PaymentControllerApiTest {
     @Autowired
     private PaymentService paymentService;
 
+    @Autowired
+    private PaymentExportService paymentExportService;
+
+    @Autowired
+    private PaymentStatsService paymentStatsService;
+
+    @Autowired
+    private PaymentProcessingQueue processingQueue;
+
+    @Autowired
+    private PaymentWatchService paymentWatchService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -47,11 +91,31 @@ class PaymentControllerApiTest {
         public PaymentService paymentService() {
             return Mockito.mock(PaymentService.class);
         }
+
+        @Bean
+        public PaymentExportService paymentExportService() {
+            return Mockito.mock(PaymentExportService.class);
+        }
+
+        @Bean
+        public PaymentStatsService paymentStatsService() {
+            return Mockito.mock(PaymentStatsService.class);
+        }
+
+        @Bean
+        public PaymentProcessingQueue paymentProcessingQueue() {
+            return Mockito.mock(PaymentProcessingQueue.class);
+        }
+
+        @Bean
+        public PaymentWatchService paymentWatchService() {
+            return Mockito.mock(PaymentWatchService.class);
+        }
     }
 
     @BeforeEach
     void setup() {
-        reset(paymentService);
+        reset(paymentService, paymentExportService, paymentStatsService, processingQueue, paymentWatchService);
     }
 
     @Test
@@ -157,6 +221,64 @@ class PaymentControllerApiTest {
                 .andExpect(jsonPath("$.status").value("SUCCESSFUL"));
     }
 
+    @Test
+    void processPayment_shouldReturn202AndStatusUrl_whenAsync() throws Exception {
+        UUID paymentId = UUID.randomUUID();
+        when(processingQueue.isEnabled()).thenReturn(true);
+
+        mockMvc.perform(post("/api/v1/payments/{id}/process", paymentId))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "http://localhost/api/v1/payments/" + paymentId))
+                .andExpect(jsonPath("$.id").value(paymentId.toString()))
+                .andExpect(jsonPath("$.statusUrl").value("http://localhost/api/v1/payments/" + paymentId));
+
+        verify(processingQueue).submit(paymentId);
+        verifyNoInteractions(paymentService);
+    }
+
+    @Test
+    void awaitPayment_shouldLongPollUntilStatusIsReached() throws Exception {
+        UUID paymentId = UUID.randomUUID();
+        DeferredResult<PaymentResponse> deferred = new DeferredResult<>();
+
+        when(paymentWatchService.awaitStatus(paymentId, PaymentStatus.SUCCESSFUL, Duration.ofSeconds(20)))
+                .thenReturn(deferred);
+
+        MvcResult pending = mockMvc.perform(get("/api/v1/payments/{id}", paymentId)
+                        .param("waitFor", "SUCCESSFUL")
+                        .param("timeout", "20s"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        deferred.setResult(PaymentResponse.builder()
+                .id(paymentId)
+                .status(PaymentStatus.SUCCESSFUL)
+                .build());
+
+        mockMvc.perform(asyncDispatch(pending))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("SUCCESSFUL"));
+    }
+
+    @Test
+    void streamPayment_shouldOpenEventStream() throws Exception {
+        UUID paymentId = UUID.randomUUID();
+        SseEmitter emitter = new SseEmitter();
+
+        when(paymentWatchService.streamStatus(paymentId)).thenReturn(emitter);
+
+        MvcResult stream = mockMvc.perform(get("/api/v1/payments/{id}/events", paymentId)
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        emitter.send(SseEmitter.event().name("status").data("SUCCESSFUL"));
+        emitter.complete();
+
+        assertThat(stream.getResponse().getContentType()).startsWith(MediaType.TEXT_EVENT_STREAM_VALUE);
+        assertThat(stream.getResponse().getContentAsString()).contains("event:status", "data:SUCCESSFUL");
+    }
+
     @Test
     void updateStatus_shouldReturn200AndBody() throws Exception {
         UUID paymentId = UUID.randomUUID();
@@ -185,6 +307,42 @@ class PaymentControllerApiTest {
                 .andExpect(jsonPath("$.status").value("FAILED"));
     }
 
+    @Test
+    void updateStatus_shouldReturn409_whenTransitionIsNotAllowed() throws Exception {
+        UUID paymentId = UUID.randomUUID();
+
+        PaymentStatusUpdateRequest request = PaymentStatusUpdateRequest.builder()
+                .status(PaymentStatus.FAILED)
+                .build();
+
+        when(paymentService.updateStatus(any(UUID.class), any(PaymentStatusUpdateRequest.class)))
+                .thenThrow(new PaymentStatusConflictException(
+                        "Payment [%s] cannot move from SUCCESSFUL to FAILED.".formatted(paymentId)));
+
+        mockMvc.perform(post("/api/v1/payments/{id}", paymentId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error").value("Payment status conflict"));
+    }
+
+    @Test
+    void createPayment_shouldReturn400_whenValuesDoNotFitTheColumns() throws Exception {
+        PaymentRequest tooLarge = PaymentRequest.builder()
+                .orderId(UUID.randomUUID())
+                .amount(new BigDecimal("10.001"))
+                .method("C".repeat(256))
+                .build();
+
+        mockMvc.perform(post("/api/v1/payments")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(tooLarge)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Validation error"));
+
+        verifyNoInteractions(paymentService);
+    }
+
     @Test
     void createPayment_shouldReturn400_onValidationError() throws Exception {
         PaymentRequest invalid = PaymentRequest.builder()
@@ -231,4 +389,178 @@ class PaymentControllerApiTest {
                 .andExpect(status().isConflict())
                 .andExpect(jsonPath("$.error").value("Payment already exists"));
     }
+
+    @Test
+    void createPayment_shouldReturn409_onlyForDuplicateKeys() throws Exception {
+        PaymentRequest request = PaymentRequest.builder()
+                .orderId(UUID.randomUUID())
+                .amount(new BigDecimal("10.00"))
+                .method("CARD")
+                .build();
+
+        when(paymentService.createPayment(any(PaymentRequest.class)))
+                .thenThrow(new DuplicateKeyException("Duplicate entry for key 'payment.order_id'"))
+                .thenThrow(new DataIntegrityViolationException("Column 'method' cannot be null"));
+
+        mockMvc.perform(post("/api/v1/payments")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error").value("Conflict"));
+
+        mockMvc.perform(post("/api/v1/payments")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isInternalServerError());
+    }
+
+    @Test
+    void createPayments_shouldReturnPerItemResults() throws Exception {
+        UUID orderId = UUID.randomUUID();
+
+        List<PaymentRequest> requests = List.of(PaymentRequest.builder()
+                .orderId(orderId)
+                .amount(new BigDecimal("7.00"))
+                .method("CARD")
+                .build());
+
+        BatchPaymentResponse response = BatchPaymentResponse.builder()
+                .created(1)
+                .results(List.of(BatchPaymentItemResult.builder()
+                        .index(0)
+                        .orderId(orderId)
+                        .outcome(BatchItemOutcome.CREATED)
+                        .build()))
+                .build();
+
+        when(paymentService.createPayments(anyList())).thenReturn(response);
+
+        mockMvc.perform(post("/api/v1/payments/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requests)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.results[0].orderId").value(orderId.toString()))
+                .andExpect(jsonPath("$.results[0].outcome").value("CREATED"));
+    }
+
+    @Test
+    void listPayments_shouldReturnPageWithCursor() throws Exception {
+        UUID paymentId = UUID.randomUUID();
+
+        PaymentPageResponse page = PaymentPageResponse.builder()
+                .items(List.of(PaymentResponse.builder()
+                        .id(paymentId)
+                        .orderId(UUID.randomUUID())
+                        .amount(new BigDecimal("2.00"))
+                        .method("CARD")
+                        .status(PaymentStatus.PENDING)
+                        .createdOn(LocalDateTime.now())
+                        .updatedOn(LocalDateTime.now())
+                        .build()))
+                .nextCursor("next")
+                .build();
+
+        when(paymentService.listPayments(any(PaymentSearchRequest.class))).thenReturn(page);
+
+        mockMvc.perform(get("/api/v1/payments")
+                        .param("status", "PENDING")
+                        .param("from", "2026-01-01T00:00:00")
+                        .param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value(paymentId.toString()))
+                .andExpect(jsonPath("$.nextCursor").value("next"));
+    }
+
+    @Test
+    void listPayments_shouldReturn400_whenLimitTooLarge() throws Exception {
+        mockMvc.perform(get("/api/v1/payments").param("limit", "10000"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Validation error"));
+    }
+
+    @Test
+    void exportPayments_shouldStreamCsvAttachment() throws Exception {
+        doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(3);
+            out.write("id,orderId\n".getBytes(StandardCharsets.UTF_8));
+            return 0L;
+        }).when(paymentExportService).exportPayments(
+                eq(LocalDateTime.parse("2026-01-01T00:00:00")),
+                eq(LocalDateTime.parse("2026-01-02T00:00:00")),
+                eq(PaymentExportFormat.CSV),
+                any(OutputStream.class));
+
+        MvcResult result = mockMvc.perform(get("/api/v1/payments/export")
+                        .param("from", "2026-01-01T00:00:00")
+                        .param("to", "2026-01-02T00:00:00")
+                        .param("format", "CSV"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "text/csv"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"payments.csv\""))
+                .andExpect(content().string("id,orderId\n"));
+    }
+
+    @Test
+    void exportPayments_shouldReturn400_whenWindowIsEmpty() throws Exception {
+        mockMvc.perform(get("/api/v1/payments/export")
+                        .param("from", "2026-01-02T00:00:00")
+                        .param("to", "2026-01-01T00:00:00"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Validation error"));
+    }
+
+    @Test
+    void getStats_shouldReturnTotalsForTheWindow() throws Exception {
+        LocalDateTime from = LocalDateTime.parse("2026-01-01T00:00:00");
+        LocalDateTime to = LocalDateTime.parse("2026-01-01T02:00:00");
+        PaymentStatsTotal total = new PaymentStatsTotal(3, new BigDecimal("30.00"));
+
+        when(paymentStatsService.getStats(from, to)).thenReturn(PaymentStatsResponse.builder()
+                .from(from)
+                .to(to)
+                .total(total)
+                .byStatus(Map.of(PaymentStatus.SUCCESSFUL, total))
+                .byMethod(Map.of("CARD", total))
+                .hourly(List.of(new PaymentStatsBucket(from, PaymentStatus.SUCCESSFUL, "CARD", 3,
+                        new BigDecimal("30.00"))))
+                .build());
+
+        mockMvc.perform(get("/api/v1/payments/stats")
+                        .param("from", "2026-01-01T00:00:00")
+                        .param("to", "2026-01-01T02:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total.count").value(3))
+                .andExpect(jsonPath("$.byStatus.SUCCESSFUL.amount").value(30.00))
+                .andExpect(jsonPath("$.byMethod.CARD.count").value(3))
+                .andExpect(jsonPath("$.hourly[0].method").value("CARD"));
+    }
+
+    @Test
+    void getStats_shouldReturn400_whenWindowIsEmpty() throws Exception {
+        mockMvc.perform(get("/api/v1/payments/stats")
+                        .param("from", "2026-01-02T00:00:00")
+                        .param("to", "2026-01-01T00:00:00"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Validation error"));
+
+        verifyNoInteractions(paymentStatsService);
+    }
+
+    @Test
+    void getPayment_shouldReturn503WithRetryAfter_whenServiceIsBusy() throws Exception {
+        UUID id = UUID.randomUUID();
+
+        when(paymentService.getPayment(id))
+                .thenThrow(new PaymentServiceBusyException("Payment service is at capacity. Please retry shortly."));
+
+        mockMvc.perform(get("/api/v1/payments/{id}", id))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"))
+                .andExpect(jsonPath("$.error").value("Service unavailable"));
+    }
 }